@@ -0,0 +1,102 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * V2 : encodage du domaine et du statut des projets
+ * - domaine_recherche (VARCHAR libre) → domaine_id (clé étrangère vers domaines)
+ * - statut_projet (VARCHAR) → statut (ordinal de ProjectStatus : EN_COURS=0, TERMINE=1, SUSPENDU=2)
+ *
+ * Écrite en Java car les bases reprises à la version 1 peuvent déjà contenir les
+ * nouvelles colonnes (ajoutées auparavant par ddl-auto=update) : chaque étape
+ * vérifie donc l'état réel du schéma avant de l'appliquer.
+ */
+public class V2__Encodage_domaine_statut extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+
+        if (!hasColumn(connection, "research_projects", "domaine_id")) {
+            jdbc.execute("ALTER TABLE research_projects ADD COLUMN domaine_id BIGINT");
+        }
+        if (!hasColumn(connection, "research_projects", "statut")) {
+            jdbc.execute("ALTER TABLE research_projects ADD COLUMN statut TINYINT");
+        }
+
+        // 1. Domaines : création des domaines manquants puis rattachement des projets
+        if (hasColumn(connection, "research_projects", "domaine_recherche")) {
+            jdbc.update("INSERT INTO domaines (nom) " +
+                    "SELECT DISTINCT p.domaine_recherche FROM research_projects p " +
+                    "WHERE p.domaine_recherche IS NOT NULL AND p.domaine_recherche <> '' " +
+                    "AND NOT EXISTS (SELECT 1 FROM domaines d WHERE d.nom = p.domaine_recherche)");
+            jdbc.update("UPDATE research_projects SET domaine_id = " +
+                    "(SELECT d.id FROM domaines d WHERE d.nom = research_projects.domaine_recherche) " +
+                    "WHERE domaine_id IS NULL AND domaine_recherche IS NOT NULL");
+            jdbc.execute("ALTER TABLE research_projects DROP COLUMN domaine_recherche");
+        }
+
+        // 2. Statuts : conversion texte → ordinal
+        if (hasColumn(connection, "research_projects", "statut_projet")) {
+            jdbc.update("UPDATE research_projects SET statut = CASE UPPER(statut_projet) " +
+                    "WHEN 'EN_COURS' THEN 0 WHEN 'TERMINE' THEN 1 WHEN 'SUSPENDU' THEN 2 END " +
+                    "WHERE statut IS NULL AND statut_projet IS NOT NULL");
+            jdbc.execute("ALTER TABLE research_projects DROP COLUMN statut_projet");
+        }
+
+        // 3. Contrainte et index
+        if (!hasForeignKey(connection, "research_projects", "domaine_id")) {
+            jdbc.execute("ALTER TABLE research_projects ADD CONSTRAINT fk_projects_domaine " +
+                    "FOREIGN KEY (domaine_id) REFERENCES domaines (id)");
+        }
+        if (!hasIndex(connection, "research_projects", "idx_projects_domaine")) {
+            jdbc.execute("CREATE INDEX idx_projects_domaine ON research_projects (domaine_id)");
+        }
+        // Remplacé par l'index composite (statut, date_fin) de la V3
+        if (hasIndex(connection, "research_projects", "idx_projects_statut")) {
+            jdbc.execute("DROP INDEX idx_projects_statut ON research_projects");
+        }
+    }
+
+    private boolean hasColumn(Connection connection, String table, String column) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        try (ResultSet rs = meta.getColumns(connection.getCatalog(), connection.getSchema(), table, null)) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME")))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasForeignKey(Connection connection, String table, String column) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        try (ResultSet rs = meta.getImportedKeys(connection.getCatalog(), connection.getSchema(), table)) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("FKCOLUMN_NAME")))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasIndex(Connection connection, String table, String index) throws SQLException {
+        DatabaseMetaData meta = connection.getMetaData();
+        try (ResultSet rs = meta.getIndexInfo(connection.getCatalog(), connection.getSchema(), table, false, false)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME")))
+                    return true;
+            }
+        }
+        return false;
+    }
+}
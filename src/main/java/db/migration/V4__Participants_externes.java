@@ -0,0 +1,89 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * V4 : participants externes normalisés
+ * - création de project_external_participants (une ligne par personne, index sur le nom)
+ * - reprise des noms saisis dans autres_participants et des lignes libres de liste_participants
+ *   (les lignes « Prénom Nom (email) » des membres internes sont ignorées : elles sont recalculées)
+ * - suppression des deux colonnes TEXT
+ */
+public class V4__Participants_externes extends BaseJavaMigration {
+
+    private static final String SEPARATEUR_EXTERNES = "--- Externes ---";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+
+        jdbc.execute("CREATE TABLE project_external_participants (" +
+                "id BIGINT NOT NULL AUTO_INCREMENT, " +
+                "project_id BIGINT NOT NULL, " +
+                "nom VARCHAR(255) NOT NULL, " +
+                "ordre INTEGER NOT NULL, " +
+                "PRIMARY KEY (id), " +
+                "CONSTRAINT fk_external_participants_project FOREIGN KEY (project_id) " +
+                "REFERENCES research_projects (project_id)" +
+                ") ENGINE=InnoDB");
+        jdbc.execute("CREATE INDEX idx_external_participants_nom ON project_external_participants (nom)");
+
+        // Emails des membres internes par projet, pour reconnaître les lignes générées
+        Map<Long, List<String>> emailsMembres = new HashMap<>();
+        jdbc.query("SELECT pm.project_id, u.email FROM project_members pm JOIN users u ON u.id = pm.user_id",
+                rs -> {
+                    emailsMembres.computeIfAbsent(rs.getLong(1), k -> new ArrayList<>()).add(rs.getString(2));
+                });
+
+        List<Object[]> lignes = new ArrayList<>();
+        jdbc.query("SELECT project_id, autres_participants, liste_participants FROM research_projects " +
+                "WHERE autres_participants IS NOT NULL OR liste_participants IS NOT NULL", rs -> {
+                    long projectId = rs.getLong(1);
+                    Set<String> noms = new LinkedHashSet<>();
+                    addLines(noms, rs.getString(2), List.of());
+                    addLines(noms, rs.getString(3), emailsMembres.getOrDefault(projectId, List.of()));
+
+                    int ordre = 0;
+                    for (String nom : noms) {
+                        lignes.add(new Object[] { projectId, nom, ordre++ });
+                    }
+                });
+
+        if (!lignes.isEmpty()) {
+            jdbc.batchUpdate("INSERT INTO project_external_participants (project_id, nom, ordre) VALUES (?, ?, ?)",
+                    lignes);
+        }
+
+        jdbc.execute("ALTER TABLE research_projects DROP COLUMN liste_participants");
+        jdbc.execute("ALTER TABLE research_projects DROP COLUMN autres_participants");
+    }
+
+    private void addLines(Set<String> noms, String texte, List<String> emailsMembres) {
+        if (texte == null)
+            return;
+        for (String ligne : texte.split("\\R")) {
+            String nom = ligne.trim();
+            if (nom.isEmpty() || nom.equals(SEPARATEUR_EXTERNES) || isMemberLine(nom, emailsMembres))
+                continue;
+            noms.add(nom.length() > 255 ? nom.substring(0, 255) : nom);
+        }
+    }
+
+    private boolean isMemberLine(String ligne, List<String> emailsMembres) {
+        for (String email : emailsMembres) {
+            if (ligne.endsWith("(" + email + ")"))
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,331 @@
+package sn.esmt.isi.config;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sessions HTTP dans la table http_sessions, partagées par tous les nœuds : un répartiteur
+ * de charge peut envoyer chaque requête n'importe où (pas de sessions collantes).
+ *
+ * - les attributs sont réécrits seulement s'ils ont changé (setAttribute / removeAttribute),
+ *   en un seul bloc binaire compact (SessionCodec)
+ * - le dernier accès, qui change à chaque requête, est écrit en différé : les dates en
+ *   attente sont envoyées par lots toutes les flush-seconds (UPDATE groupés)
+ * - les sessions expirées sont supprimées par lots de SWEEP_BATCH toutes les sweep-seconds,
+ *   avec une marge pour les accès encore en attente sur les autres nœuds
+ *
+ * Deux requêtes simultanées d'une même session sur deux nœuds : la dernière écriture des
+ * attributs l'emporte (comme avec la session Tomcat, modifiée sans verrou).
+ */
+public class JdbcSessionRepository implements SessionRepository<JdbcSessionRepository.StoredSession> {
+
+    private static final Logger logger = LoggerFactory.getLogger(JdbcSessionRepository.class);
+
+    private static final int SWEEP_BATCH = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SessionCodec codec;
+    private final Duration defaultMaxInactive;
+    private final long flushMillis;
+    /**
+     * Dernier accès pas encore écrit, avec l'expiration qui en découle (ms)
+     */
+    private record PendingAccess(long lastAccess, long expiration) {
+    }
+
+    private final Map<String, PendingAccess> pendingAccess = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "session-store");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public JdbcSessionRepository(JdbcTemplate jdbcTemplate, Duration defaultMaxInactive, long flushSeconds,
+            long sweepSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.codec = new SessionCodec(getClass().getClassLoader());
+        this.defaultMaxInactive = defaultMaxInactive;
+        this.flushMillis = TimeUnit.SECONDS.toMillis(flushSeconds);
+        writer.scheduleWithFixedDelay(this::flushQuietly, flushSeconds, flushSeconds, TimeUnit.SECONDS);
+        writer.scheduleWithFixedDelay(this::sweepQuietly, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // SessionRepository
+    // ──────────────────────────────────────────────────────────────
+
+    @Override
+    public StoredSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(defaultMaxInactive);
+        return new StoredSession(session, true);
+    }
+
+    @Override
+    public void save(StoredSession session) {
+        MapSession delegate = session.delegate;
+        long lastAccess = delegate.getLastAccessedTime().toEpochMilli();
+        long maxInactive = delegate.getMaxInactiveInterval().getSeconds();
+
+        if (session.isNew) {
+            jdbcTemplate.update("INSERT INTO http_sessions (id, date_creation, dernier_acces, duree_max, expiration, " +
+                    "attributs) VALUES (?, ?, ?, ?, ?, ?)", delegate.getId(),
+                    delegate.getCreationTime().toEpochMilli(), lastAccess, maxInactive,
+                    expiration(lastAccess, maxInactive), encode(session));
+            session.saved(lastAccess);
+            return;
+        }
+        if (!delegate.getId().equals(session.persistedId)) {
+            // Nouvel id après connexion (protection contre la fixation de session)
+            jdbcTemplate.update("UPDATE http_sessions SET id = ? WHERE id = ?", delegate.getId(),
+                    session.persistedId);
+            pendingAccess.remove(session.persistedId);
+        }
+        if (session.changed) {
+            jdbcTemplate.update("UPDATE http_sessions SET dernier_acces = ?, duree_max = ?, expiration = ?, " +
+                    "attributs = ? WHERE id = ?", lastAccess, maxInactive, expiration(lastAccess, maxInactive),
+                    encode(session), delegate.getId());
+            pendingAccess.remove(delegate.getId());
+        } else if (lastAccess > session.persistedAccess) {
+            pendingAccess.merge(delegate.getId(), new PendingAccess(lastAccess, expiration(lastAccess, maxInactive)),
+                    (previous, next) -> next.lastAccess() > previous.lastAccess() ? next : previous);
+        }
+        session.saved(lastAccess);
+    }
+
+    @Override
+    public StoredSession findById(String id) {
+        List<StoredSession> found = jdbcTemplate.query("SELECT date_creation, dernier_acces, duree_max, attributs " +
+                "FROM http_sessions WHERE id = ?", (rs, i) -> {
+                    MapSession session = new MapSession(id);
+                    session.setCreationTime(Instant.ofEpochMilli(rs.getLong(1)));
+                    session.setLastAccessedTime(Instant.ofEpochMilli(rs.getLong(2)));
+                    session.setMaxInactiveInterval(Duration.ofSeconds(rs.getLong(3)));
+                    try {
+                        codec.decode(rs.getBytes(4)).forEach(session::setAttribute);
+                    } catch (IOException | RuntimeException e) {
+                        // Format ou classes changés depuis l'écriture : la session est abandonnée
+                        logger.debug("Session {} illisible, abandonnée", id, e);
+                        return null;
+                    }
+                    return new StoredSession(session, false);
+                }, id);
+        if (found.isEmpty())
+            return null;
+        StoredSession session = found.get(0);
+        if (session == null) {
+            deleteById(id);
+            return null;
+        }
+        // Accès de ce nœud pas encore écrits
+        PendingAccess pending = pendingAccess.get(id);
+        if (pending != null && pending.lastAccess() > session.delegate.getLastAccessedTime().toEpochMilli())
+            session.delegate.setLastAccessedTime(Instant.ofEpochMilli(pending.lastAccess()));
+        if (session.isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        session.saved(session.delegate.getLastAccessedTime().toEpochMilli());
+        return session;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        pendingAccess.remove(id);
+        jdbcTemplate.update("DELETE FROM http_sessions WHERE id = ?", id);
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Écritures différées et purge (thread session-store)
+    // ──────────────────────────────────────────────────────────────
+
+    /**
+     * Écrit les derniers accès en attente, en un UPDATE groupé
+     */
+    void flush() {
+        if (pendingAccess.isEmpty())
+            return;
+        List<Object[]> rows = new ArrayList<>(pendingAccess.size());
+        for (String id : List.copyOf(pendingAccess.keySet())) {
+            PendingAccess access = pendingAccess.remove(id);
+            if (access != null)
+                rows.add(new Object[] { access.lastAccess(), access.expiration(), id, access.lastAccess() });
+        }
+        // Un accès plus récent déjà écrit (par un autre nœud) n'est pas écrasé
+        jdbcTemplate.batchUpdate("UPDATE http_sessions SET dernier_acces = ?, expiration = ? " +
+                "WHERE id = ? AND dernier_acces < ?", rows);
+    }
+
+    /**
+     * Supprime les sessions expirées, par lots, en laissant aux autres nœuds le temps
+     * d'écrire leurs accès en attente
+     */
+    void sweep() {
+        flush();
+        long before = System.currentTimeMillis() - 2 * flushMillis;
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM http_sessions WHERE expiration < ? LIMIT " + SWEEP_BATCH,
+                    before);
+            total += deleted;
+        } while (deleted == SWEEP_BATCH);
+        if (total > 0)
+            logger.debug("Sessions : {} session(s) expirée(s) supprimée(s)", total);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("Sessions : écriture des derniers accès impossible, nouvel essai au prochain passage", e);
+        }
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (RuntimeException e) {
+            logger.warn("Sessions : purge des sessions expirées impossible", e);
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    private static long expiration(long lastAccess, long maxInactiveSeconds) {
+        // Durée négative : la session n'expire jamais
+        return maxInactiveSeconds < 0 ? Long.MAX_VALUE : lastAccess + maxInactiveSeconds * 1000;
+    }
+
+    private byte[] encode(StoredSession session) {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        for (String name : session.delegate.getAttributeNames()) {
+            attributes.put(name, session.delegate.getAttribute(name));
+        }
+        try {
+            return codec.encode(attributes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Session " + session.getId() + " : attribut non sérialisable", e);
+        }
+    }
+
+    /**
+     * Session chargée ou créée par ce nœud : suit ce qui doit être réécrit
+     */
+    public static final class StoredSession implements Session {
+
+        private final MapSession delegate;
+        private boolean isNew;
+        // Attributs ou durée max modifiés depuis la dernière écriture
+        private boolean changed;
+        private String persistedId;
+        private long persistedAccess;
+
+        private StoredSession(MapSession delegate, boolean isNew) {
+            this.delegate = delegate;
+            this.isNew = isNew;
+        }
+
+        private void saved(long lastAccess) {
+            isNew = false;
+            changed = false;
+            persistedId = delegate.getId();
+            persistedAccess = lastAccess;
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            delegate.setAttribute(attributeName, attributeValue);
+            changed = true;
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            delegate.removeAttribute(attributeName);
+            changed = true;
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            delegate.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            delegate.setMaxInactiveInterval(interval);
+            changed = true;
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return delegate.isExpired();
+        }
+    }
+}
@@ -5,10 +5,14 @@ import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
 import sn.esmt.isi.model.User;
 import sn.esmt.isi.repository.UserRepository;
+import sn.esmt.isi.service.AppConfigService;
+import sn.esmt.isi.service.CustomOAuth2UserService;
 
 import java.util.Collections;
 import java.util.List;
@@ -19,12 +23,19 @@ public class JwtRoleConverter implements Converter<Jwt, AbstractAuthenticationTo
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AppConfigService appConfigService;
+
     @Override
     public AbstractAuthenticationToken convert(Jwt jwt) {
         String email = jwt.getClaimAsString("email"); // L'email est plus fiable que le sub
         
         User user = userRepository.findByEmail(email) // Utiliser findByEmail
                 .orElseGet(() -> {
+                    // Inscriptions fermées : un jeton d'un utilisateur inconnu est refusé
+                    if (!appConfigService.getSnapshot().registrationOpen())
+                        throw new OAuth2AuthenticationException(new OAuth2Error(
+                                CustomOAuth2UserService.REGISTRATION_CLOSED, "Inscriptions fermées", null));
                     User newUser = new User();
                     newUser.setId(jwt.getSubject()); // Définit l'ID issu du token
                     newUser.setEmail(email);
@@ -0,0 +1,87 @@
+package sn.esmt.isi.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import sn.esmt.isi.service.AppConfigService;
+
+import java.io.IOException;
+
+/**
+ * Applique le mode maintenance et la fermeture des inscriptions.
+ *
+ * Placé dans la chaîne Spring Security, après le chargement de l'authentification :
+ * les administrateurs passent toujours, les autres requêtes reçoivent directement la
+ * page de maintenance pré-encodée (503). Les drapeaux viennent de l'instantané en
+ * mémoire d'{@link AppConfigService}, jamais de la base. Les créations de compte par
+ * Google ou par jeton JWT sont refusées à part (CustomOAuth2UserService, JwtRoleConverter).
+ */
+public class MaintenanceModeFilter extends OncePerRequestFilter {
+
+    /**
+     * Chemins toujours accessibles, pour que les administrateurs puissent se connecter
+     */
+    private static final String[] OPEN_PREFIXES = {
+            "/login", "/logout", "/error", "/oauth2/",
+            "/css/", "/js/", "/images/", "/webjars/", "/static/" };
+
+    private static final String RETRY_AFTER_SECONDS = "120";
+
+    private final AppConfigService appConfigService;
+
+    public MaintenanceModeFilter(AppConfigService appConfigService) {
+        this.appConfigService = appConfigService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AppConfigService.Snapshot snapshot = appConfigService.getSnapshot();
+
+        if (snapshot.maintenanceMode() && !isOpenPath(request.getServletPath()) && !isAdmin()) {
+            byte[] page = snapshot.maintenancePage();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+            response.setHeader("Cache-Control", "no-store");
+            response.setContentType("text/html;charset=UTF-8");
+            response.setContentLength(page.length);
+            response.getOutputStream().write(page);
+            return;
+        }
+
+        if (!snapshot.registrationOpen() && "/register".equals(request.getServletPath())) {
+            response.sendRedirect(request.getContextPath() + "/login?registration_closed");
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    private static boolean isOpenPath(String path) {
+        for (String prefix : OPEN_PREFIXES) {
+            if (path.startsWith(prefix))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean isAdmin() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated())
+            return false;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if ("ROLE_ADMIN".equals(authority.getAuthority()))
+                return true;
+        }
+        return false;
+    }
+}
@@ -5,8 +5,10 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
 import org.springframework.stereotype.Component;
+import sn.esmt.isi.service.CustomOAuth2UserService;
 
 import java.io.IOException;
 
@@ -23,6 +25,13 @@ public class OAuth2AuthenticationFailureHandler implements AuthenticationFailure
             HttpServletResponse response,
             AuthenticationException exception) throws IOException {
 
+        if (exception instanceof OAuth2AuthenticationException oauth2Exception
+                && CustomOAuth2UserService.REGISTRATION_CLOSED.equals(oauth2Exception.getError().getErrorCode())) {
+            // Compte inconnu alors que les inscriptions sont fermées
+            response.sendRedirect("/login?registration_closed");
+            return;
+        }
+
         logger.error("OAuth2 authentication failed: {}", exception.getMessage());
 
         // Redirect to login page with error parameter
@@ -0,0 +1,141 @@
+package sn.esmt.isi.config;
+
+import jakarta.servlet.http.HttpSession;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Aiguillage des connexions entre la base principale et le réplica.
+ *
+ * Une connexion va au réplica seulement si :
+ * - la transaction courante est en lecture seule (@Transactional(readOnly = true)) et a été
+ *   ouverte par un service de l'application (nom de transaction préfixé par servicePackage) :
+ *   les transactions lecture seule ouvertes par défaut par les dépôts Spring Data, hors
+ *   service, restent sur la base principale (lecture puis écriture dans la même requête) ;
+ * - l'utilisateur connecté n'a pas écrit pendant la fenêtre de lecture de ses écritures :
+ *   sur ce nœud (toutes ses sessions), ou dans sa session HTTP (partagée en base entre
+ *   les nœuds, app.session.store=jdbc), quel que soit le nœud qui a reçu l'écriture ;
+ * - le réplica est jugé à jour par {@link ReplicaLagMonitor}.
+ * Tout le reste (écritures, accès hors transaction, Flyway) part sur la base principale.
+ *
+ * Doit être enveloppé dans un LazyConnectionDataSourceProxy : la connexion physique
+ * n'est alors demandée qu'à la première requête, quand le caractère lecture seule
+ * de la transaction est connu. Avec JPA, Hibernate doit aussi rendre la connexion à la
+ * fin de chaque transaction (hibernate.connection.handling_mode, voir
+ * application.properties) : sinon l'EntityManager gardé ouvert par open-in-view
+ * conserve la première connexion, et son aiguillage, pour toute la requête.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    /**
+     * Au-delà de cette taille, les entrées expirées sont purgées à chaque écriture
+     */
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    /**
+     * Attribut de session : instant de la dernière écriture validée (ms depuis l'epoch,
+     * comparable d'un nœud à l'autre)
+     */
+    static final String LAST_WRITE_ATTRIBUTE = ReadWriteRoutingDataSource.class.getName() + ".LAST_WRITE";
+
+    private final String servicePackage;
+    private final long stickinessNanos;
+    private final BooleanSupplier replicaUsable;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, String servicePackage,
+            long stickinessMillis, BooleanSupplier replicaUsable) {
+        this.servicePackage = servicePackage.endsWith(".") ? servicePackage : servicePackage + ".";
+        this.stickinessNanos = stickinessMillis * 1_000_000L;
+        this.replicaUsable = replicaUsable;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String user = currentUser();
+
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (user != null && TransactionSynchronizationManager.isActualTransactionActive())
+                recordWrite(user);
+            return Target.PRIMARY;
+        }
+        String transaction = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (transaction == null || !transaction.startsWith(servicePackage))
+            return Target.PRIMARY;
+        if (user != null && wroteRecently(user))
+            return Target.PRIMARY;
+        return replicaUsable.getAsBoolean() ? Target.REPLICA : Target.PRIMARY;
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Lecture de ses propres écritures
+    // ──────────────────────────────────────────────────────────────
+
+    private void recordWrite(String user) {
+        lastWrites.put(user, System.nanoTime());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // La fenêtre court à partir de la validation, pas du début de la transaction
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    lastWrites.put(user, System.nanoTime());
+                    HttpSession session = currentSession();
+                    if (session != null)
+                        session.setAttribute(LAST_WRITE_ATTRIBUTE, System.currentTimeMillis());
+                }
+            });
+        }
+        if (lastWrites.size() > PRUNE_THRESHOLD) {
+            long now = System.nanoTime();
+            lastWrites.values().removeIf(at -> now - at > stickinessNanos);
+        }
+    }
+
+    private boolean wroteRecently(String user) {
+        Long at = lastWrites.get(user);
+        if (at != null) {
+            if (System.nanoTime() - at <= stickinessNanos)
+                return true;
+            lastWrites.remove(user, at);
+        }
+        // Écriture reçue par un autre nœud
+        HttpSession session = currentSession();
+        return session != null && session.getAttribute(LAST_WRITE_ATTRIBUTE) instanceof Long written
+                && (System.currentTimeMillis() - written) * 1_000_000L <= stickinessNanos;
+    }
+
+    /**
+     * Session HTTP de la requête en cours, sans en créer (clients JWT sans session)
+     */
+    private static HttpSession currentSession() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes)
+            return servletAttributes.getRequest().getSession(false);
+        return null;
+    }
+
+    private static String currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getPrincipal()))
+            return null;
+        return auth.getName();
+    }
+}
@@ -0,0 +1,77 @@
+package sn.esmt.isi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import sn.esmt.isi.service.StatisticsService;
+
+import javax.sql.DataSource;
+
+/**
+ * Lecture sur réplica, activée uniquement si app.datasource.replica.url est renseignée
+ * (sinon Spring Boot configure la DataSource unique habituelle).
+ *
+ * - base principale : propriétés spring.datasource.*
+ * - réplica : propriétés app.datasource.replica.* (utilisateur en lecture seule conseillé)
+ * Deux bases embarquées (H2) suffisent pour l'essayer en local.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "url")
+public class ReplicaDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource replicaDataSource(
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${app.datasource.replica.driver-class-name:}") String driverClassName,
+            @Value("${app.datasource.replica.maximum-pool-size:10}") int maximumPoolSize) {
+        DataSourceBuilder<HikariDataSource> builder = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(url).username(username).password(password);
+        if (!driverClassName.isBlank())
+            builder.driverClassName(driverClassName);
+        HikariDataSource dataSource = builder.build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaLagMonitor replicaLagMonitor(HikariDataSource replicaDataSource,
+            @Value("${app.datasource.replica.lag-query:SHOW REPLICA STATUS}") String lagQuery,
+            @Value("${app.datasource.replica.max-lag-seconds:5}") long maxLagSeconds,
+            @Value("${app.datasource.replica.check-interval-seconds:5}") long checkIntervalSeconds) {
+        return new ReplicaLagMonitor(replicaDataSource, lagQuery, maxLagSeconds, checkIntervalSeconds);
+    }
+
+    /**
+     * DataSource utilisée par JPA, JdbcTemplate et Flyway
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+            ReplicaLagMonitor replicaLagMonitor,
+            @Value("${app.datasource.replica.read-your-writes-millis:5000}") long stickinessMillis) {
+        // Seules les transactions lecture seule déclarées dans les services vont au réplica
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource,
+                StatisticsService.class.getPackageName(), stickinessMillis, replicaLagMonitor::isUsable);
+        // Connexion physique obtenue à la première requête : le mode lecture seule est alors connu
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
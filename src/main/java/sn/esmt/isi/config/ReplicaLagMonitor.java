@@ -0,0 +1,106 @@
+package sn.esmt.isi.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Surveille le retard du réplica ; tant qu'il dépasse le seuil (ou que le réplica
+ * ne répond pas), les lectures repartent sur la base principale.
+ *
+ * La requête de mesure est configurable :
+ * - MySQL : SHOW REPLICA STATUS (colonne Seconds_Behind_Source / Seconds_Behind_Master ;
+ *   une valeur NULL signifie que la réplication est arrêtée)
+ * - autre base ou tests : toute requête dont la première colonne donne le retard en secondes
+ *   (ex. SELECT 0) ; un résultat vide est considéré comme un retard nul
+ */
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final long maxLagSeconds;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean usable = true;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, long maxLagSeconds, long checkIntervalSeconds) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        check();
+        scheduler.scheduleWithFixedDelay(this::check, checkIntervalSeconds, checkIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    void check() {
+        boolean nowUsable;
+        try {
+            Long lag = measureLag();
+            nowUsable = lag != null && lag <= maxLagSeconds;
+            if (!nowUsable && usable) {
+                if (lag == null)
+                    logger.warn("Réplication arrêtée : lectures redirigées vers la base principale");
+                else
+                    logger.warn("Réplica en retard ({} s, seuil {} s) : lectures redirigées vers la base principale",
+                            lag, maxLagSeconds);
+            }
+        } catch (SQLException | RuntimeException e) {
+            nowUsable = false;
+            if (usable)
+                logger.warn("Réplica injoignable : lectures redirigées vers la base principale ({})", e.getMessage());
+        }
+        if (nowUsable && !usable)
+            logger.info("Réplica de nouveau à jour : reprise des lectures sur le réplica");
+        usable = nowUsable;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @return retard en secondes, null si la réplication est arrêtée
+     */
+    private Long measureLag() throws SQLException {
+        try (Connection connection = replica.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(5);
+            try (ResultSet rs = statement.executeQuery(lagQuery)) {
+                if (!rs.next())
+                    return 0L;
+                int column = lagColumn(rs.getMetaData());
+                long lag = rs.getLong(column);
+                return rs.wasNull() ? null : lag;
+            }
+        }
+    }
+
+    private static int lagColumn(ResultSetMetaData meta) throws SQLException {
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            String name = meta.getColumnLabel(i);
+            if ("Seconds_Behind_Source".equalsIgnoreCase(name) || "Seconds_Behind_Master".equalsIgnoreCase(name))
+                return i;
+        }
+        return 1;
+    }
+}
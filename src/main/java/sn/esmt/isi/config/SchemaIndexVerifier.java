@@ -0,0 +1,107 @@
+package sn.esmt.isi.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Vérifie au démarrage que les index créés par les migrations Flyway sont bien présents.
+ * Un index est considéré présent si un index de la table commence par les colonnes
+ * attendues, dans le même ordre (le nom peut différer sur une base reprise).
+ */
+@Component
+public class SchemaIndexVerifier implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaIndexVerifier.class);
+
+    /**
+     * Index attendus : [table, colonnes...]
+     */
+    private static final List<String[]> EXPECTED_INDEXES = List.of(
+            new String[] { "research_projects", "proprietaire_id" },
+            new String[] { "research_projects", "statut", "date_fin" },
+            new String[] { "research_projects", "domaine_id" },
+            new String[] { "research_projects", "date_creation" },
+            new String[] { "users", "role" },
+            new String[] { "users", "institution" },
+            new String[] { "users", "nom", "id" },
+            new String[] { "users", "created_at", "id" },
+            new String[] { "users", "provider" },
+            new String[] { "project_external_participants", "nom" },
+            new String[] { "audit_log", "cible_type", "cible_id", "date_action" },
+            new String[] { "audit_log", "acteur_id", "date_action" },
+            new String[] { "http_sessions", "expiration" });
+
+    private final DataSource dataSource;
+    private final boolean failOnMissing;
+
+    public SchemaIndexVerifier(DataSource dataSource,
+            @Value("${app.schema.fail-on-missing-index:false}") boolean failOnMissing) {
+        this.dataSource = dataSource;
+        this.failOnMissing = failOnMissing;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws SQLException {
+        List<String> missing = new ArrayList<>();
+
+        try (Connection connection = dataSource.getConnection()) {
+            for (String[] expected : EXPECTED_INDEXES) {
+                String table = expected[0];
+                List<String> columns = List.of(expected).subList(1, expected.length);
+                if (!hasIndexOn(connection, table, columns)) {
+                    missing.add(table + "(" + String.join(", ", columns) + ")");
+                }
+            }
+        }
+
+        if (missing.isEmpty()) {
+            logger.info("Schéma : les {} index attendus sont présents", EXPECTED_INDEXES.size());
+            return;
+        }
+
+        String message = "Index manquants dans le schéma : " + String.join(", ", missing);
+        if (failOnMissing) {
+            throw new IllegalStateException(message);
+        }
+        logger.warn("{} — vérifier l'historique Flyway (flyway_schema_history)", message);
+    }
+
+    private boolean hasIndexOn(Connection connection, String table, List<String> columns) throws SQLException {
+        // nom d'index → colonnes triées par position
+        Map<String, Map<Short, String>> indexes = new TreeMap<>();
+
+        DatabaseMetaData meta = connection.getMetaData();
+        try (ResultSet rs = meta.getIndexInfo(connection.getCatalog(), connection.getSchema(), table, false, false)) {
+            while (rs.next()) {
+                String name = rs.getString("INDEX_NAME");
+                String column = rs.getString("COLUMN_NAME");
+                if (name == null || column == null)
+                    continue;
+                indexes.computeIfAbsent(name, k -> new TreeMap<>())
+                        .put(rs.getShort("ORDINAL_POSITION"), column.toLowerCase());
+            }
+        }
+
+        for (Map<Short, String> indexColumns : indexes.values()) {
+            List<String> ordered = new ArrayList<>(indexColumns.values());
+            if (ordered.size() >= columns.size() && ordered.subList(0, columns.size()).equals(columns)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -8,13 +8,16 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import sn.esmt.isi.service.AppConfigService;
 import sn.esmt.isi.service.CustomOAuth2UserService;
 import sn.esmt.isi.service.CustomOAuth2User;
 
@@ -27,21 +30,27 @@ public class SecurityConfig {
 
     private final CustomOAuth2UserService customOAuth2UserService;
     private final OAuth2AuthenticationFailureHandler oauth2FailureHandler;
+    private final AppConfigService appConfigService;
 
     public SecurityConfig(@Lazy CustomOAuth2UserService customOAuth2UserService,
-            OAuth2AuthenticationFailureHandler oauth2FailureHandler) {
+            OAuth2AuthenticationFailureHandler oauth2FailureHandler,
+            AppConfigService appConfigService) {
         this.customOAuth2UserService = customOAuth2UserService;
         this.oauth2FailureHandler = oauth2FailureHandler;
+        this.appConfigService = appConfigService;
     }
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
+                // Mode maintenance : après le chargement de l'authentification, avant les règles d'accès
+                // (pas déclaré en @Bean pour ne pas être aussi enregistré comme filtre servlet)
+                .addFilterBefore(new MaintenanceModeFilter(appConfigService), AuthorizationFilter.class)
                 .authorizeHttpRequests(auth -> auth
                         // 1. Accès public total
                         .requestMatchers("/", "/login", "/register", "/error").permitAll()
-                        .requestMatchers("/css/**", "/js/**", "/images/**", "/webjars/**", "/static/**").permitAll()
+                        .requestMatchers("/images/**", "/webjars/**", "/static/**").permitAll()
 
                         // 2. Routes OAuth2 profile completion (AVANT les restrictions de rôle)
                         .requestMatchers("/candidate/complete-profile", "/candidate/profile/update").permitAll()
@@ -68,12 +77,21 @@ public class SecurityConfig {
                         .logoutRequestMatcher(new AntPathRequestMatcher("/logout"))
                         .logoutSuccessUrl("/login?logout")
                         .invalidateHttpSession(true)
-                        .deleteCookies("JSESSIONID")
+                        .deleteCookies("JSESSIONID", "SESSION")
                         .permitAll());
 
         return http.build();
     }
 
+    /**
+     * Assets CSS / JS : hors chaîne de sécurité (ni session, ni en-têtes no-cache ajoutés par
+     * Spring Security), pour qu'ils gardent le Cache-Control de WebMvcConfig
+     */
+    @Bean
+    public WebSecurityCustomizer staticAssetsCustomizer() {
+        return web -> web.ignoring().requestMatchers(WebMvcConfig.ASSET_PATTERNS);
+    }
+
     @Bean
     public AuthenticationSuccessHandler authenticationSuccessHandler() {
         return (request, response, authentication) -> {
@@ -0,0 +1,407 @@
+package sn.esmt.isi.config;
+
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import sn.esmt.isi.model.User;
+import sn.esmt.isi.service.CustomOAuth2User;
+import sn.esmt.isi.service.CustomUserDetails;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Sérialisation binaire compacte des attributs de session (JdbcSessionRepository).
+ *
+ * Le contexte de sécurité — présent dans toutes les sessions connectées — est écrit champ
+ * par champ : identifiant, rôles, détails de la requête de connexion et, pour CustomUserDetails
+ * et CustomOAuth2User, l'identité de l'utilisateur (l'entité User n'est pas Serializable).
+ * Ni le mot de passe ni le profil ne sont copiés : le principal relu ne sert qu'à identifier
+ * l'utilisateur, les données à jour se lisent en base.
+ * Chaînes, booléens et nombres ont leur propre format ; tout le reste (requête sauvegardée,
+ * messages flash, demande d'autorisation OAuth2) passe par la sérialisation Java.
+ *
+ * Format : version, nombre d'attributs, puis (nom, étiquette de type, valeur) par attribut.
+ */
+final class SessionCodec {
+
+    private static final int VERSION = 2;
+
+    // Étiquettes de valeur
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte SECURITY_CONTEXT = 6;
+    private static final byte JAVA = 7;
+
+    // Forme de l'authentification dans un contexte de sécurité
+    private static final byte NO_AUTHENTICATION = 0;
+    private static final byte FORM_LOGIN = 1;
+    private static final byte CUSTOM_USER_DETAILS = 2;
+    private static final byte OAUTH2 = 3;
+
+    private final ClassLoader classLoader;
+
+    SessionCodec(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    byte[] encode(Map<String, Object> attributes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VERSION);
+        out.writeInt(attributes.size());
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            writeString(out, attribute.getKey());
+            writeValue(out, attribute.getValue());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    Map<String, Object> decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int version = in.readUnsignedByte();
+        if (version != VERSION)
+            throw new IOException("Version de session inconnue : " + version);
+        int count = in.readInt();
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = readString(in);
+            attributes.put(name, readValue(in));
+        }
+        return attributes;
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Valeurs
+    // ──────────────────────────────────────────────────────────────
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String text) {
+            out.writeByte(STRING);
+            writeString(out, text);
+        } else if (value instanceof Boolean flag) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(flag);
+        } else if (value instanceof Integer number) {
+            out.writeByte(INTEGER);
+            out.writeInt(number);
+        } else if (value instanceof Long number) {
+            out.writeByte(LONG);
+            out.writeLong(number);
+        } else if (value instanceof Double number) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(number);
+        } else if (value instanceof SecurityContext context && isCompact(context)) {
+            out.writeByte(SECURITY_CONTEXT);
+            writeSecurityContext(out, context);
+        } else if (value instanceof Serializable) {
+            out.writeByte(JAVA);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+                objects.writeObject(value);
+            }
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        } else {
+            throw new NotSerializableException(value.getClass().getName());
+        }
+    }
+
+    private Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case BOOLEAN:
+                return in.readBoolean();
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case SECURITY_CONTEXT:
+                return readSecurityContext(in);
+            case JAVA:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                try (ObjectInputStream objects = new ConfigurableObjectInputStream(new ByteArrayInputStream(bytes),
+                        classLoader)) {
+                    return objects.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Classe introuvable dans la session : " + e.getMessage(), e);
+                }
+            default:
+                throw new IOException("Étiquette de valeur inconnue : " + tag);
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Contexte de sécurité
+    // ──────────────────────────────────────────────────────────────
+
+    /**
+     * Formes de connexion de l'application ; les autres passent par la sérialisation Java
+     */
+    private static boolean isCompact(SecurityContext context) {
+        Authentication auth = context.getAuthentication();
+        if (auth == null)
+            return true;
+        if (auth.getDetails() != null && auth.getDetails().getClass() != WebAuthenticationDetails.class)
+            return false;
+        if (auth.getClass() == UsernamePasswordAuthenticationToken.class && auth.isAuthenticated()
+                && auth.getCredentials() == null) {
+            return auth.getPrincipal() instanceof CustomUserDetails
+                    || auth.getPrincipal().getClass() == org.springframework.security.core.userdetails.User.class;
+        }
+        if (auth.getClass() == OAuth2AuthenticationToken.class
+                && auth.getPrincipal() instanceof CustomOAuth2User principal) {
+            OAuth2User delegate = principal.getOAuth2User();
+            return delegate.getClass() == DefaultOAuth2User.class && !(delegate instanceof OidcUser)
+                    && nameAttributeKey(delegate) != null;
+        }
+        return false;
+    }
+
+    private void writeSecurityContext(DataOutputStream out, SecurityContext context) throws IOException {
+        Authentication auth = context.getAuthentication();
+        if (auth == null) {
+            out.writeByte(NO_AUTHENTICATION);
+            return;
+        }
+        if (auth instanceof OAuth2AuthenticationToken token) {
+            CustomOAuth2User principal = (CustomOAuth2User) token.getPrincipal();
+            OAuth2User delegate = principal.getOAuth2User();
+            out.writeByte(OAUTH2);
+            writeString(out, token.getAuthorizedClientRegistrationId());
+            writeString(out, nameAttributeKey(delegate));
+            writeAuthorities(out, delegate.getAuthorities());
+            writeAttributes(out, delegate.getAttributes());
+            writeUser(out, principal.getUser());
+        } else if (auth.getPrincipal() instanceof CustomUserDetails principal) {
+            out.writeByte(CUSTOM_USER_DETAILS);
+            writeUser(out, principal.getUser());
+            out.writeBoolean(!principal.getAttributes().isEmpty());
+            if (!principal.getAttributes().isEmpty())
+                writeAttributes(out, principal.getAttributes());
+        } else {
+            org.springframework.security.core.userdetails.User principal =
+                    (org.springframework.security.core.userdetails.User) auth.getPrincipal();
+            out.writeByte(FORM_LOGIN);
+            writeString(out, principal.getUsername());
+            out.writeBoolean(principal.isEnabled());
+            out.writeBoolean(principal.isAccountNonExpired());
+            out.writeBoolean(principal.isCredentialsNonExpired());
+            out.writeBoolean(principal.isAccountNonLocked());
+            writeAuthorities(out, principal.getAuthorities());
+        }
+        writeAuthorities(out, auth.getAuthorities());
+        WebAuthenticationDetails details = (WebAuthenticationDetails) auth.getDetails();
+        out.writeBoolean(details != null);
+        if (details != null) {
+            writeString(out, details.getRemoteAddress());
+            writeString(out, details.getSessionId());
+        }
+    }
+
+    private SecurityContext readSecurityContext(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        if (kind == NO_AUTHENTICATION)
+            return new SecurityContextImpl();
+
+        Object principal;
+        String registrationId = null;
+        switch (kind) {
+            case OAUTH2: {
+                registrationId = readString(in);
+                String nameAttributeKey = readString(in);
+                List<GrantedAuthority> authorities = readAuthorities(in);
+                Map<String, Object> attributes = readAttributes(in);
+                principal = new CustomOAuth2User(new DefaultOAuth2User(authorities, attributes, nameAttributeKey),
+                        readUser(in));
+                break;
+            }
+            case CUSTOM_USER_DETAILS: {
+                User user = readUser(in);
+                principal = in.readBoolean() ? new CustomUserDetails(user, readAttributes(in))
+                        : new CustomUserDetails(user);
+                break;
+            }
+            case FORM_LOGIN: {
+                String username = readString(in);
+                boolean enabled = in.readBoolean();
+                boolean accountNonExpired = in.readBoolean();
+                boolean credentialsNonExpired = in.readBoolean();
+                boolean accountNonLocked = in.readBoolean();
+                org.springframework.security.core.userdetails.User user =
+                        new org.springframework.security.core.userdetails.User(username, "", enabled,
+                                accountNonExpired, credentialsNonExpired, accountNonLocked, readAuthorities(in));
+                // Mot de passe effacé après la connexion, comme dans la session d'origine
+                user.eraseCredentials();
+                principal = user;
+                break;
+            }
+            default:
+                throw new IOException("Forme d'authentification inconnue : " + kind);
+        }
+
+        List<GrantedAuthority> authorities = readAuthorities(in);
+        WebAuthenticationDetails details = in.readBoolean()
+                ? new WebAuthenticationDetails(readString(in), readString(in))
+                : null;
+        Authentication auth;
+        if (registrationId != null) {
+            OAuth2AuthenticationToken token = new OAuth2AuthenticationToken((OAuth2User) principal, authorities,
+                    registrationId);
+            token.setDetails(details);
+            auth = token;
+        } else {
+            UsernamePasswordAuthenticationToken token = UsernamePasswordAuthenticationToken.authenticated(principal,
+                    null, authorities);
+            token.setDetails(details);
+            auth = token;
+        }
+        return new SecurityContextImpl(auth);
+    }
+
+    /**
+     * Clé de l'attribut qui porte le nom (DefaultOAuth2User ne l'expose pas)
+     */
+    private static String nameAttributeKey(OAuth2User user) {
+        for (Map.Entry<String, Object> attribute : user.getAttributes().entrySet()) {
+            if (attribute.getValue() != null && Objects.equals(attribute.getValue().toString(), user.getName()))
+                return attribute.getKey();
+        }
+        return null;
+    }
+
+    private void writeAuthorities(DataOutputStream out, Collection<? extends GrantedAuthority> authorities)
+            throws IOException {
+        out.writeInt(authorities.size());
+        for (GrantedAuthority authority : authorities) {
+            writeString(out, authority.getAuthority());
+        }
+    }
+
+    private List<GrantedAuthority> readAuthorities(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<GrantedAuthority> authorities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            authorities.add(new SimpleGrantedAuthority(readString(in)));
+        }
+        return authorities;
+    }
+
+    private void writeAttributes(DataOutputStream out, Map<String, Object> attributes) throws IOException {
+        out.writeInt(attributes.size());
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            writeString(out, attribute.getKey());
+            writeValue(out, attribute.getValue());
+        }
+    }
+
+    private Map<String, Object> readAttributes(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String key = readString(in);
+            attributes.put(key, readValue(in));
+        }
+        return attributes;
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilisateur (identité seulement : ni mot de passe, ni profil)
+    // ──────────────────────────────────────────────────────────────
+
+    private static void writeUser(DataOutputStream out, User user) throws IOException {
+        for (String field : new String[] { user.getId(), user.getEmail(), user.getNom(), user.getPrenom(),
+                user.getRole(), user.getOauthId(), user.getProvider(), user.getPicture() }) {
+            writeString(out, field);
+        }
+        writeFlag(out, user.getProfileCompleted());
+        writeFlag(out, user.getActive());
+    }
+
+    private static User readUser(DataInputStream in) throws IOException {
+        User user = new User();
+        user.setId(readString(in));
+        user.setEmail(readString(in));
+        user.setNom(readString(in));
+        user.setPrenom(readString(in));
+        user.setRole(readString(in));
+        user.setOauthId(readString(in));
+        user.setProvider(readString(in));
+        user.setPicture(readString(in));
+        user.setProfileCompleted(readFlag(in));
+        user.setActive(readFlag(in));
+        return user;
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    /**
+     * Longueur (-1 pour null) puis octets UTF-8 ; pas de limite à 64 Ko comme writeUTF
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeFlag(DataOutputStream out, Boolean value) throws IOException {
+        out.writeByte(value == null ? 0 : value ? 2 : 1);
+    }
+
+    private static Boolean readFlag(DataInputStream in) throws IOException {
+        byte value = in.readByte();
+        return value == 0 ? null : value == 2;
+    }
+}
@@ -0,0 +1,31 @@
+package sn.esmt.isi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+
+import java.time.Duration;
+
+/**
+ * Sessions HTTP externalisées : le filtre Spring Session remplace la session Tomcat par
+ * celle du SessionRepository déclaré ici (app.session.store=jdbc, par défaut).
+ * Avec app.session.store=none, on revient à la session en mémoire de Tomcat (un seul nœud).
+ * Le reste de l'état en mémoire des nœuds suit les écritures des autres par la boîte
+ * d'envoi (OutboxRelay).
+ */
+@Configuration
+@EnableSpringHttpSession
+@ConditionalOnProperty(name = "app.session.store", havingValue = "jdbc", matchIfMissing = true)
+public class SessionStoreConfig {
+
+    @Bean
+    public JdbcSessionRepository sessionRepository(JdbcTemplate jdbcTemplate,
+            @Value("${server.servlet.session.timeout:30m}") Duration timeout,
+            @Value("${app.session.flush-seconds:10}") long flushSeconds,
+            @Value("${app.session.sweep-seconds:60}") long sweepSeconds) {
+        return new JdbcSessionRepository(jdbcTemplate, timeout, flushSeconds, sweepSeconds);
+    }
+}
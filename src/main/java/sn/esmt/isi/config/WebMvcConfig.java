@@ -1,10 +1,18 @@
 package sn.esmt.isi.config;
 
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
 import org.springframework.web.servlet.config.annotation.PathMatchConfigurer;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.time.Duration;
 
 /**
  * Configuration Spring MVC pour masquer les extensions .html et .jsp dans les
@@ -15,6 +23,16 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
 
+    /**
+     * Dossiers d'assets servis par la chaîne de ressources (voir addResourceHandlers)
+     */
+    static final String[] ASSET_PATTERNS = { "/css/**", "/js/**" };
+
+    /**
+     * Nom d'asset empreinté par VersionResourceResolver : nom-<md5 du contenu>.ext
+     */
+    private static final String FINGERPRINT = "{file:.+-[0-9a-f]{32}\\.[a-z0-9]+}";
+
     /**
      * Configure la négociation de contenu pour ignorer les extensions de fichiers
      */
@@ -49,4 +67,40 @@ public class WebMvcConfig implements WebMvcConfigurer {
         // registry.addRedirectViewController("/login.html", "/login");
         // Vous pouvez ajouter d'autres redirections si nécessaire
     }
+
+    /**
+     * Assets statiques :
+     * - URLs empreintées (hash du contenu) : Thymeleaf réécrit @{/js/x.js} en
+     *   /js/x-<hash>.js via ResourceUrlEncodingFilter ; le contenu d'une URL ne change
+     *   jamais, elle est donc mise en cache un an, « immutable » (aucune revalidation)
+     * - URLs sans empreinte (anciens liens) : revalidées à chaque usage (Last-Modified)
+     * - variantes .br / .gz produites au build (pom.xml) servies selon Accept-Encoding
+     * Les hash sont calculés à la première demande puis gardés en cache (resourceChain(true)).
+     */
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        for (String pattern : ASSET_PATTERNS) {
+            String folder = pattern.substring(0, pattern.length() - 2);
+            registry.addResourceHandler(folder + FINGERPRINT)
+                    .addResourceLocations("classpath:/static" + folder + "/")
+                    .setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                    .resourceChain(true)
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+            registry.addResourceHandler(pattern)
+                    .addResourceLocations("classpath:/static" + folder + "/")
+                    .setCacheControl(CacheControl.noCache())
+                    .resourceChain(true)
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+        }
+    }
+
+    /**
+     * Réécrit les URLs d'assets générées par les templates en URLs empreintées
+     */
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
 }
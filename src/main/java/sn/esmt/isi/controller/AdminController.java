@@ -26,14 +26,22 @@ import java.util.UUID;
 @PreAuthorize("hasRole('ADMIN')")
 public class AdminController {
 
+    private static final String STATS_FRAGMENTS = "fragments/statistiques";
+
     private final ProjectService projectService;
     private final StatisticsService statisticsService;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final sn.esmt.isi.repository.DomaineRepository domaineRepository;
     private final sn.esmt.isi.repository.ProjectRepository projectRepository;
-    private final sn.esmt.isi.repository.AppConfigRepository appConfigRepository;
+    private final sn.esmt.isi.service.AppConfigService appConfigService;
     private final sn.esmt.isi.service.PdfExportService pdfExportService;
+    private final sn.esmt.isi.service.ProjectMembershipService membershipService;
+    private final sn.esmt.isi.service.ProjectVersionService versionService;
+    private final sn.esmt.isi.service.FragmentCacheService fragmentCacheService;
+    private final sn.esmt.isi.service.AuditService auditService;
+    private final sn.esmt.isi.service.DuplicateDetectionService duplicateDetectionService;
+    private final sn.esmt.isi.service.UserService userService;
 
     public AdminController(ProjectService projectService,
             StatisticsService statisticsService,
@@ -41,16 +49,28 @@ public class AdminController {
             PasswordEncoder passwordEncoder,
             sn.esmt.isi.repository.DomaineRepository domaineRepository,
             sn.esmt.isi.repository.ProjectRepository projectRepository,
-            sn.esmt.isi.repository.AppConfigRepository appConfigRepository,
-            sn.esmt.isi.service.PdfExportService pdfExportService) {
+            sn.esmt.isi.service.AppConfigService appConfigService,
+            sn.esmt.isi.service.PdfExportService pdfExportService,
+            sn.esmt.isi.service.ProjectMembershipService membershipService,
+            sn.esmt.isi.service.ProjectVersionService versionService,
+            sn.esmt.isi.service.FragmentCacheService fragmentCacheService,
+            sn.esmt.isi.service.AuditService auditService,
+            sn.esmt.isi.service.DuplicateDetectionService duplicateDetectionService,
+            sn.esmt.isi.service.UserService userService) {
         this.projectService = projectService;
         this.statisticsService = statisticsService;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.domaineRepository = domaineRepository;
         this.projectRepository = projectRepository;
-        this.appConfigRepository = appConfigRepository;
+        this.appConfigService = appConfigService;
         this.pdfExportService = pdfExportService;
+        this.membershipService = membershipService;
+        this.versionService = versionService;
+        this.fragmentCacheService = fragmentCacheService;
+        this.auditService = auditService;
+        this.duplicateDetectionService = duplicateDetectionService;
+        this.userService = userService;
     }
 
     // ======================== DASHBOARD ========================
@@ -58,7 +78,6 @@ public class AdminController {
     @GetMapping("/dashboard")
     public String dashboard(@RequestParam(required = false) String keyword, Model model) {
         User user = projectService.getCurrentUser();
-        Map<String, Object> stats = statisticsService.getGlobalStats();
 
         List<sn.esmt.isi.model.ResearchProject> projets;
         if (keyword != null && !keyword.isEmpty()) {
@@ -68,7 +87,9 @@ public class AdminController {
         }
 
         model.addAttribute("user", user);
-        model.addAttribute("stats", stats);
+        // Cartes statistiques : HTML en cache, recalculé seulement si les projets ont changé
+        model.addAttribute("fragments", fragmentCacheService.render(STATS_FRAGMENTS,
+                List.of("admin-dashboard-cards"), () -> Map.of("stats", statisticsService.getGlobalStats())));
         model.addAttribute("projets", projets);
         model.addAttribute("keyword", keyword);
 
@@ -78,19 +99,41 @@ public class AdminController {
     // ===================== GESTION UTILISATEURS =====================
 
     @GetMapping("/users")
-    public String listUsers(@RequestParam(required = false) String keyword, Model model) {
+    public String listUsers(@RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String institution,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) String provider,
+            @RequestParam(defaultValue = "NOM") String sort,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + sn.esmt.isi.service.UserService.DEFAULT_PAGE_SIZE) int size,
+            Model model) {
         User currentUser = projectService.getCurrentUser();
-        List<User> users;
 
-        if (keyword != null && !keyword.isEmpty()) {
-            users = userRepository.findBySearchTerm(keyword);
-            model.addAttribute("keyword", keyword);
-        } else {
-            users = userRepository.findAll();
+        // Page de projections (sans bio ni projets), reprise après le curseur "after"
+        sn.esmt.isi.service.UserService.UserSort order;
+        try {
+            order = sn.esmt.isi.service.UserService.UserSort.valueOf(sort.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            order = sn.esmt.isi.service.UserService.UserSort.NOM;
         }
+        String roleFilter = blankToNull(role);
+        if (roleFilter != null && !roleFilter.startsWith("ROLE_"))
+            roleFilter = "ROLE_" + roleFilter;
+        sn.esmt.isi.service.UserService.UserFilter filter = new sn.esmt.isi.service.UserService.UserFilter(
+                blankToNull(keyword), roleFilter, blankToNull(institution), active, blankToNull(provider));
+        sn.esmt.isi.service.UserService.UserPage page = userService.findPage(filter, order, after, size);
 
         model.addAttribute("user", currentUser);
-        model.addAttribute("users", users);
+        model.addAttribute("users", page.users());
+        model.addAttribute("page", page);
+        model.addAttribute("filter", filter);
+        model.addAttribute("sort", order.name());
+        model.addAttribute("size", size);
+        model.addAttribute("firstPage", after == null || after.isBlank());
+        model.addAttribute("keyword", keyword);
+        model.addAttribute("institutions", userRepository.findDistinctInstitutions());
+        model.addAttribute("providers", userRepository.findDistinctProviders());
         return "admin/users";
     }
 
@@ -128,6 +171,8 @@ public class AdminController {
 
         return userRepository.findById(id)
                 .map(existing -> {
+                    String previousRole = existing.getRole();
+                    Boolean previousActive = existing.getActive();
                     existing.setNom(userForm.getNom());
                     existing.setPrenom(userForm.getPrenom());
                     existing.setTelephone(userForm.getTelephone());
@@ -135,6 +180,16 @@ public class AdminController {
                     existing.setRole(userForm.getRole());
                     existing.setActive(userForm.getActive());
                     userRepository.save(existing);
+                    if (!java.util.Objects.equals(previousRole, existing.getRole()))
+                        auditService.record(sn.esmt.isi.service.AuditService.Action.ROLE_MODIFIE,
+                                sn.esmt.isi.service.AuditService.CIBLE_UTILISATEUR, existing.getId(),
+                                previousRole + " → " + existing.getRole());
+                    if (!java.util.Objects.equals(previousActive, existing.getActive()))
+                        auditService.record(Boolean.TRUE.equals(existing.getActive())
+                                ? sn.esmt.isi.service.AuditService.Action.COMPTE_ACTIVE
+                                : sn.esmt.isi.service.AuditService.Action.COMPTE_DESACTIVE,
+                                sn.esmt.isi.service.AuditService.CIBLE_UTILISATEUR, existing.getId(),
+                                existing.getEmail());
                     ra.addFlashAttribute("success", "Utilisateur modifié avec succès");
                     return "redirect:/admin/users";
                 })
@@ -184,8 +239,12 @@ public class AdminController {
 
         return userRepository.findById(id)
                 .map(user -> {
+                    String previous = user.getRole();
                     user.setRole("ROLE_" + role); // ← important : ajout du préfixe ROLE_
                     userRepository.save(user);
+                    auditService.record(sn.esmt.isi.service.AuditService.Action.ROLE_MODIFIE,
+                            sn.esmt.isi.service.AuditService.CIBLE_UTILISATEUR, user.getId(),
+                            previous + " → " + user.getRole());
                     ra.addFlashAttribute("success", "Rôle modifié : " + role);
                     return "redirect:/admin/users";
                 })
@@ -208,6 +267,9 @@ public class AdminController {
                 .map(user -> {
                     user.setActive(!user.getActive());
                     userRepository.save(user);
+                    auditService.record(user.getActive() ? sn.esmt.isi.service.AuditService.Action.COMPTE_ACTIVE
+                            : sn.esmt.isi.service.AuditService.Action.COMPTE_DESACTIVE,
+                            sn.esmt.isi.service.AuditService.CIBLE_UTILISATEUR, user.getId(), user.getEmail());
                     ra.addFlashAttribute("success",
                             user.getActive() ? "Compte activé" : "Compte désactivé");
                     return "redirect:/admin/users";
@@ -245,6 +307,10 @@ public class AdminController {
         return idStr.trim();
     }
 
+    private static String blankToNull(String value) {
+        return value != null && !value.isBlank() ? value.trim() : null;
+    }
+
     // ===================== GESTION DOMAINES =====================
 
     @GetMapping("/domaines")
@@ -252,9 +318,13 @@ public class AdminController {
         User user = projectService.getCurrentUser();
         List<sn.esmt.isi.model.Domaine> domaines = domaineRepository.findAll();
 
-        // Calculer le nombre de projets pour chaque domaine
+        // Calculer le nombre de projets pour chaque domaine (une seule requête groupée)
+        Map<Long, Long> nbProjetsParDomaine = new java.util.HashMap<>();
+        for (Object[] row : projectRepository.countProjectsByDomaineId()) {
+            nbProjetsParDomaine.put((Long) row[0], ((Number) row[1]).longValue());
+        }
         for (sn.esmt.isi.model.Domaine d : domaines) {
-            d.setNbProjets(projectRepository.countByDomaineRecherche(d.getNom()));
+            d.setNbProjets(nbProjetsParDomaine.getOrDefault(d.getId(), 0L));
         }
 
         model.addAttribute("user", user);
@@ -316,6 +386,20 @@ public class AdminController {
         return "admin/project-form";
     }
 
+    @GetMapping("/projects/import")
+    public String importProjects(Model model) {
+        model.addAttribute("user", projectService.getCurrentUser());
+        return "admin/import";
+    }
+
+    @GetMapping("/projects/duplicates")
+    public String duplicates(Model model) {
+        model.addAttribute("user", projectService.getCurrentUser());
+        model.addAttribute("grappes", duplicateDetectionService.getClusters(100));
+        model.addAttribute("projetsIndexes", duplicateDetectionService.getIndexedCount());
+        return "admin/duplicates";
+    }
+
     @GetMapping("/projects/edit/{id}")
     public String editProjectForm(@PathVariable Long id, Model model, RedirectAttributes ra) {
         User user = projectService.getCurrentUser();
@@ -368,7 +452,12 @@ public class AdminController {
     }
 
     @GetMapping("/projects/view/{id}")
-    public String viewProject(@PathVariable Long id, Model model, RedirectAttributes ra) {
+    public String viewProject(@PathVariable Long id, Model model, RedirectAttributes ra,
+            org.springframework.web.context.request.WebRequest request) {
+        // 304 si la page n'a pas changé depuis la dernière visite de cet utilisateur
+        if (versionService.checkNotModified(request, id, versionService.getProjectVersion(id),
+                request.getRemoteUser()))
+            return null;
         try {
             ResearchProject project = projectService.findById(id);
             model.addAttribute("project", project);
@@ -421,8 +510,12 @@ public class AdminController {
     public String manageParticipants(@PathVariable Long id, Model model, RedirectAttributes ra) {
         try {
             ResearchProject project = projectService.findById(id);
-            // Admin peut voir tous les candidats
-            List<User> candidates = userRepository.findByRole("ROLE_CANDIDAT");
+            // Seuls les candidats déjà membres sont rendus : les autres se cherchent par /api/users/search
+            List<User> candidates = project.getMembers().stream()
+                    .filter(member -> "ROLE_CANDIDAT".equals(member.getRole()))
+                    .sorted(java.util.Comparator.comparing(User::getNom,
+                            java.util.Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)))
+                    .toList();
 
             model.addAttribute("project", project);
             model.addAttribute("candidates", candidates);
@@ -439,26 +532,12 @@ public class AdminController {
             @RequestParam(required = false) List<String> selectedUserIds,
             RedirectAttributes ra) {
         try {
-            ResearchProject project = projectService.findById(id);
+            // Seuls les candidats sont affichés sur la page : les autres membres sont conservés
+            sn.esmt.isi.service.ProjectMembershipService.MembershipChange change = membershipService
+                    .replaceMembersWithRole(id, "ROLE_CANDIDAT", selectedUserIds);
 
-            java.util.Set<User> currentMembers = project.getMembers();
-            if (selectedUserIds != null && !selectedUserIds.isEmpty()) {
-                currentMembers.addAll(userRepository.findAllById(selectedUserIds));
-            }
-
-            project.setMembers(currentMembers);
-
-            project.setMembers(currentMembers);
-
-            // Mise à jour de la liste formatée (Internes + Externes)
-            projectService.updateFormattedParticipantsList(project);
-
-            // On ne sauvegarde pas ici car updateFormattedParticipantsList ne fait que
-            // setter le champ
-            // Mais updateProject va sauvegarder le tout
-            projectService.updateProject(id, project);
-
-            ra.addFlashAttribute("success", "Participants mis à jour avec succès");
+            ra.addFlashAttribute("success", "Participants mis à jour avec succès (" + change.ajoutes()
+                    + " ajouté(s), " + change.retires() + " retiré(s))");
             return "redirect:/admin/projects/view/" + id;
         } catch (Exception e) {
             ra.addFlashAttribute("error", "Erreur : " + e.getMessage());
@@ -487,9 +566,6 @@ public class AdminController {
             ResearchProject project = projectService.findById(id);
             project.setAutresParticipants(autresParticipants);
 
-            // Mise à jour de la liste formatée (Internes + Externes)
-            projectService.updateFormattedParticipantsList(project);
-
             projectService.updateProject(id, project);
 
             ra.addFlashAttribute("success", "Participants externes mis à jour");
@@ -505,12 +581,10 @@ public class AdminController {
     @GetMapping("/statistics")
     public String statistics(Model model) {
         User user = projectService.getCurrentUser();
-        Map<String, Object> stats = statisticsService.getGlobalStats();
-        Map<String, Object> advancedStats = statisticsService.getAdvancedStats();
 
         model.addAttribute("user", user);
-        model.addAttribute("stats", stats);
-        model.addAttribute("advancedStats", advancedStats);
+        model.addAttribute("fragments", fragmentCacheService.render(STATS_FRAGMENTS,
+                List.of("admin-statistics"), () -> Map.of("stats", statisticsService.getGlobalStats())));
         return "admin/statistics";
     }
 
@@ -531,21 +605,21 @@ public class AdminController {
     @GetMapping("/reports")
     public String reports(Model model) {
         User user = projectService.getCurrentUser();
-        Map<String, Object> stats = statisticsService.getGlobalStats();
-        Map<String, Object> advancedStats = statisticsService.getAdvancedStats();
 
         model.addAttribute("user", user);
-        model.addAttribute("stats", stats);
-        model.addAttribute("advancedStats", advancedStats);
+        model.addAttribute("fragments", fragmentCacheService.render(STATS_FRAGMENTS,
+                List.of("admin-reports", "admin-reports-script"), () -> {
+                    // getAdvancedStats contient déjà toutes les statistiques globales
+                    Map<String, Object> advancedStats = statisticsService.getAdvancedStats();
+                    return Map.of("stats", advancedStats, "advancedStats", advancedStats);
+                }));
         return "admin/reports";
     }
 
     @GetMapping("/settings")
     public String settings(Model model) {
         User user = projectService.getCurrentUser();
-        sn.esmt.isi.model.AppConfig config = appConfigRepository.findById(1L)
-                .orElse(new sn.esmt.isi.model.AppConfig(1L, "Plateforme Cartographie", "admin@esmt.sn", false, true,
-                        "1.0.0"));
+        sn.esmt.isi.model.AppConfig config = appConfigService.getConfig();
 
         model.addAttribute("user", user);
         model.addAttribute("config", config);
@@ -554,8 +628,8 @@ public class AdminController {
 
     @PostMapping("/settings/update")
     public String updateSettings(@ModelAttribute sn.esmt.isi.model.AppConfig config, RedirectAttributes ra) {
-        config.setId(1L); // Toujours le même ID
-        appConfigRepository.save(config);
+        // Enregistre et met à jour l'instantané lu par le filtre de maintenance
+        appConfigService.save(config);
         ra.addFlashAttribute("success", "Configuration mise à jour");
         return "redirect:/admin/settings";
     }
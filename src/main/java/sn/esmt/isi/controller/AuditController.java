@@ -0,0 +1,56 @@
+package sn.esmt.isi.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import sn.esmt.isi.service.AuditService;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/audit")
+public class AuditController {
+
+    private static final int MAX_LIMIT = 500;
+
+    private final AuditService auditService;
+
+    public AuditController(AuditService auditService) {
+        this.auditService = auditService;
+    }
+
+    /**
+     * Historique des modifications d'un projet, du plus récent au plus ancien
+     * (réservé GESTIONNAIRE et ADMIN)
+     */
+    @GetMapping("/projects/{id}")
+    @PreAuthorize("hasAnyRole('GESTIONNAIRE','ADMIN')")
+    public ResponseEntity<List<AuditService.AuditEntry>> getProjectHistory(@PathVariable Long id,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(auditService.getProjectHistory(id, clamp(limit)));
+    }
+
+    /**
+     * Historique d'un utilisateur : ses actions et les modifications de son compte (réservé ADMIN)
+     */
+    @GetMapping("/users/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<AuditService.AuditEntry>> getUserHistory(@PathVariable String id,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(auditService.getUserHistory(id, clamp(limit)));
+    }
+
+    /**
+     * État de la file d'écriture (réservé ADMIN)
+     */
+    @GetMapping("/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(auditService.getStatus());
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
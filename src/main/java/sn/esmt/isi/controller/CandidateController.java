@@ -11,7 +11,6 @@ import sn.esmt.isi.model.ResearchProject;
 import sn.esmt.isi.model.User;
 import sn.esmt.isi.repository.UserRepository;
 import sn.esmt.isi.service.ProjectService;
-import sn.esmt.isi.service.StatisticsService;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -24,17 +23,20 @@ public class CandidateController {
 
     private final ProjectService projectService;
     private final UserRepository userRepository;
-    private final StatisticsService statisticsService;
     private final sn.esmt.isi.repository.DomaineRepository domaineRepository;
+    private final sn.esmt.isi.service.ProjectVersionService versionService;
+    private final sn.esmt.isi.service.DuplicateDetectionService duplicateDetectionService;
 
     public CandidateController(ProjectService projectService,
             UserRepository userRepository,
-            StatisticsService statisticsService,
-            sn.esmt.isi.repository.DomaineRepository domaineRepository) {
+            sn.esmt.isi.repository.DomaineRepository domaineRepository,
+            sn.esmt.isi.service.ProjectVersionService versionService,
+            sn.esmt.isi.service.DuplicateDetectionService duplicateDetectionService) {
         this.projectService = projectService;
         this.userRepository = userRepository;
-        this.statisticsService = statisticsService;
         this.domaineRepository = domaineRepository;
+        this.versionService = versionService;
+        this.duplicateDetectionService = duplicateDetectionService;
     }
 
     // ✅ UNE SEULE méthode dashboard (suppression du doublon)
@@ -51,8 +53,8 @@ public class CandidateController {
 
         List<ResearchProject> mesProjets = projectService.getMyProjects();
 
-        // ✅ stats ajouté pour le template
-        Map<String, Object> stats = statisticsService.getGlobalStats();
+        // Compteurs du candidat uniquement (une requête agrégée)
+        Map<String, Object> stats = projectService.getCandidateStats();
 
         model.addAttribute("user", user);
         model.addAttribute("mesProjets", mesProjets);
@@ -123,8 +125,13 @@ public class CandidateController {
 
         try {
             if (project.getId() == null) {
-                projectService.createProject(project);
+                ResearchProject created = projectService.createProject(project);
                 ra.addFlashAttribute("success", "Projet créé avec succès !");
+                // Le projet n'est pas bloqué : le candidat est seulement averti
+                List<sn.esmt.isi.service.DuplicateDetectionService.Match> doublons = duplicateDetectionService
+                        .findSimilar(created.getId());
+                if (!doublons.isEmpty())
+                    ra.addFlashAttribute("doublons", doublons);
             } else {
                 projectService.updateProject(project.getId(), project);
                 ra.addFlashAttribute("success", "Projet modifié avec succès !");
@@ -143,12 +150,18 @@ public class CandidateController {
 
     @GetMapping("/projects/view/{id}")
     public String viewProject(@PathVariable Long id, Model model,
-            Authentication auth, RedirectAttributes ra) {
+            Authentication auth, RedirectAttributes ra,
+            org.springframework.web.context.request.WebRequest request) {
         User user = getCurrentUser(auth);
         if (user == null) {
             return "redirect:/login";
         }
 
+        // 304 si le projet (du candidat) n'a pas changé depuis la dernière visite
+        if (versionService.checkNotModified(request, id,
+                versionService.getProjectVersionForOwner(id, user.getEmail()), user.getEmail()))
+            return null;
+
         try {
             ResearchProject project = projectService.getProjectIfOwner(id, user.getEmail());
             model.addAttribute("project", project);
@@ -1,6 +1,9 @@
 package sn.esmt.isi.controller;
 
+import jakarta.servlet.http.HttpSession;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,6 +15,9 @@ import sn.esmt.isi.service.CustomOAuth2User;
 
 /**
  * Controller for completing user profile after OAuth2 registration
+ *
+ * Le profil est toujours lu et modifié depuis la base (par id) : l'utilisateur porté par
+ * la session n'est qu'un instantané de la connexion, relu depuis http_sessions.
  */
 @Controller
 public class CompleteProfileController {
@@ -29,7 +35,8 @@ public class CompleteProfileController {
         // Check if this is OAuth2 authentication
         if (authentication != null && authentication.getPrincipal() instanceof CustomOAuth2User) {
             CustomOAuth2User oauth2User = (CustomOAuth2User) authentication.getPrincipal();
-            user = oauth2User.getUser();
+            user = userRepository.findById(oauth2User.getUser().getId())
+                    .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
         }
         // If not OAuth2, user must be authenticated with form login
         else if (authentication != null && authentication.isAuthenticated()) {
@@ -51,14 +58,15 @@ public class CompleteProfileController {
             @RequestParam(required = false) String niveauEtude,
             @RequestParam(required = false) String telephone,
             @RequestParam(required = false) String bio,
-            Authentication authentication) {
+            Authentication authentication, HttpSession session) {
 
         if (authentication == null || !(authentication.getPrincipal() instanceof CustomOAuth2User)) {
             return "redirect:/login";
         }
 
         CustomOAuth2User oauth2User = (CustomOAuth2User) authentication.getPrincipal();
-        User user = oauth2User.getUser();
+        User user = userRepository.findById(oauth2User.getUser().getId())
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
 
         // Update user profile
         user.setInstitution(institution);
@@ -71,6 +79,11 @@ public class CompleteProfileController {
 
         userRepository.save(user);
 
+        // Instantané de la session : profil complété, réécrit dans la session stockée
+        oauth2User.getUser().setProfileCompleted(true);
+        session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY,
+                SecurityContextHolder.getContext());
+
         // Redirect based on role
         return switch (user.getRole()) {
             case "ROLE_ADMIN" -> "redirect:/admin/dashboard";
@@ -0,0 +1,65 @@
+package sn.esmt.isi.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import sn.esmt.isi.service.CollaborationGraphService;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/graph")
+@PreAuthorize("hasAnyRole('GESTIONNAIRE','ADMIN')")
+public class GraphController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final CollaborationGraphService graphService;
+
+    public GraphController(CollaborationGraphService graphService) {
+        this.graphService = graphService;
+    }
+
+    /**
+     * Collaborateurs d'un chercheur (projets en commun)
+     * → 404 si l'utilisateur ne participe à aucun projet
+     */
+    @GetMapping("/researchers/{userId}/collaborators")
+    public ResponseEntity<List<Map<String, Object>>> getCollaborators(@PathVariable String userId) {
+        return ResponseEntity.of(graphService.getCollaborators(userId));
+    }
+
+    /**
+     * Plus court chemin de collaboration entre deux chercheurs
+     * → liste vide si aucun chemin, 404 si l'un des deux ne participe à aucun projet
+     */
+    @GetMapping("/path")
+    public ResponseEntity<List<Map<String, Object>>> getShortestPath(@RequestParam String from,
+            @RequestParam String to) {
+        return ResponseEntity.of(graphService.getShortestPath(from, to));
+    }
+
+    /**
+     * Composantes connexes, globales ou limitées aux chercheurs d'une institution
+     */
+    @GetMapping("/components")
+    public ResponseEntity<Map<String, Object>> getComponents(
+            @RequestParam(required = false) String institution,
+            @RequestParam(defaultValue = "20") int limit) {
+        String filter = institution != null && !institution.isBlank() ? institution.trim() : null;
+        return ResponseEntity.ok(graphService.getComponents(filter, clamp(limit)));
+    }
+
+    /**
+     * Chercheurs les plus centraux (intermédiarité)
+     */
+    @GetMapping("/central")
+    public ResponseEntity<List<Map<String, Object>>> getMostCentral(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(graphService.getMostCentral(clamp(limit)));
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
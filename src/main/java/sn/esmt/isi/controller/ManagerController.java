@@ -28,17 +28,26 @@ public class ManagerController {
     private final sn.esmt.isi.repository.DomaineRepository domaineRepository;
     private final sn.esmt.isi.repository.UserRepository userRepository;
     private final sn.esmt.isi.service.PdfExportService pdfExportService;
+    private final sn.esmt.isi.service.ProjectMembershipService membershipService;
+    private final sn.esmt.isi.service.ProjectVersionService versionService;
+    private final sn.esmt.isi.service.FragmentCacheService fragmentCacheService;
 
     public ManagerController(ProjectService projectService,
             StatisticsService statisticsService,
             sn.esmt.isi.repository.DomaineRepository domaineRepository,
             sn.esmt.isi.repository.UserRepository userRepository,
-            sn.esmt.isi.service.PdfExportService pdfExportService) {
+            sn.esmt.isi.service.PdfExportService pdfExportService,
+            sn.esmt.isi.service.ProjectMembershipService membershipService,
+            sn.esmt.isi.service.ProjectVersionService versionService,
+            sn.esmt.isi.service.FragmentCacheService fragmentCacheService) {
         this.projectService = projectService;
         this.statisticsService = statisticsService;
         this.domaineRepository = domaineRepository;
         this.userRepository = userRepository;
         this.pdfExportService = pdfExportService;
+        this.membershipService = membershipService;
+        this.versionService = versionService;
+        this.fragmentCacheService = fragmentCacheService;
     }
 
     @GetMapping("/dashboard")
@@ -110,7 +119,12 @@ public class ManagerController {
     }
 
     @GetMapping("/projects/view/{id}")
-    public String viewProject(@PathVariable Long id, Model model, RedirectAttributes ra) {
+    public String viewProject(@PathVariable Long id, Model model, RedirectAttributes ra,
+            org.springframework.web.context.request.WebRequest request) {
+        // 304 si la page n'a pas changé depuis la dernière visite de cet utilisateur
+        if (versionService.checkNotModified(request, id, versionService.getProjectVersion(id),
+                request.getRemoteUser()))
+            return null;
         try {
             ResearchProject project = projectService.findById(id);
             model.addAttribute("project", project);
@@ -163,7 +177,12 @@ public class ManagerController {
     public String manageParticipants(@PathVariable Long id, Model model, RedirectAttributes ra) {
         try {
             ResearchProject project = projectService.findById(id);
-            List<User> candidates = userRepository.findByRole("ROLE_CANDIDAT");
+            // Seuls les candidats déjà membres sont rendus : les autres se cherchent par /api/users/search
+            List<User> candidates = project.getMembers().stream()
+                    .filter(member -> "ROLE_CANDIDAT".equals(member.getRole()))
+                    .sorted(java.util.Comparator.comparing(User::getNom,
+                            java.util.Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)))
+                    .toList();
 
             model.addAttribute("project", project);
             model.addAttribute("candidates", candidates);
@@ -180,27 +199,12 @@ public class ManagerController {
             @RequestParam(required = false) List<String> selectedUserIds,
             RedirectAttributes ra) {
         try {
-            ResearchProject project = projectService.findById(id);
-
-            // Récupérer les utilisateurs sélectionnés
-            // Récupérer les membres existants
-            java.util.Set<User> currentMembers = project.getMembers();
-
-            if (selectedUserIds != null && !selectedUserIds.isEmpty()) {
-                currentMembers.addAll(userRepository.findAllById(selectedUserIds));
-            }
-
-            // Mettre à jour la liste (ajout seulement)
-            project.setMembers(currentMembers);
-
-            project.setMembers(currentMembers);
+            // Seuls les candidats sont affichés sur la page : les autres membres sont conservés
+            sn.esmt.isi.service.ProjectMembershipService.MembershipChange change = membershipService
+                    .replaceMembersWithRole(id, "ROLE_CANDIDAT", selectedUserIds);
 
-            // Mise à jour de la liste formatée (Internes + Externes)
-            projectService.updateFormattedParticipantsList(project);
-
-            projectService.updateProject(id, project);
-
-            ra.addFlashAttribute("success", "Participants mis à jour avec succès");
+            ra.addFlashAttribute("success", "Participants mis à jour avec succès (" + change.ajoutes()
+                    + " ajouté(s), " + change.retires() + " retiré(s))");
             return "redirect:/manager/projects/view/" + id;
         } catch (Exception e) {
             ra.addFlashAttribute("error", "Erreur lors de la mise à jour : " + e.getMessage());
@@ -229,9 +233,6 @@ public class ManagerController {
             ResearchProject project = projectService.findById(id);
             project.setAutresParticipants(autresParticipants);
 
-            // Mise à jour de la liste formatée (Internes + Externes)
-            projectService.updateFormattedParticipantsList(project);
-
             projectService.updateProject(id, project);
 
             ra.addFlashAttribute("success", "Participants externes mis à jour");
@@ -262,11 +263,14 @@ public class ManagerController {
     public String charts(Model model) {
         User user = projectService.getCurrentUser();
         // Utiliser les statistiques avancées pour avoir toutes les données des
-        // graphiques
-        Map<String, Object> stats = statisticsService.getAdvancedStats();
-
+        // graphiques (script des graphiques en cache tant que les projets n'ont pas changé)
         model.addAttribute("user", user);
-        model.addAttribute("stats", stats);
+        model.addAttribute("fragments", fragmentCacheService.render("fragments/statistiques",
+                List.of("manager-charts-script"), () -> {
+                    // Le script lit aussi advancedStats (évolution mensuelle)
+                    Map<String, Object> stats = statisticsService.getAdvancedStats();
+                    return Map.of("stats", stats, "advancedStats", stats);
+                }));
         return "manager/charts";
     }
 
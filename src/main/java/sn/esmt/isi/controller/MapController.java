@@ -0,0 +1,73 @@
+package sn.esmt.isi.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import sn.esmt.isi.model.ProjectStatus;
+import sn.esmt.isi.service.ProjectMapService;
+import sn.esmt.isi.service.ProjectVersionService;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/map")
+public class MapController {
+
+    private final ProjectMapService mapService;
+    private final ProjectVersionService versionService;
+
+    public MapController(ProjectMapService mapService, ProjectVersionService versionService) {
+        this.mapService = mapService;
+        this.versionService = versionService;
+    }
+
+    /**
+     * Grappes de projets d'une tuile z/x/y (Web Mercator, zoom 0 à 18), réservé GESTIONNAIRE et ADMIN
+     * → filtres optionnels : domaine (id) et statut (EN_COURS, SUSPENDU, TERMINE)
+     * → 304 si aucun projet n'a changé depuis la dernière réponse
+     */
+    @GetMapping("/tiles/{z}/{x}/{y}")
+    @PreAuthorize("hasAnyRole('GESTIONNAIRE','ADMIN')")
+    public ResponseEntity<Map<String, Object>> getTile(@PathVariable int z, @PathVariable long x,
+            @PathVariable long y,
+            @RequestParam(required = false) Long domaine,
+            @RequestParam(required = false) String statut,
+            WebRequest request) {
+        if (z < 0 || z > ProjectMapService.MAX_ZOOM || x < 0 || y < 0 || x >= (1L << z) || y >= (1L << z)) {
+            return ResponseEntity.badRequest().build();
+        }
+        ProjectStatus status;
+        try {
+            status = ProjectStatus.fromCode(statut);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (versionService.checkIndexNotModified(request, null))
+            return null;
+
+        List<Map<String, Object>> clusters = mapService.getTile(z, x, y, domaine, status);
+        int total = clusters.stream().mapToInt(c -> (Integer) c.get("count")).sum();
+
+        Map<String, Object> tile = new LinkedHashMap<>();
+        tile.put("z", z);
+        tile.put("x", x);
+        tile.put("y", y);
+        tile.put("total", total);
+        tile.put("clusters", clusters);
+        return ResponseEntity.ok(tile);
+    }
+
+    /**
+     * Nombre de projets placés sur la carte et d'institutions non reconnues
+     */
+    @GetMapping("/summary")
+    @PreAuthorize("hasAnyRole('GESTIONNAIRE','ADMIN')")
+    public ResponseEntity<Map<String, Object>> getSummary() {
+        return ResponseEntity.ok(Map.of(
+                "projetsLocalises", mapService.getLocatedCount(),
+                "projetsNonLocalises", mapService.getUnlocatedCount()));
+    }
+}
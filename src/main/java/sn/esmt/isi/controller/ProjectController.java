@@ -1,14 +1,29 @@
 package sn.esmt.isi.controller;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import sn.esmt.isi.service.LiveStatsBroadcaster;
 import sn.esmt.isi.model.ResearchProject;
+import sn.esmt.isi.model.User;
+import sn.esmt.isi.service.ProjectMembershipService;
 import sn.esmt.isi.service.ProjectService;
+import sn.esmt.isi.service.ProjectVersionService;
 import sn.esmt.isi.service.StatisticsService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -18,29 +33,54 @@ public class ProjectController {
 
     private final ProjectService projectService;
     private final StatisticsService statsService;
+    private final ProjectMembershipService membershipService;
+    private final ProjectVersionService versionService;
+    private final LiveStatsBroadcaster liveStatsBroadcaster;
+    private final sn.esmt.isi.service.DeadlineService deadlineService;
+    private final sn.esmt.isi.service.ProjectImportService importService;
+    private final sn.esmt.isi.service.DuplicateDetectionService duplicateDetectionService;
+    private final sn.esmt.isi.service.RelatedProjectsService relatedProjectsService;
 
-    public ProjectController(ProjectService projectService, StatisticsService statsService) {
+    public ProjectController(ProjectService projectService, StatisticsService statsService,
+            ProjectMembershipService membershipService, ProjectVersionService versionService,
+            LiveStatsBroadcaster liveStatsBroadcaster, sn.esmt.isi.service.DeadlineService deadlineService,
+            sn.esmt.isi.service.ProjectImportService importService,
+            sn.esmt.isi.service.DuplicateDetectionService duplicateDetectionService,
+            sn.esmt.isi.service.RelatedProjectsService relatedProjectsService) {
         this.projectService = projectService;
         this.statsService = statsService;
+        this.membershipService = membershipService;
+        this.versionService = versionService;
+        this.liveStatsBroadcaster = liveStatsBroadcaster;
+        this.deadlineService = deadlineService;
+        this.importService = importService;
+        this.duplicateDetectionService = duplicateDetectionService;
+        this.relatedProjectsService = relatedProjectsService;
     }
 
     /**
      * Liste les projets visibles pour l'utilisateur connecté
      * - CANDIDAT : voit seulement ses propres projets
      * - GESTIONNAIRE/ADMIN : voit tout
+     * → 304 si aucun projet n'a changé depuis la dernière réponse (ETag faible par utilisateur)
      */
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<ResearchProject>> getVisibleProjects() {
+    public ResponseEntity<List<ResearchProject>> getVisibleProjects(WebRequest request) {
+        if (versionService.checkListNotModified(request, request.getRemoteUser()))
+            return null;
         return ResponseEntity.ok(projectService.getVisibleProjects());
     }
 
     /**
      * Récupère un projet par ID (vérification ownership pour CANDIDAT)
+     * → 304 si la date de modification correspond à l'ETag / If-Modified-Since reçu
      */
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<ResearchProject> getById(@PathVariable Long id) {
+    public ResponseEntity<ResearchProject> getById(@PathVariable Long id, WebRequest request) {
+        if (versionService.checkNotModified(request, id, versionService.getProjectVersion(id), null))
+            return null;
         return ResponseEntity.ok(projectService.findById(id));
     }
 
@@ -74,6 +114,28 @@ public class ProjectController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Remplace les membres internes d'un projet (réservé GESTIONNAIRE et ADMIN)
+     * → seuls les liens ajoutés/retirés sont écrits
+     */
+    @PutMapping("/{id}/members")
+    @PreAuthorize("hasAnyRole('GESTIONNAIRE','ADMIN')")
+    public ResponseEntity<ProjectMembershipService.MembershipChange> replaceMembers(@PathVariable Long id,
+            @RequestBody List<String> userIds) {
+        return ResponseEntity.ok(membershipService.replaceMembers(id, userIds));
+    }
+
+    /**
+     * Affecte un utilisateur à plusieurs projets en un seul appel (réservé GESTIONNAIRE et ADMIN)
+     */
+    @PostMapping("/members/{userId}")
+    @PreAuthorize("hasAnyRole('GESTIONNAIRE','ADMIN')")
+    public ResponseEntity<Map<String, Object>> addUserToProjects(@PathVariable String userId,
+            @RequestBody List<Long> projectIds) {
+        int ajoutes = membershipService.addUserToProjects(userId, projectIds);
+        return ResponseEntity.ok(Map.of("userId", userId, "projetsAjoutes", ajoutes));
+    }
+
     /**
      * Statistiques globales du dashboard (réservé GESTIONNAIRE et ADMIN)
      */
@@ -83,17 +145,157 @@ public class ProjectController {
         return ResponseEntity.ok(statsService.getGlobalStats());
     }
 
+    /**
+     * Flux temps réel du dashboard (Server-Sent Events, réservé GESTIONNAIRE et ADMIN)
+     * → « stats » : compteurs modifiés ; « project » : { id, type } à chaque écriture
+     * → 503 si le nombre maximal d'abonnés est atteint
+     */
+    @GetMapping(value = "/dashboard/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('GESTIONNAIRE','ADMIN')")
+    public ResponseEntity<SseEmitter> getDashboardLive() {
+        SseEmitter emitter = liveStatsBroadcaster.subscribe(true);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+        return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+    }
+
     /**
      * Projets par statut (réservé GESTIONNAIRE et ADMIN)
      * → uniquement EN_COURS, SUSPENDU, TERMINE
      */
     @GetMapping("/status/{status}")
     @PreAuthorize("hasAnyRole('GESTIONNAIRE','ADMIN')")
-    public ResponseEntity<List<ResearchProject>> getByStatus(@PathVariable String status) {
+    public ResponseEntity<List<ResearchProject>> getByStatus(@PathVariable String status, WebRequest request) {
         // Sécurité supplémentaire : limiter aux 3 statuts valides
         if (!List.of("EN_COURS", "SUSPENDU", "TERMINE").contains(status.toUpperCase())) {
             return ResponseEntity.badRequest().build();
         }
+        if (versionService.checkListNotModified(request, null))
+            return null;
         return ResponseEntity.ok(projectService.findByStatut(status));
     }
-}
\ No newline at end of file
+
+    /**
+     * Projets en retard, lus depuis l'échéancier (réservé GESTIONNAIRE et ADMIN)
+     * → résumé de chaque projet, du plus ancien dépassement au plus récent
+     */
+    @GetMapping("/overdue")
+    @PreAuthorize("hasAnyRole('GESTIONNAIRE','ADMIN')")
+    public ResponseEntity<List<Map<String, Object>>> getOverdue(WebRequest request) {
+        if (versionService.checkIndexNotModified(request, null))
+            return null;
+        LocalDate today = LocalDate.now();
+        List<Map<String, Object>> overdue = deadlineService.getOverdueProjects().stream()
+                .map(p -> Map.<String, Object>of(
+                        "id", p.getId(),
+                        "titreProjet", p.getTitreProjet(),
+                        "statut", p.getStatut(),
+                        "dateFin", p.getDateFin(),
+                        "joursDeRetard", ChronoUnit.DAYS.between(p.getDateFin(), today)))
+                .toList();
+        return ResponseEntity.ok(overdue);
+    }
+
+    /**
+     * Projets similaires précalculés (panneau des pages de détail, chargé après la page)
+     * - CANDIDAT : seulement pour ses propres projets ; des voisins dont il n'est pas
+     *   propriétaire, il ne reçoit que le domaine et le score (« consultable » = false)
+     * → 304 tant qu'aucun projet n'a changé (ETag faible par utilisateur)
+     */
+    @GetMapping("/{id}/related")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<Map<String, Object>>> getRelated(@PathVariable Long id,
+            @RequestParam(defaultValue = "5") int limit, WebRequest request) {
+        User user = projectService.getRequiredCurrentUser();
+        boolean candidat = "ROLE_CANDIDAT".equals(user.getRole());
+        if (candidat)
+            projectService.getProjectIfOwner(id, user.getEmail());
+        if (versionService.checkIndexNotModified(request, request.getRemoteUser()))
+            return null;
+        List<Map<String, Object>> related = relatedProjectsService.getRelated(id, Math.max(1, Math.min(limit, 10)))
+                .stream()
+                .map(r -> {
+                    boolean consultable = !candidat || user.getId().equals(r.proprietaireId());
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    if (consultable) {
+                        item.put("id", r.projectId());
+                        item.put("titreProjet", r.titre());
+                    }
+                    item.put("domaine", r.domaine());
+                    if (consultable)
+                        item.put("institution", r.institution());
+                    item.put("score", r.score());
+                    item.put("consultable", consultable);
+                    return item;
+                })
+                .toList();
+        return ResponseEntity.ok(related);
+    }
+
+    /**
+     * Projets quasi identiques à un projet (réservé GESTIONNAIRE et ADMIN)
+     * → au plus 5, de la plus forte similarité estimée à la plus faible
+     */
+    @GetMapping("/{id}/duplicates")
+    @PreAuthorize("hasAnyRole('GESTIONNAIRE','ADMIN')")
+    public ResponseEntity<List<sn.esmt.isi.service.DuplicateDetectionService.Match>> getDuplicates(
+            @PathVariable Long id) {
+        return ResponseEntity.ok(duplicateDetectionService.findSimilar(id));
+    }
+
+    /**
+     * Grappes de doublons probables sur l'ensemble des projets (réservé ADMIN)
+     */
+    @GetMapping("/duplicates")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<sn.esmt.isi.service.DuplicateDetectionService.Cluster>> getDuplicateClusters(
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(duplicateDetectionService.getClusters(Math.max(1, Math.min(limit, 500))));
+    }
+
+    /**
+     * Import en masse de projets (réservé ADMIN)
+     * → le fichier est envoyé tel quel dans le corps de la requête (pas de multipart) :
+     *   il est lu en flux, sans la limite de taille des envois de formulaire
+     * → format : paramètre « format » (csv/xlsx), sinon Content-Type, sinon signature zip
+     * → simulation=true : validation seule, rien n'est écrit
+     */
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importProjects(HttpServletRequest request,
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "false") boolean simulation) throws IOException {
+        String contentType = request.getContentType() != null ? request.getContentType().toLowerCase() : "";
+        if (contentType.startsWith("multipart/")) {
+            return ResponseEntity.badRequest().body(Map.of("message",
+                    "Envoyer le fichier brut dans le corps de la requête, pas un formulaire multipart"));
+        }
+        InputStream input = new BufferedInputStream(request.getInputStream());
+        sn.esmt.isi.service.ProjectImportService.Format detected;
+        if (format != null && !format.isBlank()) {
+            try {
+                detected = sn.esmt.isi.service.ProjectImportService.Format.valueOf(format.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("message", "Format inconnu : " + format));
+            }
+        } else if (contentType.contains("spreadsheetml") || contentType.contains("excel")) {
+            detected = sn.esmt.isi.service.ProjectImportService.Format.XLSX;
+        } else if (contentType.contains("csv") || contentType.startsWith("text/")) {
+            detected = sn.esmt.isi.service.ProjectImportService.Format.CSV;
+        } else {
+            // Un classeur XLSX est une archive zip (signature « PK »)
+            input.mark(2);
+            boolean zip = input.read() == 'P' && input.read() == 'K';
+            input.reset();
+            detected = zip ? sn.esmt.isi.service.ProjectImportService.Format.XLSX
+                    : sn.esmt.isi.service.ProjectImportService.Format.CSV;
+        }
+        try {
+            return ResponseEntity.ok(importService.importProjects(input, detected, simulation));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+}
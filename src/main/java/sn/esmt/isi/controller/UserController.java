@@ -0,0 +1,48 @@
+package sn.esmt.isi.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import sn.esmt.isi.service.UserTypeaheadService;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/users")
+@PreAuthorize("hasAnyRole('GESTIONNAIRE','ADMIN')")
+public class UserController {
+
+    private static final int MAX_LIMIT = 50;
+
+    private final UserTypeaheadService typeaheadService;
+
+    public UserController(UserTypeaheadService typeaheadService) {
+        this.typeaheadService = typeaheadService;
+    }
+
+    /**
+     * Saisie semi-automatique : utilisateurs actifs dont le nom, un mot du nom ou l'email
+     * commence par q (sans tenir compte des accents ni de la casse), filtrés par rôle
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<Map<String, Object>>> search(@RequestParam String q,
+            @RequestParam(required = false) String role,
+            @RequestParam(defaultValue = "10") int limit) {
+        String filter = role != null && !role.isBlank() ? role.trim() : null;
+        if (filter != null && !filter.startsWith("ROLE_"))
+            filter = "ROLE_" + filter;
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<Map<String, Object>> users = typeaheadService.search(q, filter, size).stream()
+                .map(user -> Map.<String, Object>of(
+                        "id", user.id(),
+                        "nomComplet", ((user.prenom() != null ? user.prenom() : "") + " "
+                                + (user.nom() != null ? user.nom() : "")).trim(),
+                        "email", user.email(),
+                        "role", user.role() != null ? user.role() : "",
+                        "specialite", user.specialite() != null ? user.specialite() : "",
+                        "institution", user.institution() != null ? user.institution() : ""))
+                .toList();
+        return ResponseEntity.ok(users);
+    }
+}
@@ -1,14 +1,19 @@
 package sn.esmt.isi.model;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "app_config")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "app-config")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
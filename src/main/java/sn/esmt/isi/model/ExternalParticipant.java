@@ -0,0 +1,43 @@
+package sn.esmt.isi.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Participant externe d'un projet (sans compte sur la plateforme).
+ * Une ligne par personne, indexée sur le nom pour la recherche.
+ */
+@Entity
+@Table(name = "project_external_participants")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ExternalParticipant {
+
+    // Même générateur par blocs que ResearchProject (voir V5)
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "project_external_participants")
+    @TableGenerator(name = "project_external_participants", table = "id_generators",
+            pkColumnName = "sequence_name", valueColumnName = "next_val",
+            pkColumnValue = "project_external_participants", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "project_id", nullable = false)
+    private ResearchProject project;
+
+    @Column(nullable = false, length = 255)
+    private String nom;
+
+    // Ordre d'affichage dans la liste du projet
+    @Column(nullable = false)
+    private Integer ordre;
+
+    public ExternalParticipant(ResearchProject project, String nom, int ordre) {
+        this.project = project;
+        this.nom = nom;
+        this.ordre = ordre;
+    }
+}
@@ -1,5 +1,9 @@
 package sn.esmt.isi.model;
 
+/**
+ * Statut d'un projet, stocké en base sous forme d'ordinal (colonne statut).
+ * L'ordre des constantes ne doit donc jamais changer : ajouter les nouveaux statuts à la fin.
+ */
 public enum ProjectStatus {
     EN_COURS("En cours"),
     TERMINE("Terminé"),
@@ -8,4 +12,18 @@ public enum ProjectStatus {
     private final String label;
     ProjectStatus(String label) { this.label = label; }
     public String getLabel() { return label; }
-}
\ No newline at end of file
+
+    /**
+     * Convertit le code texte ("EN_COURS", "termine"...) utilisé par les formulaires et l'API.
+     * Retourne null pour une valeur vide.
+     */
+    public static ProjectStatus fromCode(String code) {
+        if (code == null || code.isBlank())
+            return null;
+        try {
+            return valueOf(code.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Statut de projet inconnu : " + code);
+        }
+    }
+}
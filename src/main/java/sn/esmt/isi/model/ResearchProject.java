@@ -1,6 +1,8 @@
 package sn.esmt.isi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -9,6 +11,8 @@ import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
 @Table(name = "research_projects")
@@ -17,8 +21,12 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 public class ResearchProject {
 
+    // Identifiants réservés par blocs dans id_generators (voir V5) : contrairement à
+    // IDENTITY, Hibernate peut grouper les INSERT (hibernate.jdbc.batch_size)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "research_projects")
+    @TableGenerator(name = "research_projects", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "research_projects", allocationSize = 50)
     @Column(name = "project_id")
     private Long id;
 
@@ -28,17 +36,19 @@ public class ResearchProject {
     @Column(name = "description", columnDefinition = "VARCHAR(2000)")
     private String description;
 
-    @Column(name = "liste_participants", columnDefinition = "TEXT")
-    private String listeParticipants;
-
-    @Column(name = "autres_participants", columnDefinition = "TEXT")
-    private String autresParticipants;
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "domaine_id")
+    private Domaine domaine;
 
-    @Column(name = "domaine_recherche", length = 255)
+    // Nom du domaine saisi dans les formulaires / l'API, résolu en Domaine par ProjectService
+    @Transient
     private String domaineRecherche;
 
-    @Column(name = "statut_projet", length = 255)
-    private String statutProjet = "EN_COURS"; // valeur par défaut modifiée
+    @JsonIgnore
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "statut")
+    private ProjectStatus statut = ProjectStatus.EN_COURS;
 
     @Column(name = "niveau_avancement")
     private Integer niveauAvancement = 0;
@@ -74,6 +84,114 @@ public class ResearchProject {
     @JoinTable(name = "project_members", joinColumns = @JoinColumn(name = "project_id"), inverseJoinColumns = @JoinColumn(name = "user_id"))
     private java.util.Set<User> members = new java.util.HashSet<>();
 
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @OneToMany(mappedBy = "project", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("ordre ASC")
+    private List<ExternalParticipant> externalParticipants = new ArrayList<>();
+
+    // ──────────────────────────────────────────────────────────────
+    // Accesseurs texte (formulaires, templates et API JSON)
+    // ──────────────────────────────────────────────────────────────
+
+    /**
+     * Nom du domaine : valeur saisie si présente, sinon nom du Domaine associé
+     */
+    public String getDomaineRecherche() {
+        if (domaineRecherche != null)
+            return domaineRecherche;
+        return domaine != null ? domaine.getNom() : null;
+    }
+
+    public void setDomaine(Domaine domaine) {
+        this.domaine = domaine;
+        this.domaineRecherche = null;
+    }
+
+    /**
+     * Code texte du statut ("EN_COURS", "SUSPENDU", "TERMINE")
+     */
+    public String getStatutProjet() {
+        return statut != null ? statut.name() : null;
+    }
+
+    public void setStatutProjet(String statutProjet) {
+        this.statut = ProjectStatus.fromCode(statutProjet);
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Participants (rendu texte calculé à l'affichage)
+    // ──────────────────────────────────────────────────────────────
+
+    /**
+     * Participants externes, un nom par ligne (null si aucun)
+     */
+    public String getAutresParticipants() {
+        if (externalParticipants.isEmpty())
+            return null;
+        StringBuilder sb = new StringBuilder();
+        for (ExternalParticipant participant : externalParticipants) {
+            if (sb.length() > 0)
+                sb.append("\n");
+            sb.append(participant.getNom());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Remplace les participants externes à partir d'un texte (un nom par ligne).
+     * Les lignes inchangées sont conservées : seules les différences sont écrites en base.
+     */
+    public void setAutresParticipants(String autresParticipants) {
+        List<String> noms = new ArrayList<>();
+        if (autresParticipants != null) {
+            for (String ligne : autresParticipants.split("\\R")) {
+                String nom = ligne.trim();
+                if (!nom.isEmpty())
+                    noms.add(nom.length() > 255 ? nom.substring(0, 255) : nom);
+            }
+        }
+
+        for (int i = 0; i < noms.size(); i++) {
+            if (i < externalParticipants.size()) {
+                ExternalParticipant existant = externalParticipants.get(i);
+                if (!noms.get(i).equals(existant.getNom()))
+                    existant.setNom(noms.get(i));
+            } else {
+                externalParticipants.add(new ExternalParticipant(this, noms.get(i), i));
+            }
+        }
+        while (externalParticipants.size() > noms.size()) {
+            externalParticipants.remove(externalParticipants.size() - 1);
+        }
+    }
+
+    /**
+     * Liste formatée (membres internes puis externes), construite à l'affichage
+     */
+    public String getListeParticipants() {
+        StringBuilder sb = new StringBuilder();
+
+        // 1. Membres internes (avec lien User)
+        if (members != null) {
+            for (User u : members) {
+                sb.append(u.getPrenom()).append(" ").append(u.getNom())
+                        .append(" (").append(u.getEmail()).append(")\n");
+            }
+        }
+
+        // 2. Participants externes
+        String externes = getAutresParticipants();
+        if (externes != null) {
+            if (sb.length() > 0) {
+                sb.append("\n--- Externes ---\n");
+            }
+            sb.append(externes);
+        }
+
+        return sb.toString().trim();
+    }
+
     // ──────────────────────────────────────────────────────────────
     // Méthodes utilitaires – UNIQUEMENT les 3 statuts demandés
     // ──────────────────────────────────────────────────────────────
@@ -82,22 +200,14 @@ public class ResearchProject {
      * Libellé lisible du statut (uniquement les 3 cas)
      */
     public String getStatutLisible() {
-        if (statutProjet == null)
-            return "Inconnu";
-
-        return switch (statutProjet.toUpperCase()) {
-            case "EN_COURS" -> "En cours";
-            case "SUSPENDU" -> "Suspendu";
-            case "TERMINE" -> "Terminé";
-            default -> "Inconnu";
-        };
+        return statut != null ? statut.getLabel() : "Inconnu";
     }
 
     /**
      * Le projet est modifiable seulement s'il n'est pas Terminé
      */
     public boolean isModifiable() {
-        return !"TERMINE".equalsIgnoreCase(statutProjet);
+        return statut != ProjectStatus.TERMINE;
     }
 
     /**
@@ -110,7 +220,7 @@ public class ResearchProject {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime fin = dateFin.atStartOfDay().plusDays(1); // fin de journée
 
-        return now.isAfter(fin) && !"TERMINE".equalsIgnoreCase(statutProjet);
+        return now.isAfter(fin) && statut != ProjectStatus.TERMINE;
     }
 
     /**
@@ -130,14 +240,13 @@ public class ResearchProject {
      * Couleur Bootstrap pour le badge du statut
      */
     public String getStatutCouleur() {
-        if (statutProjet == null)
+        if (statut == null)
             return "secondary";
 
-        return switch (statutProjet.toUpperCase()) {
-            case "EN_COURS" -> "primary";
-            case "SUSPENDU" -> "warning text-dark";
-            case "TERMINE" -> "success";
-            default -> "secondary";
+        return switch (statut) {
+            case EN_COURS -> "primary";
+            case SUSPENDU -> "warning text-dark";
+            case TERMINE -> "success";
         };
     }
 }
\ No newline at end of file
@@ -1,9 +1,22 @@
 package sn.esmt.isi.repository;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import sn.esmt.isi.model.Domaine;
 
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface DomaineRepository extends JpaRepository<Domaine, Long> {
+
+    // Liste des domaines des formulaires projet : résultat en cache (invalidé par Hibernate à chaque écriture)
+    @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Domaine> findAll();
+
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    Optional<Domaine> findByNom(String nom);
 }
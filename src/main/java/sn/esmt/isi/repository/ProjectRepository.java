@@ -2,11 +2,14 @@ package sn.esmt.isi.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import sn.esmt.isi.model.ProjectStatus;
 import sn.esmt.isi.model.ResearchProject;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProjectRepository extends JpaRepository<ResearchProject, Long> {
@@ -16,25 +19,79 @@ public interface ProjectRepository extends JpaRepository<ResearchProject, Long>
         // ──────────────────────────────────────────────────────────────
         List<ResearchProject> findByProprietaireEmail(String email);
 
+        // ──────────────────────────────────────────────────────────────
+        // Version seule (requêtes conditionnelles, sans charger le projet)
+        // ──────────────────────────────────────────────────────────────
+        @Query("SELECT COALESCE(p.dateModification, p.dateCreation) FROM ResearchProject p WHERE p.id = :id")
+        Optional<LocalDateTime> findVersionById(@Param("id") Long id);
+
+        @Query("SELECT COALESCE(p.dateModification, p.dateCreation) FROM ResearchProject p " +
+                        "WHERE p.id = :id AND p.proprietaire.email = :email")
+        Optional<LocalDateTime> findVersionByIdAndProprietaireEmail(@Param("id") Long id,
+                        @Param("email") String email);
+
         // ──────────────────────────────────────────────────────────────
         // Filtres par statut (seulement les 3 statuts autorisés)
         // ──────────────────────────────────────────────────────────────
-        List<ResearchProject> findByStatutProjet(String statutProjet);
+        List<ResearchProject> findByStatut(ProjectStatus statut);
+
+        long countByStatut(ProjectStatus statut);
 
-        long countByStatutProjet(String statutProjet);
+        long countByDomaineId(Long domaineId);
 
-        long countByDomaineRecherche(String domaineRecherche);
+        /**
+         * Nombre de projets par identifiant de domaine
+         * Retourne [domaine_id, nombre de projets]
+         */
+        @Query("SELECT p.domaine.id, COUNT(p) FROM ResearchProject p " +
+                        "WHERE p.domaine IS NOT NULL GROUP BY p.domaine.id")
+        List<Object[]> countProjectsByDomaineId();
 
         // ──────────────────────────────────────────────────────────────
         // Statistiques pour dashboard candidat
         // ──────────────────────────────────────────────────────────────
 
         /**
-         * Nombre de projets en retard (date fin passée + statut != TERMINE)
+         * Échéances des projets non terminés (chargement de l'index des échéances)
+         * Retourne [id, date de fin]
+         */
+        @Query("SELECT p.id, p.dateFin FROM ResearchProject p " +
+                        "WHERE p.dateFin IS NOT NULL AND p.statut <> sn.esmt.isi.model.ProjectStatus.TERMINE")
+        List<Object[]> findOpenDeadlines();
+
+        /**
+         * Échéance et statut d'un projet, sans charger l'entité
+         * Retourne [date de fin, statut]
+         */
+        @Query("SELECT p.dateFin, p.statut FROM ResearchProject p WHERE p.id = :id")
+        List<Object[]> findDeadlineById(@Param("id") Long id);
+
+        // ──────────────────────────────────────────────────────────────
+        // Carte (index spatial par institution)
+        // ──────────────────────────────────────────────────────────────
+
+        /**
+         * Retourne [id, institution, domaine_id, statut] des projets avec une institution
+         */
+        @Query("SELECT p.id, p.institution, d.id, p.statut FROM ResearchProject p LEFT JOIN p.domaine d " +
+                        "WHERE p.institution IS NOT NULL")
+        List<Object[]> findMapEntries();
+
+        @Query("SELECT p.id, p.institution, d.id, p.statut FROM ResearchProject p LEFT JOIN p.domaine d " +
+                        "WHERE p.id = :id")
+        List<Object[]> findMapEntryById(@Param("id") Long id);
+
+        /**
+         * Compteurs globaux en une seule lecture (flux temps réel du dashboard)
+         * Retourne [total, en cours, suspendus, terminés, avancement moyen, budget total]
          */
-        @Query("SELECT COUNT(p) FROM ResearchProject p " +
-                        "WHERE p.dateFin < CURRENT_DATE AND p.statutProjet != 'TERMINE'")
-        long countOverdueProjects();
+        @Query("SELECT COUNT(p), " +
+                        "SUM(CASE WHEN p.statut = sn.esmt.isi.model.ProjectStatus.EN_COURS THEN 1 ELSE 0 END), " +
+                        "SUM(CASE WHEN p.statut = sn.esmt.isi.model.ProjectStatus.SUSPENDU THEN 1 ELSE 0 END), " +
+                        "SUM(CASE WHEN p.statut = sn.esmt.isi.model.ProjectStatus.TERMINE THEN 1 ELSE 0 END), " +
+                        "AVG(p.niveauAvancement), SUM(p.budgetEstime) " +
+                        "FROM ResearchProject p")
+        List<Object[]> summarizeAll();
 
         /**
          * Avancement moyen global
@@ -55,7 +112,7 @@ public interface ProjectRepository extends JpaRepository<ResearchProject, Long>
         /**
          * Répartition des projets par domaine de recherche
          */
-        @Query("SELECT p.domaineRecherche, COUNT(p) FROM ResearchProject p WHERE p.domaineRecherche IS NOT NULL GROUP BY p.domaineRecherche ORDER BY COUNT(p) DESC")
+        @Query("SELECT d.nom, COUNT(p) FROM ResearchProject p JOIN p.domaine d GROUP BY d.id, d.nom ORDER BY COUNT(p) DESC")
         List<Object[]> countProjectsByDomaine();
 
         /**
@@ -85,13 +142,68 @@ public interface ProjectRepository extends JpaRepository<ResearchProject, Long>
          * Budget total par domaine de recherche
          * Retourne [domaine, somme des budgets]
          */
-        @Query("SELECT p.domaineRecherche, SUM(p.budgetEstime) " +
-                        "FROM ResearchProject p " +
-                        "WHERE p.domaineRecherche IS NOT NULL AND p.budgetEstime IS NOT NULL " +
-                        "GROUP BY p.domaineRecherche " +
+        @Query("SELECT d.nom, SUM(p.budgetEstime) " +
+                        "FROM ResearchProject p JOIN p.domaine d " +
+                        "WHERE p.budgetEstime IS NOT NULL " +
+                        "GROUP BY d.id, d.nom " +
                         "ORDER BY SUM(p.budgetEstime) DESC")
         List<Object[]> sumBudgetByDomaine();
 
+        // ──────────────────────────────────────────────────────────────
+        // Agrégats par propriétaire (dashboard gestionnaire)
+        // ──────────────────────────────────────────────────────────────
+
+        /**
+         * Totaux d'un propriétaire en une seule ligne
+         * Retourne [nombre de projets, avancement moyen, budget total]
+         */
+        @Query("SELECT COUNT(p), AVG(p.niveauAvancement), SUM(p.budgetEstime) " +
+                        "FROM ResearchProject p WHERE p.proprietaire.email = :email")
+        List<Object[]> summarizeByProprietaireEmail(@Param("email") String email);
+
+        /**
+         * Compteurs des projets d'un propriétaire en une seule lecture (dashboard candidat)
+         * Retourne [total, en cours, terminés, suspendus, en retard, avancement moyen]
+         */
+        @Query("SELECT COUNT(p), " +
+                        "SUM(CASE WHEN p.statut = sn.esmt.isi.model.ProjectStatus.EN_COURS THEN 1 ELSE 0 END), " +
+                        "SUM(CASE WHEN p.statut = sn.esmt.isi.model.ProjectStatus.TERMINE THEN 1 ELSE 0 END), " +
+                        "SUM(CASE WHEN p.statut = sn.esmt.isi.model.ProjectStatus.SUSPENDU THEN 1 ELSE 0 END), " +
+                        "SUM(CASE WHEN p.dateFin < CURRENT_DATE " +
+                        "AND p.statut <> sn.esmt.isi.model.ProjectStatus.TERMINE THEN 1 ELSE 0 END), " +
+                        "AVG(p.niveauAvancement) " +
+                        "FROM ResearchProject p WHERE p.proprietaire.email = :email")
+        List<Object[]> summarizeStatusByProprietaireEmail(@Param("email") String email);
+
+        /**
+         * Répartition des projets d'un propriétaire par statut
+         * Retourne [statut, nombre de projets]
+         */
+        @Query("SELECT p.statut, COUNT(p) FROM ResearchProject p " +
+                        "WHERE p.proprietaire.email = :email GROUP BY p.statut")
+        List<Object[]> countByStatutForProprietaire(@Param("email") String email);
+
+        /**
+         * Nombre de projets et budget par domaine pour un propriétaire
+         * Retourne [domaine, nombre de projets, somme des budgets]
+         */
+        @Query("SELECT d.nom, COUNT(p), SUM(p.budgetEstime) " +
+                        "FROM ResearchProject p JOIN p.domaine d " +
+                        "WHERE p.proprietaire.email = :email " +
+                        "GROUP BY d.id, d.nom " +
+                        "ORDER BY COUNT(p) DESC")
+        List<Object[]> countAndSumBudgetByDomaineForProprietaire(@Param("email") String email);
+
+        /**
+         * Nombre de projets par propriétaire, restreint à un email
+         * Retourne [prénom, nom, email, nombre de projets]
+         */
+        @Query("SELECT u.prenom, u.nom, u.email, COUNT(p) " +
+                        "FROM ResearchProject p JOIN p.proprietaire u " +
+                        "WHERE u.email = :email " +
+                        "GROUP BY u.id, u.prenom, u.nom, u.email")
+        List<Object[]> countProjectsByParticipantForProprietaire(@Param("email") String email);
+
         // ──────────────────────────────────────────────────────────────
         // Méthodes supplémentaires utiles (gardées)
         // ──────────────────────────────────────────────────────────────
@@ -106,11 +218,17 @@ public interface ProjectRepository extends JpaRepository<ResearchProject, Long>
 
         long countByDateCreationAfter(LocalDateTime date);
 
-        @Query("SELECT p FROM ResearchProject p WHERE " +
+        @Query("SELECT p FROM ResearchProject p LEFT JOIN p.domaine d WHERE " +
                         "LOWER(p.titreProjet) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-                        "LOWER(p.domaineRecherche) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+                        "LOWER(d.nom) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
                         "LOWER(p.institution) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
                         "LOWER(p.responsableProjet) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-                        "LOWER(p.listeParticipants) LIKE LOWER(CONCAT('%', :keyword, '%'))")
+                        // Participants : recherche par préfixe sur des colonnes indexées
+                        // (collation MySQL insensible à la casse, pas de LOWER pour garder l'index)
+                        "p.id IN (SELECT e.project.id FROM ExternalParticipant e " +
+                        "WHERE e.nom LIKE CONCAT(:keyword, '%')) OR " +
+                        "p.id IN (SELECT pm.id FROM ResearchProject pm JOIN pm.members m " +
+                        "WHERE m.nom LIKE CONCAT(:keyword, '%') OR m.prenom LIKE CONCAT(:keyword, '%') " +
+                        "OR m.email LIKE CONCAT(:keyword, '%'))")
         List<ResearchProject> searchProjects(String keyword);
 }
\ No newline at end of file
@@ -1,7 +1,9 @@
 package sn.esmt.isi.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import sn.esmt.isi.model.User;
@@ -18,7 +20,8 @@ public interface UserRepository extends JpaRepository<User, String> {
     // Vérifie si un email existe déjà
     boolean existsByEmail(String email);
 
-    // Recherche par rôle exact
+    // Recherche par rôle exact (pages participants) : résultat en cache, invalidé à chaque écriture sur users
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<User> findByRole(String role);
 
     // Compte le nombre d'utilisateurs par rôle
@@ -40,6 +43,13 @@ public interface UserRepository extends JpaRepository<User, String> {
             "LOWER(u.email) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     List<User> findBySearchTerm(@Param("keyword") String keyword);
 
+    // Filtres de la liste admin : institutions et fournisseurs OAuth2 présents
+    @Query("SELECT DISTINCT u.institution FROM User u WHERE u.institution IS NOT NULL ORDER BY u.institution")
+    List<String> findDistinctInstitutions();
+
+    @Query("SELECT DISTINCT u.provider FROM User u WHERE u.provider IS NOT NULL ORDER BY u.provider")
+    List<String> findDistinctProviders();
+
     // Statistiques : nombre d'utilisateurs par rôle
     @Query("SELECT u.role, COUNT(u) FROM User u GROUP BY u.role")
     List<Object[]> countUsersByRole();
@@ -0,0 +1,135 @@
+package sn.esmt.isi.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.util.HtmlUtils;
+import sn.esmt.isi.model.AppConfig;
+import sn.esmt.isi.repository.AppConfigRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.OptionalLong;
+
+/**
+ * Paramètres de la plateforme (ligne unique de app_config).
+ *
+ * Les drapeaux lus à chaque requête (maintenance, inscriptions) sont gardés dans un
+ * instantané immuable en mémoire : il est chargé au démarrage puis remplacé à chaque
+ * enregistrement, la base n'est donc jamais interrogée sur le chemin des requêtes.
+ * Un enregistrement ajoute un événement CONFIGURATION à la boîte d'envoi : les autres
+ * nœuds relisent alors la ligne (hors cache de second niveau, propre à chaque nœud).
+ */
+@Service
+public class AppConfigService implements OutboxSubscriber {
+
+    /**
+     * Vue figée des paramètres, avec la page de maintenance déjà encodée
+     */
+    public record Snapshot(boolean maintenanceMode, boolean registrationOpen, byte[] maintenancePage) {
+    }
+
+    private final AppConfigRepository appConfigRepository;
+    private final OutboxService outboxService;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private volatile Snapshot snapshot;
+    private volatile long loadedUpTo;
+
+    public AppConfigService(AppConfigRepository appConfigRepository, OutboxService outboxService,
+            EntityManagerFactory entityManagerFactory) {
+        this.appConfigRepository = appConfigRepository;
+        this.outboxService = outboxService;
+        this.entityManagerFactory = entityManagerFactory;
+        this.snapshot = toSnapshot(new AppConfig());
+    }
+
+    @PostConstruct
+    public void refresh() {
+        loadedUpTo = outboxService.loadMark();
+        snapshot = toSnapshot(getConfig());
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public AppConfig getConfig() {
+        return appConfigRepository.findById(1L).orElseGet(AppConfig::new);
+    }
+
+    /**
+     * Enregistre la configuration puis publie le nouvel instantané
+     * (uniquement une fois l'écriture validée)
+     */
+    @Transactional
+    public AppConfig save(AppConfig config) {
+        config.setId(1L); // Toujours le même ID
+        AppConfig saved = appConfigRepository.save(config);
+        outboxService.append(OutboxEvent.CONFIGURATION, saved.getId(), OutboxEvent.Type.UPDATED);
+        Snapshot next = toSnapshot(saved);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    snapshot = next;
+                }
+            });
+        } else {
+            snapshot = next;
+        }
+        return saved;
+    }
+
+    @Override
+    public String subscriberName() {
+        return "configuration";
+    }
+
+    @Override
+    public OptionalLong loadedUpTo() {
+        return OptionalLong.of(loadedUpTo);
+    }
+
+    /**
+     * Configuration enregistrée sur un nœud (celui-ci compris) : nouvel instantané
+     */
+    @Override
+    public void onOutboxEvent(OutboxEvent event) {
+        if (!event.isConfiguration())
+            return;
+        entityManagerFactory.getCache().evict(AppConfig.class);
+        snapshot = toSnapshot(getConfig());
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    private static Snapshot toSnapshot(AppConfig config) {
+        return new Snapshot(
+                Boolean.TRUE.equals(config.getMaintenanceMode()),
+                !Boolean.FALSE.equals(config.getRegistrationOpen()),
+                maintenancePage(config).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String maintenancePage(AppConfig config) {
+        String siteName = HtmlUtils.htmlEscape(config.getSiteName() != null ? config.getSiteName()
+                : "Plateforme Cartographie");
+        String contact = config.getContactEmail() != null
+                ? "<p>Contact : " + HtmlUtils.htmlEscape(config.getContactEmail()) + "</p>"
+                : "";
+        return "<!DOCTYPE html><html lang=\"fr\"><head><meta charset=\"UTF-8\">"
+                + "<meta name=\"viewport\" content=\"width=device-width, initial-scale=1\">"
+                + "<title>" + siteName + " — Maintenance</title>"
+                + "<style>body{font-family:system-ui,sans-serif;background:#f8f9fa;color:#212529;"
+                + "display:flex;align-items:center;justify-content:center;min-height:100vh;margin:0}"
+                + "main{text-align:center;padding:2rem}h1{color:#0d6efd}</style></head><body><main>"
+                + "<h1>" + siteName + "</h1>"
+                + "<p>La plateforme est en maintenance. Merci de réessayer dans quelques instants.</p>"
+                + contact
+                + "</main></body></html>";
+    }
+}
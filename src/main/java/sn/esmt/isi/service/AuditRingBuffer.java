@@ -0,0 +1,73 @@
+package sn.esmt.isi.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * File circulaire bornée sans verrou : plusieurs producteurs, un seul consommateur.
+ *
+ * Un producteur réserve une case en avançant {@code tail} par CAS puis y dépose
+ * l'élément ; le consommateur lit les cases dans l'ordre et s'arrête à la première
+ * case encore vide (réservée mais pas encore remplie). File pleine : offer échoue
+ * immédiatement, sans jamais bloquer.
+ */
+final class AuditRingBuffer<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Écrit par le seul consommateur
+    private volatile long head;
+
+    AuditRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Dépose un élément ; false si la file est pleine
+     */
+    boolean offer(T item) {
+        while (true) {
+            long t = tail.get();
+            if (t - head > mask)
+                return false;
+            if (tail.compareAndSet(t, t + 1)) {
+                slots.lazySet((int) (t & mask), item);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Retire au plus {@code max} éléments, dans l'ordre de réservation (consommateur unique)
+     *
+     * @return nombre d'éléments retirés
+     */
+    int drain(Consumer<T> sink, int max) {
+        long h = head;
+        int count = 0;
+        while (count < max) {
+            int index = (int) (h & mask);
+            T item = slots.get(index);
+            if (item == null)
+                break;
+            slots.lazySet(index, null);
+            h++;
+            count++;
+            sink.accept(item);
+        }
+        head = h;
+        return count;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+}
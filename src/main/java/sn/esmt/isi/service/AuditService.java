@@ -0,0 +1,238 @@
+package sn.esmt.isi.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import sn.esmt.isi.model.User;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Journal d'audit des modifications (table audit_log, en ajout seul).
+ *
+ * - record() ne fait aucun accès à la base : l'entrée est déposée dans une file
+ *   circulaire sans verrou, après validation de la transaction en cours s'il y en a une
+ * - un rédacteur unique vide la file toutes les FLUSH_MILLIS ms et écrit les entrées
+ *   par INSERT groupés ; un lot en échec est retenté au passage suivant
+ * - file pleine : l'entrée est abandonnée et comptée, la requête n'attend jamais
+ * L'historique lu peut donc avoir quelques centaines de millisecondes de retard.
+ */
+@Service
+public class AuditService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditService.class);
+
+    private static final long FLUSH_MILLIS = 250;
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_DETAILS = 2000;
+
+    public static final String CIBLE_PROJET = "PROJET";
+    public static final String CIBLE_UTILISATEUR = "UTILISATEUR";
+
+    public enum Action {
+        PROJET_CREE, PROJET_MODIFIE, PROJET_SUPPRIME, ROLE_MODIFIE, COMPTE_ACTIVE, COMPTE_DESACTIVE
+    }
+
+    /**
+     * Entrée du journal ; {@code acteurId} est résolu depuis l'email par le rédacteur
+     * quand la session n'expose pas l'utilisateur (connexion par formulaire)
+     */
+    public record AuditEntry(LocalDateTime date, String acteurId, String acteurEmail, Action action,
+            String cibleType, String cibleId, String details) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditRingBuffer<AuditEntry> buffer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Map<String, String> userIdsByEmail = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "audit-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Lot en échec, retenté au passage suivant (propre au rédacteur)
+    private final List<AuditEntry> retry = new ArrayList<>();
+    private long reportedDropped;
+
+    public AuditService(JdbcTemplate jdbcTemplate, @Value("${app.audit.buffer-size:8192}") int bufferSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new AuditRingBuffer<>(bufferSize);
+        writer.scheduleWithFixedDelay(this::flush, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Journalise une action de l'utilisateur connecté, sans écriture synchrone en base
+     */
+    public void record(Action action, String cibleType, Object cibleId, String details) {
+        String[] actor = currentActor();
+        String text = details != null && details.length() > MAX_DETAILS ? details.substring(0, MAX_DETAILS) : details;
+        AuditEntry entry = new AuditEntry(LocalDateTime.now(), actor[0], actor[1], action, cibleType,
+                String.valueOf(cibleId), text);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Rien n'est journalisé si la transaction est annulée
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(entry);
+                }
+            });
+        } else {
+            enqueue(entry);
+        }
+    }
+
+    /**
+     * Historique d'un projet, du plus récent au plus ancien
+     */
+    public List<AuditEntry> getProjectHistory(Long projectId, int limit) {
+        return jdbcTemplate.query("SELECT date_action, acteur_id, acteur_email, action, cible_type, cible_id, " +
+                "details FROM audit_log WHERE cible_type = ? AND cible_id = ? " +
+                "ORDER BY date_action DESC, id DESC LIMIT ?",
+                (rs, i) -> toEntry(rs), CIBLE_PROJET, String.valueOf(projectId), limit);
+    }
+
+    /**
+     * Historique d'un utilisateur : actions qu'il a faites et modifications de son compte
+     */
+    public List<AuditEntry> getUserHistory(String userId, int limit) {
+        return jdbcTemplate.query("SELECT date_action, acteur_id, acteur_email, action, cible_type, cible_id, " +
+                "details FROM audit_log WHERE id IN (" +
+                "SELECT id FROM (SELECT id FROM audit_log WHERE acteur_id = ? " +
+                "ORDER BY date_action DESC, id DESC LIMIT ?) a " +
+                "UNION SELECT id FROM (SELECT id FROM audit_log WHERE cible_type = ? AND cible_id = ? " +
+                "ORDER BY date_action DESC, id DESC LIMIT ?) c) " +
+                "ORDER BY date_action DESC, id DESC LIMIT ?",
+                (rs, i) -> toEntry(rs), userId, limit, CIBLE_UTILISATEUR, userId, limit, limit);
+    }
+
+    /**
+     * Entrées en attente d'écriture et entrées abandonnées (file pleine)
+     */
+    public Map<String, Object> getStatus() {
+        return Map.of("enAttente", buffer.size(), "capacite", buffer.capacity(), "abandonnees", dropped.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush(); // dernières entrées
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Rédacteur (thread audit-writer)
+    // ──────────────────────────────────────────────────────────────
+
+    private void enqueue(AuditEntry entry) {
+        if (!buffer.offer(entry))
+            dropped.incrementAndGet();
+    }
+
+    private synchronized void flush() {
+        try {
+            long lost = dropped.get();
+            if (lost != reportedDropped) {
+                logger.warn("Audit : {} entrée(s) abandonnée(s), file pleine", lost - reportedDropped);
+                reportedDropped = lost;
+            }
+            if (!retry.isEmpty()) {
+                write(retry);
+                retry.clear();
+            }
+            List<AuditEntry> batch = new ArrayList<>(BATCH_SIZE);
+            while (buffer.drain(batch::add, BATCH_SIZE) > 0) {
+                try {
+                    write(batch);
+                } catch (RuntimeException e) {
+                    retry.addAll(batch);
+                    throw e;
+                }
+                batch.clear();
+            }
+        } catch (RuntimeException e) {
+            // Lot conservé : retenté au prochain passage, dans la limite de la file
+            if (retry.size() > buffer.capacity()) {
+                int excess = retry.size() - buffer.capacity();
+                retry.subList(0, excess).clear();
+                dropped.addAndGet(excess);
+            }
+            logger.warn("Audit : écriture impossible, {} entrée(s) en attente de nouvel essai", retry.size(), e);
+        }
+    }
+
+    private void write(List<AuditEntry> entries) {
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        for (AuditEntry entry : entries) {
+            String acteurId = entry.acteurId() != null ? entry.acteurId() : resolveUserId(entry.acteurEmail());
+            rows.add(new Object[] { Timestamp.valueOf(entry.date()), acteurId, entry.acteurEmail(),
+                    entry.action().name(), entry.cibleType(), entry.cibleId(), entry.details() });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO audit_log (date_action, acteur_id, acteur_email, action, cible_type, " +
+                "cible_id, details) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private String resolveUserId(String email) {
+        if (email == null)
+            return null;
+        String id = userIdsByEmail.get(email);
+        if (id == null) {
+            Optional<String> found = jdbcTemplate.queryForList("SELECT id FROM users WHERE email = ?",
+                    String.class, email).stream().findFirst();
+            if (found.isEmpty())
+                return null;
+            id = found.get();
+            userIdsByEmail.put(email, id);
+        }
+        return id;
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    /**
+     * [id, email] de l'utilisateur connecté, sans requête (id null si la session ne le porte pas)
+     */
+    private static String[] currentActor() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getPrincipal()))
+            return new String[] { null, null };
+        User user = null;
+        if (auth.getPrincipal() instanceof CustomUserDetails details)
+            user = details.getUser();
+        else if (auth.getPrincipal() instanceof CustomOAuth2User oauth)
+            user = oauth.getUser();
+        if (user != null)
+            return new String[] { user.getId(), user.getEmail() };
+        return new String[] { null, auth.getName() };
+    }
+
+    private static AuditEntry toEntry(ResultSet rs) throws SQLException {
+        return new AuditEntry(rs.getTimestamp(1).toLocalDateTime(), rs.getString(2), rs.getString(3),
+                Action.valueOf(rs.getString(4)), rs.getString(5), rs.getString(6), rs.getString(7));
+    }
+}
@@ -0,0 +1,699 @@
+package sn.esmt.isi.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import sn.esmt.isi.model.User;
+import sn.esmt.isi.repository.UserRepository;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Graphe de collaboration : chercheurs ↔ projets (graphe biparti).
+ *
+ * Un chercheur est un utilisateur (propriétaire ou membre d'un projet) ou un
+ * participant externe ; un externe dont le nom correspond à un seul utilisateur est
+ * rattaché à cet utilisateur. Les deux sens d'adjacence sont des tableaux compacts
+ * d'entiers (CompactAdjacency), chargés en trois requêtes JDBC au démarrage puis
+ * corrigés projet par projet à chaque écriture, sur n'importe quel nœud (événements
+ * projet de la boîte d'envoi, OutboxRelay). Les noms des utilisateurs, qui servent à
+ * rattacher les externes, suivent les événements utilisateur.
+ */
+@Service
+public class CollaborationGraphService implements OutboxSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(CollaborationGraphService.class);
+
+    private static final String USER_PREFIX = "u:";
+    private static final String EXTERNAL_PREFIX = "x:";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final OutboxService outboxService;
+    private volatile long loadedUpTo;
+    // Import relu dans le lot en cours (thread outbox-relay)
+    private boolean importPending;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Chercheurs : index ↔ clé (« u:<id utilisateur> » ou « x:<nom normalisé> »)
+    private final List<String> researcherKeys = new ArrayList<>();
+    private final Map<String, Integer> researcherIndex = new HashMap<>();
+    private final Map<Integer, String> externalNames = new HashMap<>();
+
+    // Projets : index ↔ identifiant
+    private final List<Long> projectIds = new ArrayList<>();
+    private final Map<Long, Integer> projectIndex = new HashMap<>();
+
+    // Nom complet normalisé → id utilisateur ("" si plusieurs utilisateurs portent ce nom)
+    private final Map<String, String> usersByName = new HashMap<>();
+
+    private CompactAdjacency projectResearchers = new CompactAdjacency();
+    private CompactAdjacency researcherProjects = new CompactAdjacency();
+
+    private long version;
+
+    /**
+     * Intermédiarité et nombre de collaborateurs calculés pour une version du graphe
+     */
+    private record Centrality(long version, double[] scores, int[] degrees) {
+    }
+
+    // Un seul calcul à la fois, hors du verrou du graphe : les écritures ne l'attendent pas
+    private final Object centralityComputation = new Object();
+    private volatile Centrality centrality;
+
+    public CollaborationGraphService(JdbcTemplate jdbcTemplate, UserRepository userRepository,
+            OutboxService outboxService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.outboxService = outboxService;
+    }
+
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            loadedUpTo = outboxService.loadMark();
+            // Reconstruction complète : les index repartent de zéro (projets ou chercheurs disparus)
+            researcherKeys.clear();
+            researcherIndex.clear();
+            externalNames.clear();
+            projectIds.clear();
+            projectIndex.clear();
+            usersByName.clear();
+
+            jdbcTemplate.query("SELECT id, nom, prenom FROM users",
+                    rs -> {
+                        registerUserName(rs.getString(1), rs.getString(2), rs.getString(3));
+                    });
+
+            Map<Integer, List<Integer>> rows = new HashMap<>();
+            jdbcTemplate.query("SELECT project_id, proprietaire_id FROM research_projects",
+                    rs -> {
+                        link(rows, rs.getLong(1), USER_PREFIX + rs.getString(2));
+                    });
+            jdbcTemplate.query("SELECT project_id, user_id FROM project_members",
+                    rs -> {
+                        link(rows, rs.getLong(1), USER_PREFIX + rs.getString(2));
+                    });
+            jdbcTemplate.query("SELECT project_id, nom FROM project_external_participants",
+                    rs -> {
+                        link(rows, rs.getLong(1), externalKey(rs.getString(2)));
+                    });
+
+            int[][] byProject = new int[projectIds.size()][];
+            int[][] byResearcher = new int[researcherKeys.size()][];
+            List<List<Integer>> inverse = new ArrayList<>();
+            for (int r = 0; r < researcherKeys.size(); r++) {
+                inverse.add(new ArrayList<>());
+            }
+            for (int p = 0; p < byProject.length; p++) {
+                List<Integer> researchers = rows.getOrDefault(p, List.of());
+                byProject[p] = researchers.stream().mapToInt(Integer::intValue).toArray();
+                for (int r : byProject[p]) {
+                    inverse.get(r).add(p);
+                }
+            }
+            for (int r = 0; r < byResearcher.length; r++) {
+                byResearcher[r] = inverse.get(r).stream().mapToInt(Integer::intValue).toArray();
+            }
+            projectResearchers = CompactAdjacency.of(byProject);
+            researcherProjects = CompactAdjacency.of(byResearcher);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Graphe de collaboration : {} chercheurs, {} projets", researcherKeys.size(), projectIds.size());
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Requêtes sur le graphe
+    // ──────────────────────────────────────────────────────────────
+
+    /**
+     * Collaborateurs d'un utilisateur, du plus grand nombre de projets communs au plus petit
+     */
+    public Optional<List<Map<String, Object>>> getCollaborators(String userId) {
+        Map<Integer, Integer> shared = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            Integer r = researcherIndex.get(USER_PREFIX + userId);
+            if (r == null)
+                return Optional.empty();
+            researcherProjects.forEach(r, p -> projectResearchers.forEach(p, other -> {
+                if (other != r)
+                    shared.merge(other, 1, Integer::sum);
+            }));
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Integer> ordered = new ArrayList<>(shared.keySet());
+        ordered.sort(Comparator.comparing((Integer other) -> shared.get(other)).reversed());
+        List<Map<String, Object>> result = describe(ordered);
+        for (int i = 0; i < result.size(); i++) {
+            result.get(i).put("projetsCommuns", shared.get(ordered.get(i)));
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Plus court chemin de collaboration entre deux utilisateurs (parcours en largeur) :
+     * chercheur, projet, chercheur, ... ; vide si aucun chemin
+     */
+    public Optional<List<Map<String, Object>>> getShortestPath(String fromUserId, String toUserId) {
+        List<Integer> researchersOnPath = new ArrayList<>();
+        List<Long> projectsOnPath = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Integer from = researcherIndex.get(USER_PREFIX + fromUserId);
+            Integer to = researcherIndex.get(USER_PREFIX + toUserId);
+            if (from == null || to == null)
+                return Optional.empty();
+
+            int researcherCount = researcherKeys.size();
+            int[] viaProject = new int[researcherCount];
+            int[] viaResearcher = new int[projectIds.size()];
+            Arrays.fill(viaProject, -2);
+            Arrays.fill(viaResearcher, -1);
+            viaProject[from] = -1;
+
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            queue.add(from);
+            while (!queue.isEmpty() && viaProject[to] == -2) {
+                int r = queue.poll();
+                for (int p : researcherProjects.row(r)) {
+                    if (viaResearcher[p] != -1)
+                        continue;
+                    viaResearcher[p] = r;
+                    for (int next : projectResearchers.row(p)) {
+                        if (viaProject[next] == -2) {
+                            viaProject[next] = p;
+                            queue.add(next);
+                        }
+                    }
+                }
+            }
+            if (viaProject[to] == -2)
+                return Optional.of(List.of());
+
+            for (int r = to; r != from; r = viaResearcher[viaProject[r]]) {
+                researchersOnPath.add(r);
+                projectsOnPath.add(projectIds.get(viaProject[r]));
+            }
+            researchersOnPath.add(from);
+        } finally {
+            lock.readLock().unlock();
+        }
+        Collections.reverse(researchersOnPath);
+        Collections.reverse(projectsOnPath);
+
+        Map<Long, String> titles = projectTitles(projectsOnPath);
+        List<Map<String, Object>> researchers = describe(researchersOnPath);
+        List<Map<String, Object>> steps = new ArrayList<>();
+        for (int i = 0; i < researchers.size(); i++) {
+            steps.add(researchers.get(i));
+            if (i < projectsOnPath.size()) {
+                Map<String, Object> project = new LinkedHashMap<>();
+                project.put("type", "projet");
+                project.put("id", projectsOnPath.get(i));
+                project.put("titre", titles.get(projectsOnPath.get(i)));
+                steps.add(project);
+            }
+        }
+        return Optional.of(steps);
+    }
+
+    /**
+     * Composantes connexes des utilisateurs.
+     * Sans institution : tout le graphe, avec la répartition par institution de chaque
+     * composante. Avec une institution : sous-graphe de ses seuls chercheurs.
+     */
+    public Map<String, Object> getComponents(String institution, int limit) {
+        Map<String, String> institutions = new HashMap<>();
+        jdbcTemplate.query("SELECT id, institution FROM users WHERE institution IS NOT NULL",
+                rs -> {
+                    institutions.put(rs.getString(1), rs.getString(2));
+                });
+        String wanted = institution != null ? normalize(institution) : null;
+
+        Map<Integer, List<Integer>> components = new HashMap<>();
+        Map<Integer, String> institutionOf = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int[] parent = new int[researcherKeys.size()];
+            for (int r = 0; r < parent.length; r++) {
+                parent[r] = r;
+                String key = researcherKeys.get(r);
+                if (key.startsWith(USER_PREFIX)) {
+                    String name = institutions.get(key.substring(USER_PREFIX.length()));
+                    if (name != null)
+                        institutionOf.put(r, name);
+                }
+            }
+            for (int p = 0; p < projectIds.size(); p++) {
+                int first = -1;
+                for (int r : projectResearchers.row(p)) {
+                    if (wanted != null && !wanted.equals(normalize(institutionOf.get(r))))
+                        continue;
+                    if (first < 0)
+                        first = r;
+                    else
+                        union(parent, first, r);
+                }
+            }
+            for (int r = 0; r < parent.length; r++) {
+                if (researcherProjects.degree(r) == 0)
+                    continue;
+                if (wanted != null && !wanted.equals(normalize(institutionOf.get(r))))
+                    continue;
+                components.computeIfAbsent(find(parent, r), root -> new ArrayList<>()).add(r);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<List<Integer>> ordered = new ArrayList<>(components.values());
+        ordered.sort(Comparator.comparingInt((List<Integer> c) -> c.size()).reversed());
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (List<Integer> component : ordered.subList(0, Math.min(limit, ordered.size()))) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("taille", component.size());
+            if (wanted == null) {
+                Map<String, Long> breakdown = component.stream()
+                        .collect(Collectors.groupingBy(r -> institutionOf.getOrDefault(r, "Non renseignée"),
+                                LinkedHashMap::new, Collectors.counting()));
+                item.put("institutions", breakdown);
+            } else {
+                item.put("chercheurs", describe(component));
+            }
+            items.add(item);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (institution != null)
+            result.put("institution", institution);
+        result.put("nombreComposantes", components.size());
+        result.put("composantes", items);
+        return result;
+    }
+
+    /**
+     * Chercheurs les plus centraux : intermédiarité (Brandes) sur le graphe biparti,
+     * comptée entre paires de chercheurs ; recalculée seulement si le graphe a changé,
+     * sur une copie des adjacences prise sous le verrou de lecture
+     */
+    public List<Map<String, Object>> getMostCentral(int limit) {
+        Centrality current = currentCentrality();
+        double[] scores = current.scores();
+        int[] degrees = current.degrees();
+
+        List<Integer> ordered = new ArrayList<>();
+        for (int r = 0; r < scores.length; r++) {
+            if (degrees[r] > 0)
+                ordered.add(r);
+        }
+        ordered.sort(Comparator.comparingDouble((Integer r) -> scores[r])
+                .thenComparingInt(r -> degrees[r]).reversed());
+        List<Integer> top = ordered.subList(0, Math.min(limit, ordered.size()));
+
+        List<Map<String, Object>> result = describe(top);
+        for (int i = 0; i < result.size(); i++) {
+            result.get(i).put("intermediarite", Math.round(scores[top.get(i)] * 100.0) / 100.0);
+            result.get(i).put("collaborateurs", degrees[top.get(i)]);
+        }
+        return result;
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Mise à jour incrémentale
+    // ──────────────────────────────────────────────────────────────
+
+    /**
+     * Chercheurs d'un projet relus en base ; seuls les liens qui ont changé sont corrigés
+     */
+    private void applyProjectChange(Long projectId, OutboxEvent.Type type) {
+        Set<String> keys = new HashSet<>();
+        Map<String, String[]> users = new HashMap<>();
+        if (type != OutboxEvent.Type.DELETED) {
+            jdbcTemplate.query("SELECT u.id, u.nom, u.prenom FROM research_projects p " +
+                    "JOIN users u ON u.id = p.proprietaire_id WHERE p.project_id = ? " +
+                    "UNION SELECT u.id, u.nom, u.prenom FROM project_members pm " +
+                    "JOIN users u ON u.id = pm.user_id WHERE pm.project_id = ?",
+                    rs -> {
+                        keys.add(USER_PREFIX + rs.getString(1));
+                        users.put(rs.getString(1), new String[] { rs.getString(2), rs.getString(3) });
+                    },
+                    projectId, projectId);
+            List<String> externals = jdbcTemplate.queryForList(
+                    "SELECT nom FROM project_external_participants WHERE project_id = ?",
+                    String.class, projectId);
+            if (!externals.isEmpty()) {
+                // Utilisateurs homonymes des externes, éventuellement inscrits depuis le chargement
+                List<String> names = externals.stream()
+                        .map(name -> name.trim().replaceAll("\\s+", " ").toLowerCase()).distinct().toList();
+                String placeholders = String.join(",", Collections.nCopies(names.size(), "?"));
+                List<Object> args = new ArrayList<>(names);
+                args.addAll(names);
+                jdbcTemplate.query("SELECT id, nom, prenom FROM users " +
+                        "WHERE LOWER(CONCAT(prenom, ' ', nom)) IN (" + placeholders + ") " +
+                        "OR LOWER(CONCAT(nom, ' ', prenom)) IN (" + placeholders + ")",
+                        rs -> {
+                            users.put(rs.getString(1), new String[] { rs.getString(2), rs.getString(3) });
+                        },
+                        args.toArray());
+            }
+            lock.writeLock().lock();
+            try {
+                users.forEach((id, name) -> registerUserName(id, name[0], name[1]));
+                for (String external : externals) {
+                    keys.add(externalKey(external));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            Integer p = projectIndex.get(projectId);
+            if (p == null && keys.isEmpty())
+                return;
+            int project = p != null ? p : projectIndexOf(projectId);
+            int[] next = keys.stream().mapToInt(this::researcherIndexOf).sorted().toArray();
+            int[] previous = projectResearchers.row(project);
+            for (int r : previous) {
+                if (Arrays.binarySearch(next, r) < 0)
+                    researcherProjects.remove(r, project);
+            }
+            for (int r : next) {
+                if (Arrays.binarySearch(previous, r) < 0)
+                    researcherProjects.add(r, project);
+            }
+            projectResearchers.replace(project, next);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String subscriberName() {
+        return "graphe-collaboration";
+    }
+
+    @Override
+    public OptionalLong loadedUpTo() {
+        return OptionalLong.of(loadedUpTo);
+    }
+
+    @Override
+    public void onOutboxEvent(OutboxEvent event) {
+        if (event.isProject()) {
+            if (event.type() == OutboxEvent.Type.IMPORTED)
+                importPending = true;
+            else if (event.type() != OutboxEvent.Type.OVERDUE)
+                applyProjectChange(event.projectId(), event.type());
+        } else if (event.isUser()) {
+            applyUserChange(event);
+        }
+    }
+
+    /**
+     * Lots d'import relus : reconstruction complète, moins coûteuse que des milliers de
+     * mises à jour incrémentales
+     */
+    @Override
+    public void afterOutboxBatch() {
+        if (!importPending)
+            return;
+        load();
+        importPending = false;
+    }
+
+    /**
+     * Inscription, changement de nom ou suppression d'un utilisateur : seul l'index des
+     * noms change, les liens existants restent jusqu'à la prochaine écriture du projet
+     */
+    private void applyUserChange(OutboxEvent event) {
+        List<String[]> names = event.type() == OutboxEvent.Type.DELETED ? List.of()
+                : jdbcTemplate.query("SELECT nom, prenom FROM users WHERE id = ?",
+                        (rs, i) -> new String[] { rs.getString(1), rs.getString(2) }, event.agregatId());
+        lock.writeLock().lock();
+        try {
+            usersByName.values().removeIf(event.agregatId()::equals);
+            for (String[] name : names) {
+                registerUserName(event.agregatId(), name[0], name[1]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    /**
+     * Centralité de la version courante du graphe : calculée hors verrou, sur une copie
+     */
+    private Centrality currentCentrality() {
+        synchronized (centralityComputation) {
+            long snapshotVersion;
+            int researcherCount;
+            int projectCount;
+            CompactAdjacency byResearcher;
+            CompactAdjacency byProject;
+            lock.readLock().lock();
+            try {
+                Centrality cached = centrality;
+                if (cached != null && cached.version() == version)
+                    return cached;
+                snapshotVersion = version;
+                researcherCount = researcherKeys.size();
+                projectCount = projectIds.size();
+                byResearcher = researcherProjects.snapshot();
+                byProject = projectResearchers.snapshot();
+            } finally {
+                lock.readLock().unlock();
+            }
+            Centrality computed = new Centrality(snapshotVersion,
+                    computeBetweenness(byResearcher, byProject, researcherCount, projectCount),
+                    collaboratorCounts(byResearcher, byProject, researcherCount));
+            centrality = computed;
+            return computed;
+        }
+    }
+
+    private static int[] collaboratorCounts(CompactAdjacency byResearcher, CompactAdjacency byProject,
+            int researcherCount) {
+        int[] degrees = new int[researcherCount];
+        for (int r = 0; r < researcherCount; r++) {
+            Set<Integer> collaborators = new HashSet<>();
+            int self = r;
+            byResearcher.forEach(r, p -> byProject.forEach(p, other -> {
+                if (other != self)
+                    collaborators.add(other);
+            }));
+            degrees[r] = collaborators.size();
+        }
+        return degrees;
+    }
+
+    /**
+     * Intermédiarité de Brandes : sources et cibles limitées aux chercheurs,
+     * les projets ne servent que de relais
+     */
+    private static double[] computeBetweenness(CompactAdjacency byResearcher, CompactAdjacency byProject,
+            int researcherCount, int projectCount) {
+        int nodeCount = researcherCount + projectCount;
+        double[] scores = new double[researcherCount];
+        int[] distance = new int[nodeCount];
+        double[] paths = new double[nodeCount];
+        double[] dependency = new double[nodeCount];
+        int[] order = new int[nodeCount];
+
+        for (int source = 0; source < researcherCount; source++) {
+            if (byResearcher.degree(source) == 0)
+                continue;
+            Arrays.fill(distance, -1);
+            Arrays.fill(paths, 0);
+            Arrays.fill(dependency, 0);
+            distance[source] = 0;
+            paths[source] = 1;
+            int head = 0;
+            int tail = 0;
+            order[tail++] = source;
+            while (head < tail) {
+                int node = order[head++];
+                for (int next : neighbours(byResearcher, byProject, node, researcherCount)) {
+                    if (distance[next] < 0) {
+                        distance[next] = distance[node] + 1;
+                        order[tail++] = next;
+                    }
+                    if (distance[next] == distance[node] + 1)
+                        paths[next] += paths[node];
+                }
+            }
+            for (int i = tail - 1; i > 0; i--) {
+                int node = order[i];
+                double credit = (node < researcherCount ? 1 : 0) + dependency[node];
+                for (int previous : neighbours(byResearcher, byProject, node, researcherCount)) {
+                    if (distance[previous] == distance[node] - 1)
+                        dependency[previous] += paths[previous] / paths[node] * credit;
+                }
+                if (node < researcherCount)
+                    scores[node] += dependency[node];
+            }
+        }
+        // Graphe non orienté : chaque paire est comptée dans les deux sens
+        for (int r = 0; r < researcherCount; r++) {
+            scores[r] /= 2;
+        }
+        return scores;
+    }
+
+    /**
+     * Voisins dans l'espace unifié : chercheurs [0, n), projets [n, n + projets)
+     */
+    private static int[] neighbours(CompactAdjacency byResearcher, CompactAdjacency byProject, int node,
+            int researcherCount) {
+        if (node < researcherCount)
+            return Arrays.stream(byResearcher.row(node)).map(p -> p + researcherCount).toArray();
+        return byProject.row(node - researcherCount);
+    }
+
+    private void link(Map<Integer, List<Integer>> rows, long projectId, String researcherKey) {
+        rows.computeIfAbsent(projectIndexOf(projectId), p -> new ArrayList<>()).add(researcherIndexOf(researcherKey));
+    }
+
+    private int projectIndexOf(Long projectId) {
+        return projectIndex.computeIfAbsent(projectId, id -> {
+            projectIds.add(id);
+            return projectIds.size() - 1;
+        });
+    }
+
+    private int researcherIndexOf(String key) {
+        return researcherIndex.computeIfAbsent(key, k -> {
+            researcherKeys.add(k);
+            return researcherKeys.size() - 1;
+        });
+    }
+
+    /**
+     * Clé d'un participant externe : l'utilisateur portant ce nom s'il est unique
+     */
+    private String externalKey(String name) {
+        String normalized = normalize(name);
+        String userId = usersByName.get(normalized);
+        if (userId != null && !userId.isEmpty())
+            return USER_PREFIX + userId;
+        String key = EXTERNAL_PREFIX + normalized;
+        externalNames.putIfAbsent(researcherIndexOf(key), name.trim());
+        return key;
+    }
+
+    private void registerUserName(String id, String nom, String prenom) {
+        if (nom == null || prenom == null)
+            return;
+        for (String fullName : List.of(prenom + " " + nom, nom + " " + prenom)) {
+            usersByName.merge(normalize(fullName), id, (existing, added) -> existing.equals(added) ? existing : "");
+        }
+    }
+
+    /**
+     * Description des chercheurs, dans l'ordre donné (noms des utilisateurs lus en une requête)
+     */
+    private List<Map<String, Object>> describe(List<Integer> researchers) {
+        List<String> keys = new ArrayList<>();
+        List<String> externals = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int r : researchers) {
+                keys.add(researcherKeys.get(r));
+                externals.add(externalNames.get(r));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<String> userIds = keys.stream().filter(k -> k.startsWith(USER_PREFIX))
+                .map(k -> k.substring(USER_PREFIX.length())).toList();
+        Map<String, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            String key = keys.get(i);
+            if (key.startsWith(USER_PREFIX)) {
+                User user = users.get(key.substring(USER_PREFIX.length()));
+                item.put("type", "utilisateur");
+                item.put("id", key.substring(USER_PREFIX.length()));
+                item.put("nom", user != null ? user.getPrenom() + " " + user.getNom() : null);
+                item.put("institution", user != null ? user.getInstitution() : null);
+            } else {
+                item.put("type", "externe");
+                item.put("nom", externals.get(i));
+            }
+            result.add(item);
+        }
+        return result;
+    }
+
+    private Map<Long, String> projectTitles(List<Long> ids) {
+        if (ids.isEmpty())
+            return Map.of();
+        Map<Long, String> titles = new HashMap<>();
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.query(
+                "SELECT project_id, titre_projet FROM research_projects WHERE project_id IN (" + placeholders + ")",
+                rs -> {
+                    titles.put(rs.getLong(1), rs.getString(2));
+                },
+                ids.toArray());
+        return titles;
+    }
+
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB)
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+    }
+
+    private static String normalize(String value) {
+        if (value == null)
+            return "";
+        String withoutAccents = Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return withoutAccents.toLowerCase().replaceAll("[^a-z0-9]+", " ").trim();
+    }
+}
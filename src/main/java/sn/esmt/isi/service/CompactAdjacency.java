@@ -0,0 +1,132 @@
+package sn.esmt.isi.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Listes d'adjacence compactes (CSR : un tableau d'offsets + un tableau de cibles).
+ *
+ * Les lignes modifiées depuis la dernière compaction sont gardées à part (overlay) :
+ * remplacer une ligne coûte sa seule taille, et les tableaux CSR sont reconstruits
+ * quand l'overlay dépasse un huitième des lignes. Non thread-safe.
+ */
+final class CompactAdjacency {
+
+    private static final int[] EMPTY = new int[0];
+    private static final int MIN_COMPACTION = 64;
+
+    private int[] offsets = { 0 };
+    private int[] targets = EMPTY;
+    private int baseRows;
+    private int rows;
+    private final Map<Integer, int[]> overlay = new HashMap<>();
+
+    /**
+     * Construction en bloc, compactée une seule fois
+     */
+    static CompactAdjacency of(int[][] rows) {
+        CompactAdjacency adjacency = new CompactAdjacency();
+        for (int row = 0; row < rows.length; row++) {
+            adjacency.overlay.put(row, Arrays.stream(rows[row]).distinct().sorted().toArray());
+        }
+        adjacency.rows = rows.length;
+        adjacency.compact();
+        return adjacency;
+    }
+
+    int rowCount() {
+        return rows;
+    }
+
+    int degree(int row) {
+        int[] replaced = overlay.get(row);
+        if (replaced != null)
+            return replaced.length;
+        return row < baseRows ? offsets[row + 1] - offsets[row] : 0;
+    }
+
+    void forEach(int row, IntConsumer consumer) {
+        int[] replaced = overlay.get(row);
+        if (replaced != null) {
+            for (int target : replaced) {
+                consumer.accept(target);
+            }
+        } else if (row < baseRows) {
+            for (int i = offsets[row]; i < offsets[row + 1]; i++) {
+                consumer.accept(targets[i]);
+            }
+        }
+    }
+
+    int[] row(int row) {
+        int[] replaced = overlay.get(row);
+        if (replaced != null)
+            return replaced.clone();
+        return row < baseRows ? Arrays.copyOfRange(targets, offsets[row], offsets[row + 1]) : EMPTY;
+    }
+
+    boolean contains(int row, int target) {
+        int[] replaced = overlay.get(row);
+        if (replaced != null)
+            return Arrays.binarySearch(replaced, target) >= 0;
+        return row < baseRows && Arrays.binarySearch(targets, offsets[row], offsets[row + 1], target) >= 0;
+    }
+
+    /**
+     * Remplace une ligne (les cibles sont triées et dédoublonnées)
+     */
+    void replace(int row, int[] values) {
+        int[] sorted = Arrays.stream(values).distinct().sorted().toArray();
+        rows = Math.max(rows, row + 1);
+        overlay.put(row, sorted);
+        if (overlay.size() > Math.max(MIN_COMPACTION, rows / 8))
+            compact();
+    }
+
+    void add(int row, int target) {
+        if (!contains(row, target)) {
+            int[] current = row(row);
+            int[] extended = Arrays.copyOf(current, current.length + 1);
+            extended[current.length] = target;
+            replace(row, extended);
+        }
+    }
+
+    void remove(int row, int target) {
+        if (contains(row, target))
+            replace(row, Arrays.stream(row(row)).filter(t -> t != target).toArray());
+    }
+
+    /**
+     * Copie compactée et indépendante ; ne modifie pas cette instance (possible sous
+     * un simple verrou de lecture)
+     */
+    CompactAdjacency snapshot() {
+        CompactAdjacency copy = new CompactAdjacency();
+        copy.offsets = new int[rows + 1];
+        for (int row = 0; row < rows; row++) {
+            copy.offsets[row + 1] = copy.offsets[row] + degree(row);
+        }
+        copy.targets = new int[copy.offsets[rows]];
+        for (int row = 0; row < rows; row++) {
+            int[] position = { copy.offsets[row] };
+            forEach(row, target -> copy.targets[position[0]++] = target);
+        }
+        copy.rows = rows;
+        copy.baseRows = rows;
+        return copy;
+    }
+
+    /**
+     * Reconstruit les tableaux CSR en y intégrant l'overlay
+     */
+    void compact() {
+        CompactAdjacency compacted = snapshot();
+        offsets = compacted.offsets;
+        targets = compacted.targets;
+        baseRows = rows;
+        overlay.clear();
+    }
+}
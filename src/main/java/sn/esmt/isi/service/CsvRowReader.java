@@ -0,0 +1,109 @@
+package sn.esmt.isi.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecteur CSV en flux (RFC 4180 : guillemets doublés, retours à la ligne dans les
+ * champs entre guillemets). Le séparateur ; , ou tabulation est déduit de l'en-tête ;
+ * le BOM UTF-8 des exports Excel est ignoré.
+ */
+final class CsvRowReader implements ImportRowReader {
+
+    private final BufferedReader reader;
+    private char separator;
+    private int physicalLine;
+    private int recordLine;
+
+    CsvRowReader(InputStream input) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+        reader.mark(1);
+        if (reader.read() != '\uFEFF')
+            reader.reset();
+    }
+
+    @Override
+    public List<String> next() throws IOException {
+        String line = reader.readLine();
+        while (line != null && line.isBlank()) {
+            physicalLine++;
+            line = reader.readLine();
+        }
+        if (line == null)
+            return null;
+        physicalLine++;
+        recordLine = physicalLine;
+        if (separator == 0)
+            separator = detectSeparator(line);
+
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted)
+                    break;
+                // Retour à la ligne à l'intérieur d'un champ entre guillemets
+                String continuation = reader.readLine();
+                if (continuation == null)
+                    break;
+                physicalLine++;
+                cell.append('\n');
+                line = continuation;
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c == '"') {
+                    if (i < line.length() && line.charAt(i) == '"') {
+                        cell.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"' && cell.isEmpty()) {
+                quoted = true;
+            } else if (c == separator) {
+                cells.add(cell.toString().trim());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString().trim());
+        return cells;
+    }
+
+    @Override
+    public int lineNumber() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static char detectSeparator(String header) {
+        char best = ';';
+        long bestCount = 0;
+        for (char candidate : new char[] { ';', ',', '\t' }) {
+            long count = header.chars().filter(c -> c == candidate).count();
+            if (count > bestCount) {
+                best = candidate;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+}
@@ -46,6 +46,13 @@ public class CustomOAuth2User implements OAuth2User {
         return user;
     }
 
+    /**
+     * Get the OAuth2 user returned by the provider (attributes and authorities)
+     */
+    public OAuth2User getOAuth2User() {
+        return oauth2User;
+    }
+
     /**
      * Get the email from OAuth2 attributes
      */
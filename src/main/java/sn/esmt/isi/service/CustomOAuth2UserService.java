@@ -3,6 +3,7 @@ package sn.esmt.isi.service;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 import sn.esmt.isi.model.User;
@@ -13,10 +14,17 @@ import java.util.UUID;
 @Service
 public class CustomOAuth2UserService extends DefaultOAuth2UserService {
 
+    /**
+     * Code d'erreur OAuth2 d'un compte inconnu quand les inscriptions sont fermées
+     */
+    public static final String REGISTRATION_CLOSED = "registration_closed";
+
     private final UserRepository userRepository;
+    private final AppConfigService appConfigService;
 
-    public CustomOAuth2UserService(UserRepository userRepository) {
+    public CustomOAuth2UserService(UserRepository userRepository, AppConfigService appConfigService) {
         this.userRepository = userRepository;
+        this.appConfigService = appConfigService;
     }
 
     @Override
@@ -31,6 +39,10 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
 
         // Find or create user
         User user = userRepository.findByEmail(email).orElseGet(() -> {
+            // Inscriptions fermées : pas de création de compte par Google non plus
+            if (!appConfigService.getSnapshot().registrationOpen())
+                throw new OAuth2AuthenticationException(new OAuth2Error(REGISTRATION_CLOSED,
+                        "Inscriptions fermées : aucun compte pour " + email, null));
             User newUser = new User();
             newUser.setId(UUID.randomUUID().toString());
             newUser.setEmail(email);
@@ -0,0 +1,10 @@
+package sn.esmt.isi.service;
+
+import java.util.List;
+
+/**
+ * Projets entrés dans la fenêtre d'alerte avant leur échéance, regroupés par
+ * passage de l'échéancier (DeadlineService)
+ */
+public record DeadlineApproachingEvent(List<Long> projectIds, int warningDays) {
+}
@@ -0,0 +1,249 @@
+package sn.esmt.isi.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import sn.esmt.isi.model.ProjectStatus;
+import sn.esmt.isi.model.ResearchProject;
+import sn.esmt.isi.repository.ProjectRepository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Échéancier des projets : ensemble des projets en retard tenu à jour en mémoire.
+ *
+ * - les dates de fin des projets non terminés sont rangées dans une roue temporelle
+ *   graduée en jours ; un projet devient « en retard » au début du jour qui suit sa
+ *   date de fin (même règle que ResearchProject.isEnRetard)
+ * - un minuteur se réveille à chaque minuit et fait échoir les échéances du jour :
+ *   passage dans l'ensemble des retards (événement OVERDUE) et, app.deadlines.warning-days
+ *   jours avant, alerte groupée pour les gestionnaires (DeadlineApproachingEvent)
+ * - chaque écriture sur un projet, quel que soit le nœud qui l'a faite, relit sa seule
+ *   échéance (événements de la boîte d'envoi, OutboxRelay) ; un lot d'import relit
+ *   toutes les échéances ouvertes, une fois par lot relu
+ * Compter les retards est donc O(1), sans parcourir la table. Chaque nœud tient sa
+ * roue et publie lui-même ses passages en retard : OVERDUE n'est pas écrit en base.
+ */
+@Service
+public class DeadlineService implements OutboxSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineService.class);
+
+    private enum Kind {
+        OVERDUE, WARNING
+    }
+
+    private record Timer(Long projectId, Kind kind) {
+    }
+
+    private final ProjectRepository projectRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxService outboxService;
+    private volatile long loadedUpTo;
+    // Import relu dans le lot en cours (thread outbox-relay)
+    private boolean importPending;
+    private final int warningDays;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final Set<Long> overdue = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "deadline-wheel");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Protégée par son propre verrou (la roue n'est pas thread-safe)
+    private final TimingWheel<Timer> wheel;
+
+    public DeadlineService(ProjectRepository projectRepository, ApplicationEventPublisher eventPublisher,
+            OutboxService outboxService, @Value("${app.deadlines.warning-days:7}") int warningDays) {
+        this.projectRepository = projectRepository;
+        this.eventPublisher = eventPublisher;
+        this.outboxService = outboxService;
+        this.warningDays = warningDays;
+        this.wheel = new TimingWheel<>(today());
+    }
+
+    @PostConstruct
+    public void load() {
+        loadedUpTo = outboxService.loadMark();
+        trackOpenDeadlines();
+        logger.info("Échéancier : {} échéances suivies, {} projets en retard", wheel.size(), overdue.size());
+        scheduleNextTick();
+    }
+
+    public long getOverdueCount() {
+        return overdue.size();
+    }
+
+    public boolean isOverdue(Long projectId) {
+        return overdue.contains(projectId);
+    }
+
+    public Set<Long> getOverdueProjectIds() {
+        return Set.copyOf(overdue);
+    }
+
+    /**
+     * Projets en retard, du plus ancien dépassement au plus récent
+     */
+    public List<ResearchProject> getOverdueProjects() {
+        List<ResearchProject> projects = new ArrayList<>(projectRepository.findAllById(overdue));
+        projects.sort(Comparator.comparing(ResearchProject::getDateFin));
+        return projects;
+    }
+
+    @Override
+    public String subscriberName() {
+        return "echeancier";
+    }
+
+    @Override
+    public OptionalLong loadedUpTo() {
+        return OptionalLong.of(loadedUpTo);
+    }
+
+    @Override
+    public void onOutboxEvent(OutboxEvent event) {
+        if (!event.isProject())
+            return;
+        switch (event.type()) {
+            case MEMBERS, OVERDUE -> {
+                return; // l'échéance n'a pas changé
+            }
+            case IMPORTED -> {
+                importPending = true;
+                return;
+            }
+            case DELETED -> {
+                synchronized (wheel) {
+                    untrack(event.projectId());
+                }
+                return;
+            }
+            default -> {
+            }
+        }
+        List<Object[]> rows = projectRepository.findDeadlineById(event.projectId());
+        LocalDate dateFin = rows.isEmpty() ? null : (LocalDate) rows.get(0)[0];
+        boolean open = !rows.isEmpty() && rows.get(0)[1] != ProjectStatus.TERMINE;
+        synchronized (wheel) {
+            if (open && dateFin != null)
+                track(event.projectId(), dateFin);
+            else
+                untrack(event.projectId());
+        }
+    }
+
+    /**
+     * Lots d'import relus : les échéances ouvertes sont relues en une requête
+     */
+    @Override
+    public void afterOutboxBatch() {
+        if (!importPending)
+            return;
+        trackOpenDeadlines();
+        importPending = false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Roue temporelle (appelé sous le verrou de la roue)
+    // ──────────────────────────────────────────────────────────────
+
+    /**
+     * (Re)programme toutes les échéances ouvertes ; prend lui-même le verrou
+     */
+    private void trackOpenDeadlines() {
+        List<Object[]> deadlines = projectRepository.findOpenDeadlines();
+        synchronized (wheel) {
+            for (Object[] row : deadlines) {
+                track((Long) row[0], (LocalDate) row[1]);
+            }
+        }
+    }
+
+    private void track(Long projectId, LocalDate dateFin) {
+        long overdueTick = dateFin.toEpochDay() + 1;
+        if (!wheel.schedule(new Timer(projectId, Kind.OVERDUE), overdueTick)) {
+            overdue.add(projectId);
+            wheel.cancel(new Timer(projectId, Kind.WARNING));
+            return;
+        }
+        overdue.remove(projectId);
+        // Déjà dans la fenêtre d'alerte : pas d'alerte rétroactive
+        wheel.schedule(new Timer(projectId, Kind.WARNING), overdueTick - warningDays);
+    }
+
+    private void untrack(Long projectId) {
+        wheel.cancel(new Timer(projectId, Kind.OVERDUE));
+        wheel.cancel(new Timer(projectId, Kind.WARNING));
+        overdue.remove(projectId);
+    }
+
+    private void tick() {
+        List<Long> nowOverdue = new ArrayList<>();
+        List<Long> approaching = new ArrayList<>();
+        try {
+            synchronized (wheel) {
+                wheel.advanceTo(today(), timer -> {
+                    if (timer.kind() == Kind.OVERDUE) {
+                        overdue.add(timer.projectId());
+                        nowOverdue.add(timer.projectId());
+                    } else {
+                        approaching.add(timer.projectId());
+                    }
+                });
+            }
+            if (!nowOverdue.isEmpty())
+                logger.info("Échéancier : {} projet(s) passent en retard", nowOverdue.size());
+            for (Long projectId : nowOverdue) {
+                eventPublisher.publishEvent(new ProjectChangedEvent(projectId, ProjectChangedEvent.Type.OVERDUE));
+            }
+            if (!approaching.isEmpty())
+                eventPublisher.publishEvent(new DeadlineApproachingEvent(List.copyOf(approaching), warningDays));
+        } catch (RuntimeException e) {
+            logger.warn("Échéancier : passage du jour en échec", e);
+        } finally {
+            scheduleNextTick();
+        }
+    }
+
+    /**
+     * Prochain réveil à minuit (heure du serveur) ; recalculé à chaque passage pour
+     * suivre les changements d'heure
+     */
+    private void scheduleNextTick() {
+        ZonedDateTime now = ZonedDateTime.now(zone);
+        ZonedDateTime midnight = now.toLocalDate().plusDays(1).atStartOfDay(zone);
+        try {
+            scheduler.schedule(this::tick, Duration.between(now, midnight).toMillis() + 1, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // arrêt en cours
+        }
+    }
+
+    private long today() {
+        return LocalDate.now(zone).toEpochDay();
+    }
+}
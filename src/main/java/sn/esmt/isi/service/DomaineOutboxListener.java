@@ -0,0 +1,35 @@
+package sn.esmt.isi.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import sn.esmt.isi.model.Domaine;
+
+/**
+ * Écouteur JPA de l'entité Domaine : chaque écriture ajoute un événement à la boîte
+ * d'envoi, dans la même transaction, pour que les autres nœuds retirent le domaine de
+ * leur cache de second niveau (SecondLevelCacheInvalidator).
+ */
+public class DomaineOutboxListener {
+
+    private final OutboxService outboxService;
+
+    public DomaineOutboxListener(OutboxService outboxService) {
+        this.outboxService = outboxService;
+    }
+
+    @PostPersist
+    public void created(Domaine domaine) {
+        outboxService.append(OutboxEvent.DOMAINE, domaine.getId(), OutboxEvent.Type.CREATED);
+    }
+
+    @PostUpdate
+    public void updated(Domaine domaine) {
+        outboxService.append(OutboxEvent.DOMAINE, domaine.getId(), OutboxEvent.Type.UPDATED);
+    }
+
+    @PostRemove
+    public void deleted(Domaine domaine) {
+        outboxService.append(OutboxEvent.DOMAINE, domaine.getId(), OutboxEvent.Type.DELETED);
+    }
+}
@@ -0,0 +1,422 @@
+package sn.esmt.isi.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Détection des projets quasi identiques (même projet soumis deux fois, titre retouché).
+ *
+ * Texte comparé : titre + description, sans accents ni ponctuation, découpé en
+ * fragments de SHINGLE caractères. Chaque projet a une signature MinHash de
+ * BANDS × ROWS valeurs : la part de valeurs égales entre deux signatures estime la
+ * similarité de Jaccard de leurs ensembles de fragments. La signature est découpée en
+ * BANDS bandes rangées dans des seaux (LSH) : deux projets ne sont comparés que s'ils
+ * partagent au moins un seau, ce qui arrive presque sûrement au-dessus de THRESHOLD.
+ * Une vérification coûte une signature et quelques lectures de seaux, sans requête.
+ * Les écritures de tous les nœuds arrivent par la boîte d'envoi (OutboxRelay).
+ */
+@Service
+public class DuplicateDetectionService implements OutboxSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(DuplicateDetectionService.class);
+
+    private static final int SHINGLE = 5;
+    private static final int BANDS = 16;
+    private static final int ROWS = 4;
+    private static final int HASHES = BANDS * ROWS;
+    private static final double THRESHOLD = 0.6;
+    private static final int MAX_MATCHES = 5;
+
+    /**
+     * Seaux trop peuplés (textes génériques) ignorés pour les grappes
+     */
+    private static final int MAX_BUCKET = 200;
+
+    /**
+     * Serializable : transmis en attribut flash, donc stocké dans la session
+     */
+    public record Match(Long projectId, String titre, double similarite) implements java.io.Serializable {
+    }
+
+    public record ClusterMember(Long projectId, String titre, String proprietaire, LocalDateTime dateCreation) {
+    }
+
+    public record Cluster(List<ClusterMember> projets, double similariteMax) {
+    }
+
+    private record Entry(String titre, int[] signature) {
+    }
+
+    private record Pair(long a, long b) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxService outboxService;
+    private final long[] seeds = new long[HASHES];
+    private volatile long loadedUpTo;
+    // Import relu dans le lot en cours (thread outbox-relay)
+    private boolean importPending;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, Entry> entries = new HashMap<>();
+    private Map<Long, Set<Long>> buckets = new HashMap<>();
+
+    public DuplicateDetectionService(JdbcTemplate jdbcTemplate, OutboxService outboxService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.outboxService = outboxService;
+        // Graine fixe : les signatures restent comparables d'un démarrage à l'autre
+        SplittableRandom random = new SplittableRandom(0x5EED_D0B1_0DL);
+        for (int i = 0; i < HASHES; i++) {
+            seeds[i] = random.nextLong();
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        loadedUpTo = outboxService.loadMark();
+        Map<Long, Entry> loaded = new HashMap<>();
+        Map<Long, Set<Long>> loadedBuckets = new HashMap<>();
+        jdbcTemplate.query("SELECT project_id, titre_projet, description FROM research_projects",
+                rs -> {
+                    index(loaded, loadedBuckets, rs.getLong(1), rs.getString(2), rs.getString(3));
+                });
+        lock.writeLock().lock();
+        try {
+            entries = loaded;
+            buckets = loadedBuckets;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Détection des doublons : {} projets indexés, {} seaux", loaded.size(), loadedBuckets.size());
+    }
+
+    /**
+     * Projets semblables à un titre et une description (avant création par exemple)
+     */
+    public List<Match> findSimilar(String titre, String description) {
+        int[] signature = signature(titre, description);
+        if (signature == null)
+            return List.of();
+        lock.readLock().lock();
+        try {
+            return matches(signature, null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Projets semblables à un projet indexé, lui-même exclu
+     */
+    public List<Match> findSimilar(Long projectId) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(projectId);
+            return entry != null ? matches(entry.signature(), projectId) : List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Grappes de doublons probables (composantes connexes des paires au-dessus du seuil),
+     * des plus grandes aux plus petites
+     */
+    public List<Cluster> getClusters(int limit) {
+        Map<Long, Long> parent = new HashMap<>();
+        Map<Long, Double> best = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            Set<Pair> compared = new HashSet<>();
+            for (Set<Long> bucket : buckets.values()) {
+                if (bucket.size() < 2 || bucket.size() > MAX_BUCKET)
+                    continue;
+                Long[] ids = bucket.toArray(new Long[0]);
+                for (int i = 0; i < ids.length; i++) {
+                    for (int j = i + 1; j < ids.length; j++) {
+                        long a = Math.min(ids[i], ids[j]);
+                        long b = Math.max(ids[i], ids[j]);
+                        if (!compared.add(new Pair(a, b)))
+                            continue;
+                        double similarity = similarity(entries.get(a).signature(), entries.get(b).signature());
+                        if (similarity >= THRESHOLD) {
+                            Long root = union(parent, a, b);
+                            best.merge(root, similarity, Math::max);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Long, List<Long>> groups = new HashMap<>();
+        Map<Long, Double> groupBest = new HashMap<>();
+        for (Long id : parent.keySet()) {
+            Long root = find(parent, id);
+            groups.computeIfAbsent(root, r -> new ArrayList<>()).add(id);
+        }
+        best.forEach((root, similarity) -> groupBest.merge(find(parent, root), similarity, Math::max));
+
+        List<Long> roots = new ArrayList<>(groups.keySet());
+        roots.sort(Comparator.<Long>comparingInt(root -> groups.get(root).size()).reversed()
+                .thenComparing(root -> groupBest.getOrDefault(root, 0.0), Comparator.reverseOrder()));
+        roots = roots.subList(0, Math.min(limit, roots.size()));
+
+        List<Long> ids = roots.stream().flatMap(root -> groups.get(root).stream()).toList();
+        Map<Long, ClusterMember> members = describe(ids);
+        List<Cluster> clusters = new ArrayList<>();
+        for (Long root : roots) {
+            List<ClusterMember> projets = groups.get(root).stream().sorted().map(members::get)
+                    .filter(member -> member != null).toList();
+            if (projets.size() > 1)
+                clusters.add(new Cluster(projets, round(groupBest.getOrDefault(root, THRESHOLD))));
+        }
+        return clusters;
+    }
+
+    public int getIndexedCount() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String subscriberName() {
+        return "doublons";
+    }
+
+    @Override
+    public OptionalLong loadedUpTo() {
+        return OptionalLong.of(loadedUpTo);
+    }
+
+    @Override
+    public void onOutboxEvent(OutboxEvent event) {
+        if (!event.isProject() || event.type() == OutboxEvent.Type.MEMBERS
+                || event.type() == OutboxEvent.Type.OVERDUE)
+            return;
+        if (event.type() == OutboxEvent.Type.IMPORTED) {
+            importPending = true;
+            return;
+        }
+        List<String[]> rows = event.type() == OutboxEvent.Type.DELETED ? List.of()
+                : jdbcTemplate.query("SELECT titre_projet, description FROM research_projects WHERE project_id = ?",
+                        (rs, i) -> new String[] { rs.getString(1), rs.getString(2) }, event.projectId());
+        lock.writeLock().lock();
+        try {
+            remove(event.projectId());
+            for (String[] row : rows) {
+                index(entries, buckets, event.projectId(), row[0], row[1]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lots d'import relus : une seule réindexation complète, hors verrou jusqu'à l'échange
+     */
+    @Override
+    public void afterOutboxBatch() {
+        if (!importPending)
+            return;
+        load();
+        importPending = false;
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Index (appelé sous le verrou d'écriture ou sur des structures privées)
+    // ──────────────────────────────────────────────────────────────
+
+    private void index(Map<Long, Entry> target, Map<Long, Set<Long>> targetBuckets, Long projectId, String titre,
+            String description) {
+        int[] signature = signature(titre, description);
+        if (signature == null)
+            return;
+        target.put(projectId, new Entry(titre, signature));
+        for (int band = 0; band < BANDS; band++) {
+            targetBuckets.computeIfAbsent(bandKey(signature, band), key -> new HashSet<>()).add(projectId);
+        }
+    }
+
+    private void remove(Long projectId) {
+        Entry entry = entries.remove(projectId);
+        if (entry == null)
+            return;
+        for (int band = 0; band < BANDS; band++) {
+            long key = bandKey(entry.signature(), band);
+            Set<Long> bucket = buckets.get(key);
+            if (bucket != null && bucket.remove(projectId) && bucket.isEmpty())
+                buckets.remove(key);
+        }
+    }
+
+    private List<Match> matches(int[] signature, Long exclude) {
+        Set<Long> candidates = new HashSet<>();
+        for (int band = 0; band < BANDS; band++) {
+            candidates.addAll(buckets.getOrDefault(bandKey(signature, band), Set.of()));
+        }
+        candidates.remove(exclude);
+        List<Match> matches = new ArrayList<>();
+        for (Long candidate : candidates) {
+            Entry entry = entries.get(candidate);
+            double similarity = similarity(signature, entry.signature());
+            if (similarity >= THRESHOLD)
+                matches.add(new Match(candidate, entry.titre(), round(similarity)));
+        }
+        matches.sort(Comparator.comparingDouble(Match::similarite).reversed().thenComparing(Match::projectId));
+        return matches.size() > MAX_MATCHES ? matches.subList(0, MAX_MATCHES) : matches;
+    }
+
+    private Map<Long, ClusterMember> describe(List<Long> ids) {
+        Map<Long, ClusterMember> members = new LinkedHashMap<>();
+        if (ids.isEmpty())
+            return members;
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.query("SELECT p.project_id, p.titre_projet, u.prenom, u.nom, u.email, p.date_creation " +
+                "FROM research_projects p LEFT JOIN users u ON u.id = p.proprietaire_id " +
+                "WHERE p.project_id IN (" + placeholders + ")",
+                rs -> {
+                    String proprietaire = rs.getString(3) != null && rs.getString(4) != null
+                            ? rs.getString(3) + " " + rs.getString(4) : rs.getString(5);
+                    Timestamp date = rs.getTimestamp(6);
+                    members.put(rs.getLong(1), new ClusterMember(rs.getLong(1), rs.getString(2), proprietaire,
+                            date != null ? date.toLocalDateTime() : null));
+                },
+                ids.toArray());
+        return members;
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // MinHash
+    // ──────────────────────────────────────────────────────────────
+
+    /**
+     * Signature MinHash du texte normalisé, null s'il est vide
+     */
+    private int[] signature(String titre, String description) {
+        String text = normalize((titre != null ? titre : "") + " " + (description != null ? description : ""));
+        if (text.isEmpty())
+            return null;
+        int[] signature = new int[HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        int last = Math.max(1, text.length() - SHINGLE + 1);
+        for (int start = 0; start < last; start++) {
+            int end = Math.min(text.length(), start + SHINGLE);
+            long shingle = 0;
+            for (int i = start; i < end; i++) {
+                shingle = shingle * 31 + text.charAt(i);
+            }
+            for (int k = 0; k < HASHES; k++) {
+                int value = (int) (mix(shingle ^ seeds[k]) >>> 32);
+                if (value < signature[k])
+                    signature[k] = value;
+            }
+        }
+        return signature;
+    }
+
+    private static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[i] == b[i])
+                equal++;
+        }
+        return (double) equal / HASHES;
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band + 1;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            key = mix(key * 0x9E3779B97F4A7C15L + signature[i]);
+        }
+        return key;
+    }
+
+    /**
+     * Finaliseur de SplitMix64 : bonne dispersion des bits pour un coût de quelques cycles
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    /**
+     * Minuscules sans accents, toute suite d'autres caractères réduite à une espace
+     * (un seul passage, appelé à chaque vérification)
+     */
+    private static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder builder = new StringBuilder(decomposed.length());
+        boolean space = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = Character.toLowerCase(decomposed.charAt(i));
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                builder.append(c);
+                space = false;
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK && !space) {
+                builder.append(' ');
+                space = true;
+            }
+        }
+        int length = builder.length();
+        return space && length > 0 ? builder.substring(0, length - 1) : builder.toString();
+    }
+
+    private static Long union(Map<Long, Long> parent, long a, long b) {
+        Long rootA = find(parent, a);
+        Long rootB = find(parent, b);
+        if (!rootA.equals(rootB))
+            parent.put(rootB, rootA);
+        return rootA;
+    }
+
+    private static Long find(Map<Long, Long> parent, Long id) {
+        Long root = parent.computeIfAbsent(id, i -> i);
+        while (!root.equals(parent.get(root))) {
+            root = parent.get(root);
+        }
+        // Compression du chemin
+        Long current = id;
+        while (!current.equals(root)) {
+            Long next = parent.get(current);
+            parent.put(current, root);
+            current = next;
+        }
+        return root;
+    }
+
+    private static double round(double similarity) {
+        return Math.round(similarity * 100) / 100.0;
+    }
+}
@@ -0,0 +1,112 @@
+package sn.esmt.isi.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cache du HTML rendu des blocs statistiques (templates/fragments/statistiques.html).
+ *
+ * Clé : template + fragments + rôle ; une entrée est valable tant que la version des
+ * données n'a pas changé (ProjectVersionService : toute écriture sur un projet ou un
+ * utilisateur, quel que soit le nœud) et au plus MAX_AGE, pour les compteurs qui ne
+ * dépendent que de la date (retards, mois courant).
+ * En cas de succès, ni les requêtes statistiques ni le rendu ne sont exécutés :
+ * la page insère le HTML tel quel (th:utext).
+ */
+@Service
+public class FragmentCacheService {
+
+    private static final long MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    /**
+     * Juste après une écriture, les statistiques peuvent venir d'un réplica pas encore
+     * à jour : le rendu n'est alors gardé que jusqu'à la fin de cette fenêtre
+     */
+    private static final long RECENT_CHANGE_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private record Entry(long version, long expiresAt, Map<String, String> html) {
+    }
+
+    private final ITemplateEngine templateEngine;
+    private final ProjectVersionService versionService;
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+
+    public FragmentCacheService(ITemplateEngine templateEngine, ProjectVersionService versionService) {
+        this.templateEngine = templateEngine;
+        this.versionService = versionService;
+    }
+
+    /**
+     * HTML des fragments demandés, rendus avec les variables fournies en cas d'absence
+     * ou d'expiration de l'entrée
+     *
+     * @return nom du fragment → HTML, à exposer au modèle sous « fragments »
+     */
+    public Map<String, String> render(String template, List<String> fragments,
+            Supplier<Map<String, Object>> variables) {
+        String key = template + "::" + String.join(",", fragments) + "|" + currentRole();
+        long version = versionService.getTableVersion();
+
+        Entry entry = cache.get(key);
+        if (entry != null && entry.version() == version && System.nanoTime() - entry.expiresAt() < 0)
+            return entry.html();
+
+        IContext context = newContext(variables.get());
+        Map<String, String> html = new LinkedHashMap<>();
+        for (String fragment : fragments) {
+            html.put(fragment, templateEngine.process(template, Set.of(fragment), context));
+        }
+        long sinceChange = versionService.nanosSinceLastChange();
+        long maxAge = sinceChange < RECENT_CHANGE_NANOS ? RECENT_CHANGE_NANOS - sinceChange : MAX_AGE_NANOS;
+        cache.put(key, new Entry(version, System.nanoTime() + maxAge, html));
+        return html;
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    /**
+     * Contexte web si l'appel vient d'une requête (nécessaire aux liens @{...})
+     */
+    private static IContext newContext(Map<String, Object> variables) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && attributes.getResponse() != null) {
+            HttpServletRequest request = attributes.getRequest();
+            HttpServletResponse response = attributes.getResponse();
+            return new WebContext(JakartaServletWebApplication.buildApplication(request.getServletContext())
+                    .buildExchange(request, response), LocaleContextHolder.getLocale(), variables);
+        }
+        return new Context(LocaleContextHolder.getLocale(), variables);
+    }
+
+    private static String currentRole() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null)
+            return "";
+        for (GrantedAuthority authority : auth.getAuthorities()) {
+            return authority.getAuthority();
+        }
+        return "";
+    }
+}
@@ -0,0 +1,119 @@
+package sn.esmt.isi.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Répertoire géographique local des institutions (app.map.gazetteer, CSV
+ * « nom;alias|alias;latitude;longitude »).
+ *
+ * Un nom d'institution saisi est rapproché après normalisation (casse, accents,
+ * ponctuation) : égalité avec un nom ou un alias, sinon alias contenu comme mot
+ * entier, le plus long d'abord. Les rapprochements sont mémorisés.
+ */
+@Service
+public class GazetteerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GazetteerService.class);
+
+    public record GeoPoint(String institution, double latitude, double longitude) {
+    }
+
+    private record Alias(String normalized, GeoPoint point) {
+    }
+
+    private final Resource source;
+    private final Map<String, GeoPoint> exact = new HashMap<>();
+    private final List<Alias> aliases = new ArrayList<>();
+    private final Map<String, Optional<GeoPoint>> resolved = new ConcurrentHashMap<>();
+
+    public GazetteerService(@Value("${app.map.gazetteer:classpath:gazetteer/institutions.csv}") Resource source) {
+        this.source = source;
+    }
+
+    @PostConstruct
+    public void load() {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(source.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#"))
+                    continue;
+                String[] columns = line.split(";");
+                if (columns.length != 4) {
+                    logger.warn("Répertoire géographique : ligne {} ignorée (4 colonnes attendues)", lineNumber);
+                    continue;
+                }
+                GeoPoint point = new GeoPoint(columns[0].trim(), Double.parseDouble(columns[2].trim()),
+                        Double.parseDouble(columns[3].trim()));
+                register(columns[0], point);
+                for (String alias : columns[1].split("\\|")) {
+                    register(alias, point);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Répertoire géographique illisible : " + source, e);
+        }
+        aliases.sort(Comparator.comparingInt((Alias alias) -> alias.normalized().length()).reversed());
+        logger.info("Répertoire géographique : {} noms chargés", exact.size());
+    }
+
+    /**
+     * Coordonnées de l'institution saisie, si elle figure dans le répertoire
+     */
+    public Optional<GeoPoint> locate(String institution) {
+        if (institution == null || institution.isBlank())
+            return Optional.empty();
+        return resolved.computeIfAbsent(institution, this::match);
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    private void register(String name, GeoPoint point) {
+        String normalized = normalize(name);
+        if (normalized.isEmpty())
+            return;
+        exact.putIfAbsent(normalized, point);
+        aliases.add(new Alias(normalized, point));
+    }
+
+    private Optional<GeoPoint> match(String institution) {
+        String normalized = normalize(institution);
+        GeoPoint point = exact.get(normalized);
+        if (point != null)
+            return Optional.of(point);
+        String padded = " " + normalized + " ";
+        for (Alias alias : aliases) {
+            if (padded.contains(" " + alias.normalized() + " "))
+                return Optional.of(alias.point());
+        }
+        return Optional.empty();
+    }
+
+    private static String normalize(String value) {
+        String withoutAccents = Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return withoutAccents.toLowerCase().replaceAll("[^a-z0-9]+", " ").trim();
+    }
+}
@@ -0,0 +1,22 @@
+package sn.esmt.isi.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Lecture ligne à ligne d'un fichier tabulaire importé (CSV ou XLSX) :
+ * la première ligne renvoyée est l'en-tête
+ */
+interface ImportRowReader extends Closeable {
+
+    /**
+     * Cellules de la ligne suivante, null en fin de fichier
+     */
+    List<String> next() throws IOException;
+
+    /**
+     * Numéro (à partir de 1) de la dernière ligne renvoyée, tel qu'affiché par un tableur
+     */
+    int lineNumber();
+}
@@ -0,0 +1,364 @@
+package sn.esmt.isi.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Flux temps réel (SSE) des dashboards : un diffuseur unique partagé par tous les abonnés.
+ *
+ * - à l'abonnement : instantané complet des compteurs (événement « stats »)
+ * - après chaque écriture validée, sur n'importe quel nœud (boîte d'envoi, OutboxRelay) :
+ *   événement « project » (id + type), puis, regroupés sur une courte fenêtre, seuls les
+ *   compteurs qui ont changé (« stats »)
+ * - import en masse : un événement « import » (nombre de projets des lots relus sur la
+ *   fenêtre) au lieu d'un par projet
+ * - passage en retard (OVERDUE) : publié localement par l'échéancier de chaque nœud
+ * - échéances proches : événement « deadlines » (nombre + ids), une fois par jour
+ * - chaque abonné a une file bornée, vidée par un thread d'envoi qui lui est propre le
+ *   temps de l'envoi : un client lent n'en bloque pas d'autre ; si sa file déborde, elle
+ *   est vidée et il reçoit à nouveau l'instantané complet (« resync »)
+ * - un envoi bloqué plus de SEND_TIMEOUT_MILLIS (tampon TCP plein) désabonne le client :
+ *   plus rien ne lui est envoyé et sa place est libérée
+ * - le nombre d'abonnés est plafonné (app.live.max-subscribers), de façon atomique
+ */
+@Service
+public class LiveStatsBroadcaster implements OutboxSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveStatsBroadcaster.class);
+
+    private static final int QUEUE_CAPACITY = 32;
+    private static final long DEBOUNCE_MILLIS = 300;
+    private static final long HEARTBEAT_SECONDS = 25;
+    private static final long EMITTER_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final long SEND_TIMEOUT_MILLIS = 10_000;
+    private static final long SEND_CHECK_SECONDS = 2;
+
+    private record Event(String name, Object data) {
+    }
+
+    private final StatisticsService statisticsService;
+    private final TransactionTemplate primaryRead;
+    private final long startedAt;
+    private final int maxSubscribers;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService senders;
+    private final ScheduledExecutorService scheduler = Executors
+            .newSingleThreadScheduledExecutor(daemonThreads("live-stats-timer"));
+    private final AtomicBoolean recomputeScheduled = new AtomicBoolean();
+    // Projets importés depuis le dernier événement « import »
+    private final AtomicInteger pendingImported = new AtomicInteger();
+
+    private volatile Map<String, Object> lastStats;
+
+    public LiveStatsBroadcaster(StatisticsService statisticsService, PlatformTransactionManager transactionManager,
+            OutboxService outboxService, @Value("${app.live.max-subscribers:200}") int maxSubscribers) {
+        this.statisticsService = statisticsService;
+        // Aucun état à rattraper : seuls les événements postérieurs au démarrage sont diffusés
+        this.startedAt = outboxService.loadMark();
+        // Transaction en lecture-écriture : les compteurs sont relus sur la base principale,
+        // un réplica pourrait ne pas encore contenir l'écriture qui a déclenché le calcul
+        this.primaryRead = new TransactionTemplate(transactionManager);
+        this.maxSubscribers = maxSubscribers;
+        // Au plus un envoi en cours par abonné ; la marge couvre les envois bloqués
+        // d'abonnés déjà évincés, le temps que Tomcat abandonne l'écriture
+        this.senders = new ThreadPoolExecutor(2, 2 * maxSubscribers + 2, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), daemonThreads("live-stats-send"));
+        scheduler.scheduleAtFixedRate(this::heartbeat, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::evictStuckSubscribers, SEND_CHECK_SECONDS, SEND_CHECK_SECONDS,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Ouvre un abonnement ; renvoie null si le plafond d'abonnés est atteint
+     *
+     * @param projectEvents true pour recevoir aussi les événements « project »
+     */
+    public SseEmitter subscribe(boolean projectEvents) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+        Subscriber subscriber = new Subscriber(emitter, projectEvents);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        subscribers.add(subscriber);
+
+        subscriber.resync = true;
+        schedule(subscriber);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @Override
+    public String subscriberName() {
+        return "flux-temps-reel";
+    }
+
+    @Override
+    public OptionalLong loadedUpTo() {
+        return OptionalLong.of(startedAt);
+    }
+
+    /**
+     * Écriture sur un projet, depuis n'importe quel nœud ; les lots d'import sont
+     * cumulés jusqu'au prochain recalcul des compteurs (un seul événement « import »)
+     */
+    @Override
+    public void onOutboxEvent(OutboxEvent event) {
+        if (!event.isProject() || event.type() == OutboxEvent.Type.OVERDUE)
+            return;
+        if (subscribers.isEmpty()) {
+            lastStats = null; // recalculé au prochain abonnement
+            return;
+        }
+        if (event.type() == OutboxEvent.Type.IMPORTED)
+            pendingImported.addAndGet(Integer.parseInt(event.agregatId()));
+        else
+            broadcastProjectEvent(new Event("project", Map.of("id", event.projectId(), "type", event.type())));
+        if (recomputeScheduled.compareAndSet(false, true))
+            scheduler.schedule(this::publishStatsDelta, DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Passage en retard, publié à minuit par l'échéancier de ce nœud
+     */
+    @EventListener
+    public void onProjectChanged(ProjectChangedEvent event) {
+        if (event.type() != ProjectChangedEvent.Type.OVERDUE)
+            return; // les écritures arrivent par la boîte d'envoi
+        if (subscribers.isEmpty()) {
+            lastStats = null;
+            return;
+        }
+        broadcastProjectEvent(new Event("project", Map.of("id", event.projectId(), "type", event.type())));
+        if (recomputeScheduled.compareAndSet(false, true))
+            scheduler.schedule(this::publishStatsDelta, DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Alerte groupée des échéances proches (événement « deadlines »)
+     */
+    @EventListener
+    public void onDeadlinesApproaching(DeadlineApproachingEvent event) {
+        broadcastProjectEvent(new Event("deadlines",
+                Map.of("count", event.projectIds().size(), "ids", event.projectIds(), "days", event.warningDays())));
+    }
+
+    /**
+     * Ferme les flux dès l'arrêt du contexte : sinon l'arrêt gracieux du serveur
+     * attendrait la fin de ces requêtes qui ne se terminent jamais d'elles-mêmes
+     */
+    @EventListener(ContextClosedEvent.class)
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            unsubscribe(subscriber);
+            subscriber.emitter.complete();
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Diffusion
+    // ──────────────────────────────────────────────────────────────
+
+    private void publishStatsDelta() {
+        recomputeScheduled.set(false);
+        int imported = pendingImported.getAndSet(0);
+        if (imported > 0)
+            broadcastProjectEvent(new Event("import", Map.of("count", imported)));
+        try {
+            Map<String, Object> previous = lastStats;
+            Map<String, Object> current = primaryRead.execute(status -> statisticsService.getLiveStats());
+            lastStats = current;
+
+            Map<String, Object> delta = new LinkedHashMap<>();
+            current.forEach((key, value) -> {
+                if (previous == null || !Objects.equals(previous.get(key), value))
+                    delta.put(key, value);
+            });
+            if (delta.isEmpty())
+                return;
+
+            Event statsEvent = new Event("stats", delta);
+            for (Subscriber subscriber : subscribers) {
+                offer(subscriber, statsEvent);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Flux temps réel : calcul des statistiques impossible", e);
+        }
+    }
+
+    /**
+     * Événement réservé aux abonnés qui suivent les projets
+     */
+    private void broadcastProjectEvent(Event event) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.projectEvents)
+                offer(subscriber, event);
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            offer(subscriber, new Event(null, "ping"));
+        }
+    }
+
+    /**
+     * Désabonne les clients dont un envoi est bloqué depuis plus de SEND_TIMEOUT_MILLIS.
+     * L'émetteur n'est pas fermé ici (il attend la fin de l'envoi en cours) : le thread
+     * d'envoi le fermera quand l'écriture aboutira ou échouera.
+     */
+    private void evictStuckSubscribers() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long started = subscriber.sendStarted;
+            if (started != 0 && now - started > TimeUnit.MILLISECONDS.toNanos(SEND_TIMEOUT_MILLIS)) {
+                unsubscribe(subscriber);
+                logger.debug("Flux temps réel : client désabonné, envoi bloqué depuis plus de {} ms",
+                        SEND_TIMEOUT_MILLIS);
+            }
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscriber.closed = true;
+        if (subscribers.remove(subscriber))
+            subscriberCount.decrementAndGet();
+    }
+
+    private void offer(Subscriber subscriber, Event event) {
+        if (!subscriber.queue.offer(event)) {
+            // Client trop lent : on abandonne ses événements en attente et on le resynchronise
+            subscriber.queue.clear();
+            subscriber.resync = true;
+        }
+        schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.closed)
+            return;
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RuntimeException e) {
+                subscriber.draining.set(false); // arrêt en cours
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            if (subscriber.resync) {
+                subscriber.resync = false;
+                send(subscriber, new Event("stats", currentStats()));
+            }
+            Event event;
+            while (!subscriber.closed && (event = subscriber.queue.poll()) != null) {
+                send(subscriber, event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            unsubscribe(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        if (subscriber.closed) {
+            // Évincé pendant un envoi trop long
+            subscriber.emitter.complete();
+            return;
+        }
+        // Un événement a pu arriver entre la fin de la boucle et la libération du drapeau
+        if (!subscriber.queue.isEmpty() || subscriber.resync)
+            schedule(subscriber);
+    }
+
+    private void send(Subscriber subscriber, Event event) throws IOException {
+        subscriber.sendStarted = System.nanoTime();
+        try {
+            if (event.name() == null) {
+                subscriber.emitter.send(SseEmitter.event().comment((String) event.data()));
+            } else {
+                subscriber.emitter.send(SseEmitter.event().name(event.name()).data(event.data(),
+                        MediaType.APPLICATION_JSON));
+            }
+        } finally {
+            subscriber.sendStarted = 0;
+        }
+    }
+
+    private Map<String, Object> currentStats() {
+        Map<String, Object> stats = lastStats;
+        if (stats == null) {
+            stats = primaryRead.execute(status -> statisticsService.getLiveStats());
+            lastStats = stats;
+        }
+        return new HashMap<>(stats);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Subscriber {
+        final SseEmitter emitter;
+        final boolean projectEvents;
+        final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean resync;
+        volatile boolean closed;
+        // Début de l'envoi en cours (System.nanoTime), 0 si aucun
+        volatile long sendStarted;
+
+        Subscriber(SseEmitter emitter, boolean projectEvents) {
+            this.emitter = emitter;
+            this.projectEvents = projectEvents;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package sn.esmt.isi.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Événement relu dans la boîte d'envoi (table outbox_events) et remis aux
+ * {@link OutboxSubscriber} par OutboxRelay, dans l'ordre des ids
+ */
+public record OutboxEvent(long id, LocalDateTime date, String agregatType, String agregatId, Type type) {
+
+    public static final String PROJET = "PROJET";
+    public static final String UTILISATEUR = "UTILISATEUR";
+    public static final String CONFIGURATION = "CONFIGURATION";
+    public static final String DOMAINE = "DOMAINE";
+
+    /**
+     * IMPORTED : un lot d'import en masse (agregatId = nombre de projets créés).
+     * OVERDUE n'est plus écrit : chaque nœud le calcule avec son échéancier.
+     */
+    public enum Type {
+        CREATED, UPDATED, DELETED, MEMBERS, OVERDUE, IMPORTED
+    }
+
+    public boolean isProject() {
+        return PROJET.equals(agregatType);
+    }
+
+    public boolean isUser() {
+        return UTILISATEUR.equals(agregatType);
+    }
+
+    public boolean isConfiguration() {
+        return CONFIGURATION.equals(agregatType);
+    }
+
+    public boolean isDomaine() {
+        return DOMAINE.equals(agregatType);
+    }
+
+    /**
+     * Identifiant du projet concerné (événement PROJET autre qu'IMPORTED)
+     */
+    public Long projectId() {
+        return Long.valueOf(agregatId);
+    }
+}
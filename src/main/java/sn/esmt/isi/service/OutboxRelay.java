@@ -0,0 +1,253 @@
+package sn.esmt.isi.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relais de la boîte d'envoi : relit outbox_events par lots, par id croissant, et
+ * remet chaque événement aux {@link OutboxSubscriber} (au moins une fois, dans l'ordre).
+ *
+ * - chaque abonné a sa position, avancée après chaque lot : un abonné en échec est
+ *   retenté seul, sans bloquer ni faire rejouer les autres
+ * - un abonné en mémoire (loadedUpTo()) repart à chaque démarrage du repère lu avant
+ *   son chargement ; sa position reste locale au nœud. La plus basse de ces positions
+ *   (appliedUpTo()) date l'état en mémoire du nœud : elle sert d'ETag aux réponses
+ *   calculées depuis les index en mémoire
+ * - un abonné durable a sa position en base (outbox_consumers) ; nouveau, il part de la
+ *   fin de la boîte d'envoi
+ * - les ids AUTO_INCREMENT sont attribués à l'INSERT mais visibles à la validation :
+ *   un trou dans la suite peut être une transaction encore ouverte. Le relais s'y
+ *   arrête jusqu'à ce qu'il comble ou dépasse GAP_TIMEOUT (id perdu par un rollback)
+ * - les événements lus par tous les abonnés sont purgés après la durée de rétention
+ */
+@Service
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final int BATCH_SIZE = 200;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long GAP_TIMEOUT_MILLIS = OutboxService.OPEN_TRANSACTION_MILLIS;
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<OutboxSubscriber> subscriberProvider;
+    private final int retentionDays;
+    private final ScheduledExecutorService relay = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // État propre au thread outbox-relay
+    private List<OutboxSubscriber> subscribers;
+    private final Map<String, Long> positions = new LinkedHashMap<>();
+    // Abonnés dont la position est enregistrée dans outbox_consumers
+    private final Set<String> durable = new HashSet<>();
+    private final Map<String, Integer> failures = new HashMap<>();
+    private final Map<String, Integer> batchFailures = new HashMap<>();
+    // Premier id manquant → instant où le trou a été vu
+    private final Map<Long, Long> gaps = new HashMap<>();
+    // Fin de la suite continue d'événements déjà relus (trous tranchés)
+    private long published;
+    private long lastPurge;
+    // Plus basse position des abonnés en mémoire ; -1 avant le premier passage
+    private volatile long applied = -1;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, ObjectProvider<OutboxSubscriber> subscriberProvider,
+            @Value("${app.outbox.poll-millis:500}") long pollMillis,
+            @Value("${app.outbox.retention-days:7}") int retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.subscriberProvider = subscriberProvider;
+        this.retentionDays = retentionDays;
+        relay.scheduleWithFixedDelay(this::poll, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        relay.shutdown();
+        try {
+            relay.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Dernier événement appliqué par tous les abonnés en mémoire de ce nœud
+     * (-1 tant que le relais n'a pas démarré)
+     */
+    public long appliedUpTo() {
+        return applied;
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Relais (thread outbox-relay)
+    // ──────────────────────────────────────────────────────────────
+
+    private synchronized void poll() {
+        try {
+            if (subscribers == null)
+                start();
+            while (true) {
+                long from = Math.min(published, lowestPosition());
+                List<OutboxEvent> batch = readReady(from);
+                if (batch.isEmpty())
+                    break;
+                long before = lowestPosition();
+                for (OutboxSubscriber subscriber : subscribers) {
+                    deliver(subscriber, batch);
+                }
+                if (batch.size() < BATCH_SIZE || lowestPosition() == before)
+                    break;
+            }
+            applied = positions.entrySet().stream()
+                    .filter(entry -> !durable.contains(entry.getKey()))
+                    .mapToLong(Map.Entry::getValue).min().orElse(published);
+            if (System.nanoTime() - lastPurge > PURGE_INTERVAL_NANOS)
+                purge();
+        } catch (RuntimeException e) {
+            logger.warn("Boîte d'envoi : relève impossible, nouvel essai au prochain passage", e);
+        }
+    }
+
+    private void start() {
+        Long head = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM outbox_events", Long.class);
+        List<OutboxSubscriber> found = subscriberProvider.orderedStream().toList();
+        for (OutboxSubscriber subscriber : found) {
+            String name = subscriber.subscriberName();
+            OptionalLong loaded = subscriber.loadedUpTo();
+            if (loaded.isPresent()) {
+                positions.put(name, loaded.getAsLong());
+                continue;
+            }
+            durable.add(name);
+            List<Long> saved = jdbcTemplate.queryForList(
+                    "SELECT dernier_evenement FROM outbox_consumers WHERE consommateur = ?", Long.class, name);
+            if (saved.isEmpty()) {
+                jdbcTemplate.update("INSERT INTO outbox_consumers (consommateur, dernier_evenement, date_maj) " +
+                        "VALUES (?, ?, ?)", name, head, Timestamp.valueOf(LocalDateTime.now()));
+                positions.put(name, head);
+            } else {
+                positions.put(name, saved.get(0));
+            }
+        }
+        subscribers = found;
+        // Le retard éventuel est relu avec la règle des trous (les anciens sont fermés d'emblée)
+        published = positions.values().stream().mapToLong(Long::longValue).min().orElse(head);
+        lastPurge = System.nanoTime();
+        logger.info("Boîte d'envoi : {} abonné(s), dernier événement {}", subscribers.size(), head);
+    }
+
+    /**
+     * Événements d'id > from, jusqu'au premier trou encore ouvert au-delà de published
+     */
+    private List<OutboxEvent> readReady(long from) {
+        List<OutboxEvent> events = jdbcTemplate.query("SELECT id, date_creation, agregat_type, agregat_id, type " +
+                "FROM outbox_events WHERE id > ? ORDER BY id LIMIT ?", (rs, i) -> toEvent(rs), from, BATCH_SIZE);
+        List<OutboxEvent> ready = new ArrayList<>(events.size());
+        long expected = published + 1;
+        long now = System.currentTimeMillis();
+        LocalDateTime settled = LocalDateTime.now().minusNanos(GAP_TIMEOUT_MILLIS * 1_000_000);
+        for (OutboxEvent event : events) {
+            if (event.id() > published) {
+                if (event.id() != expected) {
+                    // Trou fermé s'il est vu depuis assez longtemps, ou si l'événement suivant est ancien
+                    long seen = gaps.computeIfAbsent(expected, id -> now);
+                    if (now - seen < GAP_TIMEOUT_MILLIS && event.date().isAfter(settled))
+                        break;
+                }
+                expected = event.id() + 1;
+                published = event.id();
+            }
+            ready.add(event);
+        }
+        gaps.keySet().removeIf(id -> id <= published);
+        return ready;
+    }
+
+    private void deliver(OutboxSubscriber subscriber, List<OutboxEvent> batch) {
+        String name = subscriber.subscriberName();
+        long position = positions.get(name);
+        long reached = position;
+        for (OutboxEvent event : batch) {
+            if (event.id() <= reached)
+                continue;
+            try {
+                subscriber.onOutboxEvent(event);
+            } catch (RuntimeException e) {
+                int attempts = failures.merge(name, 1, Integer::sum);
+                if (attempts < MAX_ATTEMPTS) {
+                    logger.warn("Boîte d'envoi : échec de {} sur l'événement {} (essai {}/{})", name, event.id(),
+                            attempts, MAX_ATTEMPTS, e);
+                    break;
+                }
+                logger.error("Boîte d'envoi : événement {} abandonné par {} après {} essais", event.id(), name,
+                        attempts, e);
+            }
+            failures.remove(name);
+            reached = event.id();
+        }
+        if (reached != position) {
+            try {
+                subscriber.afterOutboxBatch();
+            } catch (RuntimeException e) {
+                int attempts = batchFailures.merge(name, 1, Integer::sum);
+                if (attempts < MAX_ATTEMPTS) {
+                    logger.warn("Boîte d'envoi : fin de lot en échec pour {}, lot rejoué (essai {}/{})", name,
+                            attempts, MAX_ATTEMPTS, e);
+                    return;
+                }
+                logger.error("Boîte d'envoi : fin de lot abandonnée par {} après {} essais", name, attempts, e);
+            }
+            batchFailures.remove(name);
+            if (durable.contains(name))
+                jdbcTemplate.update("UPDATE outbox_consumers SET dernier_evenement = ?, date_maj = ? " +
+                        "WHERE consommateur = ?", reached, Timestamp.valueOf(LocalDateTime.now()), name);
+            positions.put(name, reached);
+        }
+    }
+
+    private void purge() {
+        lastPurge = System.nanoTime();
+        long upTo = Math.min(published, lowestPosition());
+        int deleted = jdbcTemplate.update("DELETE FROM outbox_events WHERE id <= ? AND date_creation < ?", upTo,
+                Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted > 0)
+            logger.info("Boîte d'envoi : {} événement(s) purgé(s)", deleted);
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    private long lowestPosition() {
+        return positions.values().stream().mapToLong(Long::longValue).min().orElse(published);
+    }
+
+    private static OutboxEvent toEvent(ResultSet rs) throws SQLException {
+        return new OutboxEvent(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime(), rs.getString(3),
+                rs.getString(4), OutboxEvent.Type.valueOf(rs.getString(5)));
+    }
+}
@@ -0,0 +1,64 @@
+package sn.esmt.isi.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Écriture dans la boîte d'envoi (table outbox_events).
+ *
+ * L'INSERT part sur la connexion de la transaction en cours : l'événement est validé
+ * ou annulé avec l'écriture qu'il décrit. Les écritures sur les projets arrivent par
+ * ProjectChangedEvent (écouteur synchrone, donc dans la transaction de l'émetteur),
+ * celles sur les utilisateurs et les domaines par les écouteurs JPA (UserOutboxListener,
+ * DomaineOutboxListener), un import en masse par un événement IMPORTED par lot.
+ */
+@Service
+public class OutboxService {
+
+    private static final String INSERT = "INSERT INTO outbox_events (date_creation, agregat_type, agregat_id, type) " +
+            "VALUES (?, ?, ?, ?)";
+
+    /**
+     * Au-delà, une transaction qui a inséré un événement est tenue pour terminée
+     * (validée ou annulée)
+     */
+    static final long OPEN_TRANSACTION_MILLIS = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void append(String agregatType, Object agregatId, OutboxEvent.Type type) {
+        jdbcTemplate.update(INSERT, Timestamp.valueOf(LocalDateTime.now()), agregatType, String.valueOf(agregatId),
+                type.name());
+    }
+
+    /**
+     * Repère à lire juste avant de charger un état en mémoire depuis la base : dernier
+     * événement dont l'écriture est forcément visible au chargement. Les événements plus
+     * récents que OPEN_TRANSACTION_MILLIS (transaction peut-être encore ouverte) sont
+     * laissés au relais, quitte à rejouer une écriture déjà chargée.
+     */
+    public long loadMark() {
+        Timestamp settled = Timestamp.valueOf(LocalDateTime.now().minusNanos(OPEN_TRANSACTION_MILLIS * 1_000_000));
+        Long mark = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM outbox_events " +
+                "WHERE date_creation < ?", Long.class, settled);
+        return mark != null ? mark : 0;
+    }
+
+    /**
+     * OVERDUE reste local : chaque nœud le publie à minuit depuis son propre échéancier
+     */
+    @EventListener
+    public void onProjectChanged(ProjectChangedEvent event) {
+        if (event.type() == ProjectChangedEvent.Type.OVERDUE)
+            return;
+        append(OutboxEvent.PROJET, event.projectId(), OutboxEvent.Type.valueOf(event.type().name()));
+    }
+}
@@ -0,0 +1,41 @@
+package sn.esmt.isi.service;
+
+import java.util.OptionalLong;
+
+/**
+ * Abonné aux événements de la boîte d'envoi.
+ *
+ * Livraison au moins une fois, dans l'ordre des ids : un événement peut être
+ * redonné après un arrêt brutal (la position n'est enregistrée qu'après chaque lot),
+ * le traitement doit donc être idempotent. Une exception fait retenter l'événement
+ * au passage suivant, sans livrer les suivants.
+ *
+ * Un abonné dont l'état est en mémoire (propre à chaque nœud) indique par loadedUpTo()
+ * d'où le relais doit repartir : sa position n'est pas partagée en base, où un autre
+ * nœud la ferait avancer à sa place.
+ */
+public interface OutboxSubscriber {
+
+    /**
+     * Nom stable : clé de la position de lecture en base (outbox_consumers)
+     */
+    String subscriberName();
+
+    /**
+     * Dernier événement déjà reflété par l'état chargé en mémoire (OutboxService.loadMark(),
+     * lu avant le chargement) ; vide si la position est enregistrée en base
+     */
+    default OptionalLong loadedUpTo() {
+        return OptionalLong.empty();
+    }
+
+    void onOutboxEvent(OutboxEvent event);
+
+    /**
+     * Fin d'un lot livré, avant l'avancée de la position : permet de regrouper un
+     * traitement coûteux demandé par plusieurs événements du lot (rechargement après
+     * import). Une exception fait rejouer le lot.
+     */
+    default void afterOutboxBatch() {
+    }
+}
@@ -0,0 +1,14 @@
+package sn.esmt.isi.service;
+
+/**
+ * Événement publié à chaque écriture sur un projet (données ou membres), ainsi
+ * qu'au passage de son échéance (OVERDUE, publié par DeadlineService).
+ * OutboxService l'ajoute à la boîte d'envoi, d'où les index en mémoire de chaque nœud
+ * le reçoivent ; OVERDUE, calculé par chaque nœud, reste local.
+ */
+public record ProjectChangedEvent(Long projectId, Type type) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, MEMBERS, OVERDUE
+    }
+}
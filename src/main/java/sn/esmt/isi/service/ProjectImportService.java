@@ -0,0 +1,538 @@
+package sn.esmt.isi.service;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sn.esmt.isi.model.Domaine;
+import sn.esmt.isi.model.ExternalParticipant;
+import sn.esmt.isi.model.ProjectStatus;
+import sn.esmt.isi.model.ResearchProject;
+import sn.esmt.isi.repository.DomaineRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Import en masse de projets depuis un fichier CSV ou XLSX.
+ *
+ * - le fichier est lu en flux, par lots de CHUNK_SIZE lignes
+ * - chaque lot est validé en parallèle ; propriétaires, membres et domaines sont
+ *   résolus dans des tables chargées une seule fois (pas de requête par ligne)
+ * - les lignes valides d'un lot sont écrites par INSERT JDBC groupés, dans une
+ *   transaction par lot : un lot rejeté par la base n'annule pas les précédents
+ * - le rapport liste les lignes refusées avec leur numéro dans le fichier
+ * Chaque lot écrit ajoute un seul événement IMPORTED à la boîte d'envoi, dans sa
+ * transaction : les index en mémoire de chaque nœud se rechargent une fois par lot
+ * relu, au lieu d'un traitement par projet.
+ */
+@Service
+public class ProjectImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectImportService.class);
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final String DEFAULT_DOMAINE = "Non spécifié";
+    private static final LocalDate EXCEL_EPOCH = LocalDate.of(1899, 12, 30);
+    private static final DateTimeFormatter FRENCH_DATE = DateTimeFormatter.ofPattern("d/M/uuuu");
+
+    public enum Format {
+        CSV, XLSX
+    }
+
+    /**
+     * Ligne refusée : numéro de ligne dans le fichier (en-tête = 1) et motif
+     */
+    public record RowError(int ligne, String message) {
+    }
+
+    /**
+     * Bilan d'un import ; {@code erreurs} est tronquée à MAX_REPORTED_ERRORS entrées
+     */
+    public record ImportReport(int lignes, int importes, int rejetees, List<RowError> erreurs,
+            boolean simulation, long dureeMs) {
+    }
+
+    private enum Column {
+        TITRE("titre", "titreprojet", "titreduprojet"),
+        DESCRIPTION("description"),
+        DOMAINE("domaine", "domainerecherche", "domainederecherche"),
+        STATUT("statut", "statutprojet"),
+        AVANCEMENT("avancement", "niveauavancement", "niveaudavancement"),
+        PROPRIETAIRE("proprietaire", "emailproprietaire", "proprietaireemail", "email"),
+        RESPONSABLE("responsable", "responsableprojet", "responsableduprojet"),
+        INSTITUTION("institution"),
+        BUDGET("budget", "budgetestime"),
+        DATE_DEBUT("datedebut", "datededebut", "debut"),
+        DATE_FIN("datefin", "datedefin", "fin"),
+        PARTICIPANTS("participants", "autresparticipants", "participantsexternes"),
+        MEMBRES("membres", "membresinternes");
+
+        private final String[] aliases;
+
+        Column(String... aliases) {
+            this.aliases = aliases;
+        }
+    }
+
+    private record RawRow(int ligne, List<String> cells) {
+    }
+
+    private record ProjectRow(int ligne, String titre, String description, String domaine, ProjectStatus statut,
+            int avancement, String proprietaireId, String responsable, String institution, Double budget,
+            LocalDate dateDebut, LocalDate dateFin, List<String> participants, Set<String> membres) {
+    }
+
+    /**
+     * Résultat de la validation d'une ligne : projet ou motif de refus
+     */
+    private record Validated(ProjectRow row, RowError error) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DomaineRepository domaineRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxRows;
+    private final long maxXlsxBytes;
+    private final long maxSharedChars;
+    private final EntityManager entityManager;
+    private final OutboxService outboxService;
+
+    public ProjectImportService(JdbcTemplate jdbcTemplate, DomaineRepository domaineRepository,
+            PlatformTransactionManager transactionManager,
+            EntityManager entityManager, OutboxService outboxService, @Value("${app.import.max-rows:50000}") int maxRows,
+            @Value("${app.import.max-xlsx-bytes:52428800}") long maxXlsxBytes,
+            @Value("${app.import.max-shared-chars:20000000}") long maxSharedChars) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.domaineRepository = domaineRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.outboxService = outboxService;
+        this.maxRows = maxRows;
+        this.maxXlsxBytes = maxXlsxBytes;
+        this.maxSharedChars = maxSharedChars;
+    }
+
+    /**
+     * Importe les projets du fichier ; en simulation, les lignes sont seulement validées
+     *
+     * @throws IllegalArgumentException fichier vide, illisible, trop volumineux ou colonnes obligatoires absentes
+     */
+    public ImportReport importProjects(InputStream input, Format format, boolean simulation) {
+        long start = System.nanoTime();
+        List<Long> imported = new ArrayList<>();
+        try (ImportRowReader reader = format == Format.XLSX ? new XlsxRowReader(input, maxXlsxBytes, maxSharedChars) : new CsvRowReader(input)) {
+            List<String> header = reader.next();
+            if (header == null)
+                throw new IllegalArgumentException("Fichier vide");
+            Map<Column, Integer> columns = mapHeader(header);
+
+            Map<String, String> users = new HashMap<>();
+            jdbcTemplate.query("SELECT id, email FROM users",
+                    rs -> {
+                        users.put(rs.getString(2).trim().toLowerCase(Locale.ROOT), rs.getString(1));
+                    });
+            Map<String, Long> domaines = new ConcurrentHashMap<>();
+            jdbcTemplate.query("SELECT id, nom FROM domaines",
+                    rs -> {
+                        domaines.put(rs.getString(2).trim().toLowerCase(Locale.ROOT), rs.getLong(1));
+                    });
+
+            int lignes = 0;
+            int rejetees = 0;
+            List<RowError> erreurs = new ArrayList<>();
+            List<RawRow> chunk = new ArrayList<>(CHUNK_SIZE);
+            boolean truncated = false;
+            List<String> cells;
+            while ((cells = reader.next()) != null) {
+                if (lignes == maxRows) {
+                    truncated = true;
+                    break;
+                }
+                lignes++;
+                chunk.add(new RawRow(reader.lineNumber(), cells));
+                if (chunk.size() == CHUNK_SIZE || lignes == maxRows) {
+                    rejetees += processChunk(chunk, columns, users, domaines, simulation, imported, erreurs);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty())
+                rejetees += processChunk(chunk, columns, users, domaines, simulation, imported, erreurs);
+            if (truncated)
+                addError(erreurs, new RowError(reader.lineNumber(),
+                        "Limite de " + maxRows + " lignes atteinte : la suite du fichier est ignorée"));
+
+            long dureeMs = (System.nanoTime() - start) / 1_000_000;
+            logger.info("Import {} : {} lignes, {} projets créés, {} refusées en {} ms{}", format, lignes,
+                    imported.size(), rejetees, dureeMs, simulation ? " (simulation)" : "");
+            int importes = simulation ? lignes - rejetees : imported.size();
+            return new ImportReport(lignes, importes, rejetees, erreurs, simulation, dureeMs);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Fichier illisible : " + e.getMessage(), e);
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Traitement d'un lot
+    // ──────────────────────────────────────────────────────────────
+
+    /**
+     * Valide puis écrit un lot ; renvoie le nombre de lignes refusées
+     */
+    private int processChunk(List<RawRow> chunk, Map<Column, Integer> columns, Map<String, String> users,
+            Map<String, Long> domaines, boolean simulation, List<Long> imported, List<RowError> erreurs) {
+        List<Validated> validated = chunk.parallelStream()
+                .map(raw -> validate(raw, columns, users))
+                .toList();
+
+        int rejetees = 0;
+        List<ProjectRow> rows = new ArrayList<>(validated.size());
+        for (Validated v : validated) {
+            if (v.error() != null) {
+                rejetees++;
+                addError(erreurs, v.error());
+            } else {
+                rows.add(v.row());
+            }
+        }
+        if (simulation || rows.isEmpty())
+            return rejetees;
+
+        try {
+            // Domaines créés par ce lot : connus des lots suivants seulement s'il est validé
+            Map<String, Long> created = new HashMap<>();
+            List<Long> ids = transactionTemplate.execute(status -> write(rows, domaines, created));
+            domaines.putAll(created);
+            imported.addAll(ids);
+        } catch (RuntimeException e) {
+            Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+            logger.warn("Import : lot des lignes {} à {} rejeté par la base", rows.get(0).ligne(),
+                    rows.get(rows.size() - 1).ligne(), e);
+            for (ProjectRow row : rows) {
+                addError(erreurs, new RowError(row.ligne(), "Lot rejeté par la base : " + cause.getMessage()));
+            }
+            rejetees += rows.size();
+        }
+        return rejetees;
+    }
+
+    /**
+     * Écrit les projets du lot, puis leurs participants externes, leurs membres et
+     * leurs événements de création (boîte d'envoi)
+     *
+     * @return identifiants générés, dans l'ordre des lignes
+     */
+    private List<Long> write(List<ProjectRow> rows, Map<String, Long> domaines, Map<String, Long> created) {
+        Long[] domaineIds = new Long[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            domaineIds[i] = resolveDomaine(rows.get(i).domaine(), domaines, created);
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        // Identifiants pris dans le même générateur par blocs que Hibernate (id_generators)
+        List<Long> ids = allocateIds(ResearchProject.class, rows.size());
+        List<Object[]> projects = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            ProjectRow row = rows.get(i);
+            projects.add(new Object[] { ids.get(i), row.titre(), row.description(), domaineIds[i],
+                    row.statut().ordinal(), row.avancement(), row.proprietaireId(), row.responsable(),
+                    row.institution(), row.budget(), toSqlDate(row.dateDebut()), toSqlDate(row.dateFin()), now,
+                    now });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO research_projects (project_id, titre_projet, description, domaine_id, " +
+                "statut, niveau_avancement, proprietaire_id, responsable_projet, institution, budget_estime, " +
+                "date_debut, date_fin, date_creation, date_modification) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", projects,
+                new int[] { Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.BIGINT, Types.TINYINT, Types.INTEGER,
+                        Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.DOUBLE, Types.DATE, Types.DATE,
+                        Types.TIMESTAMP, Types.TIMESTAMP });
+
+        List<Object[]> participants = new ArrayList<>();
+        List<Object[]> members = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            ProjectRow row = rows.get(i);
+            for (int ordre = 0; ordre < row.participants().size(); ordre++) {
+                participants.add(new Object[] { null, ids.get(i), row.participants().get(ordre), ordre });
+            }
+            for (String userId : row.membres()) {
+                members.add(new Object[] { ids.get(i), userId });
+            }
+        }
+        if (!participants.isEmpty()) {
+            List<Long> participantIds = allocateIds(ExternalParticipant.class, participants.size());
+            for (int i = 0; i < participants.size(); i++) {
+                participants.get(i)[0] = participantIds.get(i);
+            }
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO project_external_participants (id, project_id, nom, ordre) VALUES (?, ?, ?, ?)",
+                    participants);
+        }
+        if (!members.isEmpty())
+            jdbcTemplate.batchUpdate("INSERT INTO project_members (project_id, user_id) VALUES (?, ?)", members);
+        outboxService.append(OutboxEvent.PROJET, ids.size(), OutboxEvent.Type.IMPORTED);
+        return ids;
+    }
+
+    /**
+     * Réserve des identifiants auprès du générateur Hibernate de l'entité : les blocs
+     * sont partagés avec les insertions faites par JPA, sans risque de collision
+     */
+    private List<Long> allocateIds(Class<?> entityClass, int count) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        BeforeExecutionGenerator generator = (BeforeExecutionGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(entityClass).getGenerator();
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(((Number) generator.generate(session, null, null, EventType.INSERT)).longValue());
+        }
+        return ids;
+    }
+
+    /**
+     * Identifiant du domaine nommé, créé au premier usage (même règle que ProjectService) ;
+     * un domaine créé est noté dans {@code created}, pas dans la table partagée
+     */
+    private Long resolveDomaine(String nom, Map<String, Long> domaines, Map<String, Long> created) {
+        String key = nom.toLowerCase(Locale.ROOT);
+        Long id = domaines.get(key);
+        if (id == null)
+            id = created.get(key);
+        if (id == null) {
+            Domaine domaine = new Domaine();
+            domaine.setNom(nom);
+            id = domaineRepository.save(domaine).getId();
+            created.put(key, id);
+        }
+        return id;
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Validation d'une ligne (appelée en parallèle : aucune écriture partagée)
+    // ──────────────────────────────────────────────────────────────
+
+    private Validated validate(RawRow raw, Map<Column, Integer> columns, Map<String, String> users) {
+        List<String> problems = new ArrayList<>();
+        Map<Column, String> values = new EnumMap<>(Column.class);
+        columns.forEach((column, index) -> {
+            String value = index < raw.cells().size() ? raw.cells().get(index).trim() : "";
+            if (!value.isEmpty())
+                values.put(column, value);
+        });
+
+        String titre = values.get(Column.TITRE);
+        if (titre == null)
+            problems.add("titre manquant");
+        else if (titre.length() > 255)
+            problems.add("titre trop long (255 caractères max)");
+
+        String description = values.get(Column.DESCRIPTION);
+        if (description != null && description.length() > 2000)
+            problems.add("description trop longue (2000 caractères max)");
+
+        String email = values.get(Column.PROPRIETAIRE);
+        String proprietaireId = null;
+        if (email == null) {
+            problems.add("email du propriétaire manquant");
+        } else {
+            proprietaireId = users.get(email.toLowerCase(Locale.ROOT));
+            if (proprietaireId == null)
+                problems.add("propriétaire inconnu : " + email);
+        }
+
+        String domaine = values.getOrDefault(Column.DOMAINE, DEFAULT_DOMAINE);
+        if (domaine.length() > 255)
+            problems.add("domaine trop long (255 caractères max)");
+
+        ProjectStatus statut = ProjectStatus.EN_COURS;
+        if (values.containsKey(Column.STATUT)) {
+            statut = parseStatut(values.get(Column.STATUT));
+            if (statut == null)
+                problems.add("statut inconnu : " + values.get(Column.STATUT));
+        }
+
+        int avancement = 0;
+        if (values.containsKey(Column.AVANCEMENT)) {
+            Double parsed = parseNumber(values.get(Column.AVANCEMENT).replace("%", ""));
+            if (parsed == null || parsed < 0 || parsed > 100)
+                problems.add("avancement invalide (0 à 100) : " + values.get(Column.AVANCEMENT));
+            else
+                avancement = (int) Math.round(parsed);
+        }
+
+        Double budget = null;
+        if (values.containsKey(Column.BUDGET)) {
+            budget = parseNumber(values.get(Column.BUDGET));
+            if (budget == null || budget < 0)
+                problems.add("budget invalide : " + values.get(Column.BUDGET));
+        }
+
+        LocalDate dateDebut = parseDateColumn(values, Column.DATE_DEBUT, "date de début", problems);
+        LocalDate dateFin = parseDateColumn(values, Column.DATE_FIN, "date de fin", problems);
+        if (dateDebut != null && dateFin != null && dateFin.isBefore(dateDebut))
+            problems.add("date de fin antérieure à la date de début");
+
+        String responsable = values.get(Column.RESPONSABLE);
+        if (responsable != null && responsable.length() > 255)
+            problems.add("responsable trop long (255 caractères max)");
+        String institution = values.get(Column.INSTITUTION);
+        if (institution != null && institution.length() > 255)
+            problems.add("institution trop longue (255 caractères max)");
+
+        List<String> participants = new ArrayList<>();
+        if (values.containsKey(Column.PARTICIPANTS)) {
+            for (String nom : values.get(Column.PARTICIPANTS).split("[;|\\n]")) {
+                String trimmed = nom.trim();
+                if (!trimmed.isEmpty())
+                    participants.add(trimmed.length() > 255 ? trimmed.substring(0, 255) : trimmed);
+            }
+        }
+
+        Set<String> membres = new LinkedHashSet<>();
+        if (values.containsKey(Column.MEMBRES)) {
+            for (String membre : values.get(Column.MEMBRES).split("[;|,\\s]+")) {
+                if (membre.isEmpty())
+                    continue;
+                String userId = users.get(membre.toLowerCase(Locale.ROOT));
+                if (userId == null)
+                    problems.add("membre inconnu : " + membre);
+                else
+                    membres.add(userId);
+            }
+        }
+
+        if (!problems.isEmpty())
+            return new Validated(null, new RowError(raw.ligne(), String.join(" ; ", problems)));
+        return new Validated(new ProjectRow(raw.ligne(), titre, description, domaine, statut, avancement,
+                proprietaireId, responsable, institution, budget, dateDebut, dateFin, participants, membres), null);
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    private static Map<Column, Integer> mapHeader(List<String> header) {
+        Map<String, Column> aliases = new HashMap<>();
+        for (Column column : Column.values()) {
+            for (String alias : column.aliases) {
+                aliases.put(alias, column);
+            }
+        }
+        Map<Column, Integer> columns = new EnumMap<>(Column.class);
+        for (int i = 0; i < header.size(); i++) {
+            Column column = aliases.get(normalize(header.get(i)).replace(" ", ""));
+            if (column != null)
+                columns.putIfAbsent(column, i);
+        }
+        if (!columns.containsKey(Column.TITRE) || !columns.containsKey(Column.PROPRIETAIRE))
+            throw new IllegalArgumentException(
+                    "Colonnes obligatoires absentes de l'en-tête : « titre » et « proprietaire » (email)");
+        return columns;
+    }
+
+    /**
+     * Code (EN_COURS) ou libellé (« En cours », « terminé »), sans tenir compte des accents
+     */
+    private static ProjectStatus parseStatut(String value) {
+        String code = normalize(value).replace(' ', '_').toUpperCase(Locale.ROOT);
+        for (ProjectStatus status : ProjectStatus.values()) {
+            if (status.name().equals(code))
+                return status;
+        }
+        return null;
+    }
+
+    /**
+     * Nombre au format français ou anglais (« 1 500 000,50 », « 1500000.5 »)
+     */
+    private static Double parseNumber(String value) {
+        String compact = value.replaceAll("[\\s\\u00A0\\u202F]", "").replaceAll("(?i)(fcfa|xof|€)$", "");
+        int commas = compact.length() - compact.replace(",", "").length();
+        int dots = compact.length() - compact.replace(".", "").length();
+        if (commas > 0 && dots > 0)
+            compact = compact.lastIndexOf(',') > compact.lastIndexOf('.')
+                    ? compact.replace(".", "").replace(',', '.')
+                    : compact.replace(",", "");
+        else if (commas > 1)
+            compact = compact.replace(",", "");
+        else if (dots > 1)
+            compact = compact.replace(".", "");
+        else
+            compact = compact.replace(',', '.');
+        try {
+            double parsed = Double.parseDouble(compact);
+            return Double.isFinite(parsed) ? parsed : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static LocalDate parseDateColumn(Map<Column, String> values, Column column, String label,
+            List<String> problems) {
+        String value = values.get(column);
+        if (value == null)
+            return null;
+        LocalDate date = parseDate(value);
+        if (date == null)
+            problems.add(label + " invalide : " + value);
+        return date;
+    }
+
+    /**
+     * Date ISO (2025-01-31), française (31/01/2025) ou numéro de série Excel
+     */
+    private static LocalDate parseDate(String value) {
+        try {
+            if (value.matches("\\d{4}-\\d{2}-\\d{2}.*"))
+                return LocalDate.parse(value.substring(0, 10));
+            if (value.contains("/"))
+                return LocalDate.parse(value, FRENCH_DATE);
+            if (value.matches("\\d+(\\.0+)?")) {
+                long serial = Long.parseLong(value.replaceAll("\\.0+$", ""));
+                return serial > 0 && serial < 2_958_466 ? EXCEL_EPOCH.plusDays(serial) : null;
+            }
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
+        return null;
+    }
+
+    private static String normalize(String value) {
+        String withoutAccents = Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return withoutAccents.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", " ").trim();
+    }
+
+    private static Date toSqlDate(LocalDate date) {
+        return date != null ? Date.valueOf(date) : null;
+    }
+
+    private static void addError(List<RowError> erreurs, RowError error) {
+        if (erreurs.size() < MAX_REPORTED_ERRORS)
+            erreurs.add(error);
+    }
+}
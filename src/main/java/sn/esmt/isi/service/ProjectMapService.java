@@ -0,0 +1,287 @@
+package sn.esmt.isi.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import sn.esmt.isi.model.ProjectStatus;
+import sn.esmt.isi.repository.ProjectRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index spatial des projets pour la carte (tuiles « slippy map » z/x/y, Web Mercator).
+ *
+ * Chaque projet est placé aux coordonnées de son institution (GazetteerService).
+ * Pour chaque zoom, les projets sont pré-agrégés en grappes : une grappe par case
+ * d'une grille 8×8 découpant la tuile. Les cases sont rangées par code de Morton
+ * (quadkey : bits x et y entrelacés), de sorte que les cases d'une tuile forment un
+ * intervalle contigu : lire une tuile est une simple lecture d'intervalle.
+ * Chaque grappe garde ses compteurs par (domaine, statut) pour les filtres.
+ *
+ * Une écriture sur un projet retire son ancienne contribution et ajoute la nouvelle,
+ * une grappe par zoom ; les écritures de tous les nœuds arrivent par la boîte d'envoi
+ * (OutboxRelay), un lot d'import replace tous les projets une fois par lot relu.
+ */
+@Service
+public class ProjectMapService implements OutboxSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectMapService.class);
+
+    public static final int MAX_ZOOM = 18;
+
+    /**
+     * Grille de 2^CELL_BITS × 2^CELL_BITS grappes par tuile
+     */
+    private static final int CELL_BITS = 3;
+
+    private record Placement(double latitude, double longitude, long finestX, long finestY,
+            Long domaineId, ProjectStatus statut) {
+    }
+
+    private record BucketKey(Long domaineId, ProjectStatus statut) {
+    }
+
+    /**
+     * Compteur d'une grappe pour un couple (domaine, statut), avec la somme des
+     * coordonnées pour le barycentre
+     */
+    private static final class Bucket {
+        int count;
+        double sumLatitude;
+        double sumLongitude;
+    }
+
+    private final ProjectRepository projectRepository;
+    private final GazetteerService gazetteerService;
+    private final OutboxService outboxService;
+    private volatile long loadedUpTo;
+    // Import relu dans le lot en cours (thread outbox-relay)
+    private boolean importPending;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Placement> placements = new HashMap<>();
+    @SuppressWarnings("unchecked")
+    private final NavigableMap<Long, Map<BucketKey, Bucket>>[] clusters = new NavigableMap[MAX_ZOOM + 1];
+    private final Map<Long, Boolean> unlocated = new ConcurrentHashMap<>();
+
+    public ProjectMapService(ProjectRepository projectRepository, GazetteerService gazetteerService,
+            OutboxService outboxService) {
+        this.projectRepository = projectRepository;
+        this.gazetteerService = gazetteerService;
+        this.outboxService = outboxService;
+        for (int z = 0; z <= MAX_ZOOM; z++) {
+            clusters[z] = new TreeMap<>();
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        loadedUpTo = outboxService.loadMark();
+        List<Object[]> rows = projectRepository.findMapEntries();
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : rows) {
+                place((Long) row[0], (String) row[1], (Long) row[2], (ProjectStatus) row[3]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Carte : {} projets localisés, {} institutions non reconnues", placements.size(),
+                unlocated.size());
+    }
+
+    /**
+     * Grappes d'une tuile, éventuellement filtrées par domaine et statut
+     *
+     * @return liste de grappes {lat, lon, count} (barycentre des projets retenus)
+     */
+    public List<Map<String, Object>> getTile(int z, long x, long y, Long domaineId, ProjectStatus statut) {
+        long tile = morton(x, y);
+        long from = tile << (2 * CELL_BITS);
+        long to = (tile + 1) << (2 * CELL_BITS);
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Map<BucketKey, Bucket> cluster : clusters[z].subMap(from, to).values()) {
+                int count = 0;
+                double sumLatitude = 0;
+                double sumLongitude = 0;
+                for (Map.Entry<BucketKey, Bucket> entry : cluster.entrySet()) {
+                    BucketKey key = entry.getKey();
+                    if ((domaineId == null || domaineId.equals(key.domaineId()))
+                            && (statut == null || statut == key.statut())) {
+                        count += entry.getValue().count;
+                        sumLatitude += entry.getValue().sumLatitude;
+                        sumLongitude += entry.getValue().sumLongitude;
+                    }
+                }
+                if (count > 0) {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("lat", sumLatitude / count);
+                    item.put("lon", sumLongitude / count);
+                    item.put("count", count);
+                    result.add(item);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    public int getLocatedCount() {
+        lock.readLock().lock();
+        try {
+            return placements.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getUnlocatedCount() {
+        return unlocated.size();
+    }
+
+    @Override
+    public String subscriberName() {
+        return "carte";
+    }
+
+    @Override
+    public OptionalLong loadedUpTo() {
+        return OptionalLong.of(loadedUpTo);
+    }
+
+    @Override
+    public void onOutboxEvent(OutboxEvent event) {
+        if (!event.isProject() || event.type() == OutboxEvent.Type.MEMBERS
+                || event.type() == OutboxEvent.Type.OVERDUE)
+            return;
+        if (event.type() == OutboxEvent.Type.IMPORTED) {
+            importPending = true;
+            return;
+        }
+        List<Object[]> rows = event.type() == OutboxEvent.Type.DELETED ? List.of()
+                : projectRepository.findMapEntryById(event.projectId());
+        lock.writeLock().lock();
+        try {
+            remove(event.projectId());
+            if (!rows.isEmpty()) {
+                Object[] row = rows.get(0);
+                place(event.projectId(), (String) row[1], (Long) row[2], (ProjectStatus) row[3]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lots d'import relus : les projets pas encore placés le sont en une seule lecture
+     * (un import ne fait que créer des projets)
+     */
+    @Override
+    public void afterOutboxBatch() {
+        if (!importPending)
+            return;
+        List<Object[]> rows = projectRepository.findMapEntries();
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : rows) {
+                Long projectId = (Long) row[0];
+                if (!placements.containsKey(projectId) && !unlocated.containsKey(projectId))
+                    place(projectId, (String) row[1], (Long) row[2], (ProjectStatus) row[3]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        importPending = false;
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Agrégation (appelé sous le verrou d'écriture)
+    // ──────────────────────────────────────────────────────────────
+
+    private void place(Long projectId, String institution, Long domaineId, ProjectStatus statut) {
+        GazetteerService.GeoPoint point = gazetteerService.locate(institution).orElse(null);
+        if (point == null) {
+            if (institution != null && !institution.isBlank())
+                unlocated.put(projectId, Boolean.TRUE);
+            return;
+        }
+        int finest = MAX_ZOOM + CELL_BITS;
+        Placement placement = new Placement(point.latitude(), point.longitude(),
+                tileX(point.longitude(), finest), tileY(point.latitude(), finest), domaineId, statut);
+        placements.put(projectId, placement);
+        update(placement, 1);
+    }
+
+    private void remove(Long projectId) {
+        unlocated.remove(projectId);
+        Placement placement = placements.remove(projectId);
+        if (placement != null)
+            update(placement, -1);
+    }
+
+    private void update(Placement placement, int delta) {
+        BucketKey key = new BucketKey(placement.domaineId(), placement.statut());
+        for (int z = 0; z <= MAX_ZOOM; z++) {
+            int shift = MAX_ZOOM - z;
+            long cell = morton(placement.finestX() >>> shift, placement.finestY() >>> shift);
+            Map<BucketKey, Bucket> cluster = clusters[z].computeIfAbsent(cell, c -> new HashMap<>());
+            Bucket bucket = cluster.computeIfAbsent(key, k -> new Bucket());
+            bucket.count += delta;
+            bucket.sumLatitude += delta * placement.latitude();
+            bucket.sumLongitude += delta * placement.longitude();
+            if (bucket.count == 0) {
+                cluster.remove(key);
+                if (cluster.isEmpty())
+                    clusters[z].remove(cell);
+            }
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Projection Web Mercator et codes de Morton
+    // ──────────────────────────────────────────────────────────────
+
+    private static long tileX(double longitude, int level) {
+        long n = 1L << level;
+        return Math.min(n - 1, Math.max(0, (long) Math.floor((longitude + 180.0) / 360.0 * n)));
+    }
+
+    private static long tileY(double latitude, int level) {
+        long n = 1L << level;
+        double radians = Math.toRadians(latitude);
+        double y = (1.0 - Math.log(Math.tan(radians) + 1.0 / Math.cos(radians)) / Math.PI) / 2.0;
+        return Math.min(n - 1, Math.max(0, (long) Math.floor(y * n)));
+    }
+
+    /**
+     * Entrelace les bits de x (positions paires) et de y (positions impaires)
+     */
+    private static long morton(long x, long y) {
+        return spread(x) | (spread(y) << 1);
+    }
+
+    private static long spread(long value) {
+        long v = value & 0xFFFFFFFFL;
+        v = (v | (v << 16)) & 0x0000FFFF0000FFFFL;
+        v = (v | (v << 8)) & 0x00FF00FF00FF00FFL;
+        v = (v | (v << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        v = (v | (v << 2)) & 0x3333333333333333L;
+        v = (v | (v << 1)) & 0x5555555555555555L;
+        return v;
+    }
+}
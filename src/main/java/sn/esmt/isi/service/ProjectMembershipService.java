@@ -0,0 +1,170 @@
+package sn.esmt.isi.service;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Gestion des membres internes d'un projet (table project_members).
+ *
+ * Les écritures passent directement par JDBC : on calcule la différence entre les
+ * membres actuels et les membres voulus, puis on envoie uniquement les INSERT et
+ * DELETE nécessaires, par lots, sans recharger ni réécrire le projet.
+ */
+@Service
+public class ProjectMembershipService {
+
+    /**
+     * Résultat d'une mise à jour : nombre de liens ajoutés et retirés
+     */
+    public record MembershipChange(int ajoutes, int retires) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProjectMembershipService(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate,
+            ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Identifiants des membres actuels d'un projet
+     */
+    public Set<String> getMemberIds(Long projectId) {
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT user_id FROM project_members WHERE project_id = ?", String.class, projectId));
+    }
+
+    /**
+     * Remplace l'ensemble des membres d'un projet par la liste donnée
+     */
+    @Transactional
+    public MembershipChange replaceMembers(Long projectId, Collection<String> userIds) {
+        requireProject(projectId);
+        Set<String> current = getMemberIds(projectId);
+        Set<String> desired = existingUserIds(userIds, null);
+        return applyDiff(projectId, current, desired);
+    }
+
+    /**
+     * Remplace les membres ayant un rôle donné, sans toucher aux autres membres.
+     * Utilisé par les pages d'affectation, qui n'affichent que les candidats.
+     */
+    @Transactional
+    public MembershipChange replaceMembersWithRole(Long projectId, String role, Collection<String> userIds) {
+        requireProject(projectId);
+        Set<String> current = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT pm.user_id FROM project_members pm JOIN users u ON u.id = pm.user_id " +
+                        "WHERE pm.project_id = ? AND u.role = ?",
+                String.class, projectId, role));
+        Set<String> desired = existingUserIds(userIds, role);
+        return applyDiff(projectId, current, desired);
+    }
+
+    /**
+     * Affecte un utilisateur à plusieurs projets en un seul appel
+     * (les projets inexistants ou déjà affectés sont ignorés)
+     *
+     * @return nombre de projets auxquels l'utilisateur a été ajouté
+     */
+    @Transactional
+    public int addUserToProjects(String userId, Collection<Long> projectIds) {
+        if (projectIds == null || projectIds.isEmpty())
+            return 0;
+        if (existingUserIds(List.of(userId), null).isEmpty())
+            throw new EntityNotFoundException("Utilisateur introuvable : " + userId);
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("ids", new LinkedHashSet<>(projectIds));
+
+        List<Long> toAdd = namedJdbcTemplate.queryForList(
+                "SELECT p.project_id FROM research_projects p WHERE p.project_id IN (:ids) " +
+                        "AND NOT EXISTS (SELECT 1 FROM project_members pm " +
+                        "WHERE pm.project_id = p.project_id AND pm.user_id = :userId)",
+                params, Long.class);
+        if (toAdd.isEmpty())
+            return 0;
+
+        List<Object[]> rows = new ArrayList<>(toAdd.size());
+        for (Long projectId : toAdd) {
+            rows.add(new Object[] { projectId, userId });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO project_members (project_id, user_id) VALUES (?, ?)", rows);
+        namedJdbcTemplate.update(
+                "UPDATE research_projects SET date_modification = :now WHERE project_id IN (:ids)",
+                new MapSqlParameterSource("ids", toAdd).addValue("now", Timestamp.valueOf(LocalDateTime.now())));
+        for (Long projectId : toAdd) {
+            eventPublisher.publishEvent(new ProjectChangedEvent(projectId, ProjectChangedEvent.Type.MEMBERS));
+        }
+        return toAdd.size();
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    private MembershipChange applyDiff(Long projectId, Set<String> current, Set<String> desired) {
+        List<Object[]> inserts = new ArrayList<>();
+        for (String userId : desired) {
+            if (!current.contains(userId))
+                inserts.add(new Object[] { projectId, userId });
+        }
+        List<Object[]> deletes = new ArrayList<>();
+        for (String userId : current) {
+            if (!desired.contains(userId))
+                deletes.add(new Object[] { projectId, userId });
+        }
+
+        if (!deletes.isEmpty())
+            jdbcTemplate.batchUpdate("DELETE FROM project_members WHERE project_id = ? AND user_id = ?", deletes);
+        if (!inserts.isEmpty())
+            jdbcTemplate.batchUpdate("INSERT INTO project_members (project_id, user_id) VALUES (?, ?)", inserts);
+        if (!inserts.isEmpty() || !deletes.isEmpty()) {
+            jdbcTemplate.update("UPDATE research_projects SET date_modification = ? WHERE project_id = ?",
+                    Timestamp.valueOf(LocalDateTime.now()), projectId);
+            eventPublisher.publishEvent(new ProjectChangedEvent(projectId, ProjectChangedEvent.Type.MEMBERS));
+        }
+
+        return new MembershipChange(inserts.size(), deletes.size());
+    }
+
+    /**
+     * Filtre les identifiants sur les utilisateurs existants (et du rôle donné si non null)
+     */
+    private Set<String> existingUserIds(Collection<String> userIds, String role) {
+        if (userIds == null || userIds.isEmpty())
+            return new HashSet<>();
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", new LinkedHashSet<>(userIds));
+        String sql = "SELECT id FROM users WHERE id IN (:ids)";
+        if (role != null) {
+            sql += " AND role = :role";
+            params.addValue("role", role);
+        }
+        return new HashSet<>(namedJdbcTemplate.queryForList(sql, params, String.class));
+    }
+
+    private void requireProject(Long projectId) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM research_projects WHERE project_id = ?", Integer.class, projectId);
+        if (count == null || count == 0)
+            throw new EntityNotFoundException("Projet non trouvé : " + projectId);
+    }
+}
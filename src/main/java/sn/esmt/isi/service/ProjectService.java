@@ -1,6 +1,7 @@
 package sn.esmt.isi.service;
 
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -8,25 +9,38 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import sn.esmt.isi.model.Domaine;
+import sn.esmt.isi.model.ProjectStatus;
 import sn.esmt.isi.model.ResearchProject;
 import sn.esmt.isi.model.User;
+import sn.esmt.isi.repository.DomaineRepository;
 import sn.esmt.isi.repository.ProjectRepository;
 import sn.esmt.isi.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class ProjectService {
 
     private final ProjectRepository projectRepository;
     private final UserRepository userRepository;
+    private final DomaineRepository domaineRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AuditService auditService;
 
-    public ProjectService(ProjectRepository projectRepository, UserRepository userRepository) {
+    public ProjectService(ProjectRepository projectRepository, UserRepository userRepository,
+            DomaineRepository domaineRepository, ApplicationEventPublisher eventPublisher,
+            AuditService auditService) {
         this.projectRepository = projectRepository;
         this.userRepository = userRepository;
+        this.domaineRepository = domaineRepository;
+        this.eventPublisher = eventPublisher;
+        this.auditService = auditService;
     }
 
     // ──────────────────────────────────────────────────────────────
@@ -66,6 +80,7 @@ public class ProjectService {
     // CANDIDAT — projets du propriétaire connecté uniquement
     // ──────────────────────────────────────────────────────────────
 
+    @Transactional(readOnly = true)
     public List<ResearchProject> getMyProjects() {
         User user = getRequiredCurrentUser();
         return projectRepository.findByProprietaireEmail(user.getEmail());
@@ -76,7 +91,11 @@ public class ProjectService {
         User owner = getRequiredCurrentUser();
         project.setProprietaire(owner);
         applyCreationDefaults(project);
-        return projectRepository.save(project);
+        ResearchProject saved = projectRepository.save(project);
+        eventPublisher.publishEvent(new ProjectChangedEvent(saved.getId(), ProjectChangedEvent.Type.CREATED));
+        auditService.record(AuditService.Action.PROJET_CREE, AuditService.CIBLE_PROJET, saved.getId(),
+                saved.getTitreProjet());
+        return saved;
     }
 
     /**
@@ -96,8 +115,9 @@ public class ProjectService {
             existing = getProjectIfOwner(id, current.getEmail());
         }
 
+        Map<String, Object> before = auditedFields(existing);
         existing.setTitreProjet(updates.getTitreProjet());
-        existing.setDomaineRecherche(updates.getDomaineRecherche());
+        existing.setDomaine(resolveDomaine(updates.getDomaineRecherche()));
         existing.setDescription(updates.getDescription());
         existing.setResponsableProjet(updates.getResponsableProjet());
         existing.setInstitution(updates.getInstitution());
@@ -105,13 +125,17 @@ public class ProjectService {
         existing.setDateDebut(updates.getDateDebut());
         existing.setDateFin(updates.getDateFin());
         existing.setNiveauAvancement(updates.getNiveauAvancement());
-        existing.setStatutProjet(updates.getStatutProjet());
-        existing.setListeParticipants(updates.getListeParticipants());
-        existing.setAutresParticipants(updates.getAutresParticipants()); // ✅ Fix: Syncing external participants
-        existing.setMembers(updates.getMembers()); // ✅ Fix: Syncing ManyToMany relationship
+        existing.setStatut(updates.getStatut());
+        existing.setAutresParticipants(updates.getAutresParticipants()); // ✅ Fix: Syncing external participants (diff ligne à ligne)
+        // Les membres internes sont gérés par ProjectMembershipService (écritures ciblées sur project_members)
         existing.setDateModification(LocalDateTime.now());
 
-        return projectRepository.save(existing);
+        ResearchProject saved = projectRepository.save(existing);
+        eventPublisher.publishEvent(new ProjectChangedEvent(id, ProjectChangedEvent.Type.UPDATED));
+        String changes = describeChanges(before, auditedFields(saved));
+        if (!changes.isEmpty())
+            auditService.record(AuditService.Action.PROJET_MODIFIE, AuditService.CIBLE_PROJET, id, changes);
+        return saved;
     }
 
     public ResearchProject getProjectIfOwner(Long id, String email) {
@@ -131,14 +155,17 @@ public class ProjectService {
         User current = getRequiredCurrentUser();
 
         // ✅ CORRECTION : le gestionnaire peut supprimer n'importe quel projet
+        ResearchProject project;
         if ("ROLE_GESTIONNAIRE".equals(current.getRole()) || "ROLE_ADMIN".equals(current.getRole())) {
-            ResearchProject project = findById(id);
-            projectRepository.delete(project);
+            project = findById(id);
         } else {
             // Candidat : vérifie la propriété avant suppression
-            ResearchProject project = getProjectIfOwner(id, current.getEmail());
-            projectRepository.delete(project);
+            project = getProjectIfOwner(id, current.getEmail());
         }
+        projectRepository.delete(project);
+        eventPublisher.publishEvent(new ProjectChangedEvent(id, ProjectChangedEvent.Type.DELETED));
+        auditService.record(AuditService.Action.PROJET_SUPPRIME, AuditService.CIBLE_PROJET, id,
+                project.getTitreProjet());
     }
 
     // ──────────────────────────────────────────────────────────────
@@ -149,6 +176,7 @@ public class ProjectService {
      * ✅ Retourne TOUS les projets (tous candidats confondus)
      * Utilisé par le ManagerController pour le tableau de bord
      */
+    @Transactional(readOnly = true)
     public List<ResearchProject> getAllProjects() {
         return projectRepository.findAll();
     }
@@ -156,6 +184,7 @@ public class ProjectService {
     /**
      * Retourne les projets visibles selon le rôle de l'utilisateur connecté
      */
+    @Transactional(readOnly = true)
     public List<ResearchProject> getVisibleProjects() {
         User user = getCurrentUser();
         if (user == null)
@@ -168,6 +197,7 @@ public class ProjectService {
         };
     }
 
+    @Transactional(readOnly = true)
     public List<ResearchProject> searchProjects(String keyword) {
         if (keyword == null || keyword.trim().isEmpty()) {
             return getAllProjects();
@@ -184,8 +214,9 @@ public class ProjectService {
                 .orElseThrow(() -> new EntityNotFoundException("Projet non trouvé : " + id));
     }
 
+    @Transactional(readOnly = true)
     public List<ResearchProject> findByStatut(String status) {
-        return projectRepository.findByStatutProjet(status);
+        return projectRepository.findByStatut(ProjectStatus.fromCode(status));
     }
 
     /**
@@ -200,79 +231,99 @@ public class ProjectService {
     // Statistiques candidat
     // ──────────────────────────────────────────────────────────────
 
+    /**
+     * Compteurs des projets du candidat connecté, calculés par une seule requête agrégée
+     */
+    @Transactional(readOnly = true)
     public Map<String, Object> getCandidateStats() {
-        List<ResearchProject> projects = getMyProjects();
-
-        long total = projects.size();
-        long enCours = countByStatus(projects, "EN_COURS");
-        long termines = countByStatus(projects, "TERMINE");
-        long suspendus = countByStatus(projects, "SUSPENDU");
-
-        long enRetard = projects.stream()
-                .filter(p -> p.getDateFin() != null &&
-                        LocalDateTime.now().isAfter(p.getDateFin().atStartOfDay().plusDays(1)) &&
-                        !"TERMINE".equals(p.getStatutProjet()))
-                .count();
+        User user = getRequiredCurrentUser();
+        Object[] row = projectRepository.summarizeStatusByProprietaireEmail(user.getEmail()).get(0);
 
-        double avancementMoyen = projects.stream()
-                .filter(p -> p.getNiveauAvancement() != null)
-                .mapToInt(ResearchProject::getNiveauAvancement)
-                .average()
-                .orElse(0.0);
+        double avancementMoyen = row[5] != null ? ((Number) row[5]).doubleValue() : 0.0;
 
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalProjets", total);
-        stats.put("enCours", enCours);
-        stats.put("termines", termines);
-        stats.put("suspendus", suspendus);
-        stats.put("enRetard", enRetard);
+        stats.put("totalProjets", toLong(row[0]));
+        stats.put("enCours", toLong(row[1]));
+        stats.put("termines", toLong(row[2]));
+        stats.put("suspendus", toLong(row[3]));
+        stats.put("enRetard", toLong(row[4]));
         stats.put("avancementMoyen", Math.round(avancementMoyen * 10.0) / 10.0);
 
         return stats;
     }
 
-    private long countByStatus(List<ResearchProject> projects, String status) {
-        return projects.stream()
-                .filter(p -> status.equals(p.getStatutProjet()))
-                .count();
-    }
-
     // ──────────────────────────────────────────────────────────────
     // Utilitaires privés
     // ──────────────────────────────────────────────────────────────
 
-    public void updateFormattedParticipantsList(ResearchProject project) {
-        StringBuilder sb = new StringBuilder();
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
 
-        // 1. Membres internes (avec lien User)
-        if (project.getMembers() != null) {
-            for (User u : project.getMembers()) {
-                sb.append(u.getPrenom()).append(" ").append(u.getNom())
-                        .append(" (").append(u.getEmail()).append(")\n");
-            }
-        }
+    /**
+     * Résout le nom de domaine saisi en entité Domaine (créée si elle n'existe pas encore).
+     * Les projets ne stockent que domaine_id : renommer un domaine ne touche pas aux projets.
+     */
+    private Domaine resolveDomaine(String nom) {
+        if (nom == null || nom.isBlank())
+            return null;
+        String cle = nom.trim();
+        return domaineRepository.findByNom(cle).orElseGet(() -> {
+            Domaine domaine = new Domaine();
+            domaine.setNom(cle);
+            return domaineRepository.save(domaine);
+        });
+    }
 
-        // 2. Participants externes (Champ texte libre)
-        if (project.getAutresParticipants() != null && !project.getAutresParticipants().isBlank()) {
-            if (sb.length() > 0) {
-                sb.append("\n--- Externes ---\n");
-            }
-            sb.append(project.getAutresParticipants());
-        }
+    /**
+     * Champs suivis par le journal d'audit (la description n'est signalée que modifiée)
+     */
+    private static Map<String, Object> auditedFields(ResearchProject p) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("titre", p.getTitreProjet());
+        fields.put("domaine", p.getDomaineRecherche());
+        fields.put("statut", p.getStatut());
+        fields.put("avancement", p.getNiveauAvancement());
+        fields.put("responsable", p.getResponsableProjet());
+        fields.put("institution", p.getInstitution());
+        fields.put("budget", p.getBudgetEstime());
+        fields.put("dateDebut", p.getDateDebut());
+        fields.put("dateFin", p.getDateFin());
+        fields.put("participants", p.getAutresParticipants());
+        fields.put("description", p.getDescription() != null ? p.getDescription().hashCode() : null);
+        return fields;
+    }
 
-        project.setListeParticipants(sb.toString().trim());
+    /**
+     * « champ : avant → après » pour chaque champ modifié, séparés par « ; »
+     */
+    private static String describeChanges(Map<String, Object> before, Map<String, Object> after) {
+        StringBuilder sb = new StringBuilder();
+        after.forEach((field, value) -> {
+            Object previous = before.get(field);
+            if (Objects.equals(previous, value))
+                return;
+            if (sb.length() > 0)
+                sb.append(" ; ");
+            if ("description".equals(field))
+                sb.append("description : modifiée");
+            else if ("participants".equals(field))
+                sb.append("participants : modifiés");
+            else
+                sb.append(field).append(" : ").append(previous).append(" → ").append(value);
+        });
+        return sb.toString();
     }
 
     private void applyCreationDefaults(ResearchProject p) {
-        if (p.getStatutProjet() == null)
-            p.setStatutProjet("EN_COURS");
+        if (p.getStatut() == null)
+            p.setStatut(ProjectStatus.EN_COURS);
         if (p.getNiveauAvancement() == null)
             p.setNiveauAvancement(0);
         if (p.getDomaineRecherche() == null || p.getDomaineRecherche().isBlank())
-            p.setDomaineRecherche("Non spécifié");
-
-        // Initial sync if members exist
-        updateFormattedParticipantsList(p);
+            p.setDomaine(resolveDomaine("Non spécifié"));
+        else
+            p.setDomaine(resolveDomaine(p.getDomaineRecherche()));
 
         p.setDateCreation(LocalDateTime.now());
         p.setDateModification(LocalDateTime.now());
@@ -0,0 +1,186 @@
+package sn.esmt.isi.service;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.DispatcherServlet;
+import sn.esmt.isi.repository.ProjectRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Versions utilisées pour les requêtes conditionnelles (ETag / Last-Modified).
+ *
+ * - un projet : sa date de modification, lue seule (sans charger l'entité)
+ * - les listes : la version de la boîte d'envoi (outbox_events), partagée par tous les
+ *   nœuds : chaque écriture validée y ajoute une ligne dans sa transaction, tous les
+ *   nœuds calculent donc le même ETag pour les mêmes données (deux lectures par clé
+ *   primaire, sans état en mémoire)
+ * - les réponses tirées des index en mémoire (carte, projets similaires, retards) : la
+ *   position de la boîte d'envoi appliquée par ces index sur ce nœud (OutboxRelay), qui
+ *   peut être en retard sur la base de quelques centaines de millisecondes
+ * Les ETag de liste portent aussi le jour courant : « en retard » change à minuit
+ * sans aucune écriture.
+ */
+@Service
+public class ProjectVersionService {
+
+    /**
+     * Ids les plus récents de la boîte d'envoi dont on compte les lignes
+     */
+    private static final int RECENT_EVENTS = 1024;
+
+    private final ProjectRepository projectRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxRelay outboxRelay;
+    private volatile long lastSeenVersion = -1;
+    private volatile long lastChangeNanos = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+
+    public ProjectVersionService(ProjectRepository projectRepository, JdbcTemplate jdbcTemplate,
+            OutboxRelay outboxRelay) {
+        this.projectRepository = projectRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.outboxRelay = outboxRelay;
+    }
+
+    /**
+     * Version courante des données, lue sur la base principale : dernier id de la boîte
+     * d'envoi et nombre de lignes parmi les RECENT_EVENTS derniers ids. Le nombre change
+     * aussi quand une transaction plus lente valide un id inférieur au maximum déjà vu.
+     */
+    public long getTableVersion() {
+        long version = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0), COUNT(*) FROM outbox_events " +
+                "WHERE id > (SELECT COALESCE(MAX(id), 0) - ? FROM outbox_events)",
+                (rs, i) -> rs.getLong(1) * (RECENT_EVENTS + 1) + rs.getLong(2), RECENT_EVENTS);
+        if (version != lastSeenVersion) {
+            if (lastSeenVersion >= 0)
+                lastChangeNanos = System.nanoTime();
+            lastSeenVersion = version;
+        }
+        return version;
+    }
+
+    /**
+     * Temps écoulé depuis le dernier changement de version constaté, en nanosecondes
+     */
+    public long nanosSinceLastChange() {
+        return System.nanoTime() - lastChangeNanos;
+    }
+
+    /**
+     * Date de dernière modification d'un projet (vide si introuvable)
+     */
+    public Optional<LocalDateTime> getProjectVersion(Long id) {
+        return projectRepository.findVersionById(id);
+    }
+
+    /**
+     * Idem, restreint aux projets du propriétaire donné
+     */
+    public Optional<LocalDateTime> getProjectVersionForOwner(Long id, String email) {
+        return projectRepository.findVersionByIdAndProprietaireEmail(id, email);
+    }
+
+    /**
+     * ETag fort d'un projet ; {@code scope} distingue les rendus par utilisateur (peut être null)
+     */
+    public String projectETag(Long id, LocalDateTime version, String scope) {
+        long micros = ChronoUnit.MICROS.between(LocalDateTime.of(1970, 1, 1, 0, 0), version);
+        return "\"p" + id + "-" + Long.toString(micros, 36) + scopeSuffix(scope) + "\"";
+    }
+
+    /**
+     * ETag faible des listes, basé sur la version de la boîte d'envoi
+     */
+    public String listETag(String scope) {
+        return "W/\"l" + Long.toString(getTableVersion(), 36) + daySuffix() + scopeSuffix(scope) + "\"";
+    }
+
+    /**
+     * ETag faible des réponses tirées des index en mémoire ; vide tant que le relais de
+     * la boîte d'envoi n'a pas démarré (index pas encore datés)
+     */
+    public Optional<String> indexETag(String scope) {
+        long applied = outboxRelay.appliedUpTo();
+        if (applied < 0)
+            return Optional.empty();
+        return Optional.of("W/\"i" + Long.toString(applied, 36) + daySuffix() + scopeSuffix(scope) + "\"");
+    }
+
+    /**
+     * Last-Modified en millisecondes (précision HTTP : la seconde)
+     */
+    public long lastModified(LocalDateTime version) {
+        return version.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Requêtes conditionnelles
+    // ──────────────────────────────────────────────────────────────
+
+    /**
+     * Répond 304 si le client a déjà cette version du projet ; sinon pose ETag,
+     * Last-Modified et Cache-Control sur la réponse et renvoie false.
+     * Une page qui doit afficher un message flash est toujours rendue.
+     */
+    public boolean checkNotModified(WebRequest request, Long id, Optional<LocalDateTime> version, String scope) {
+        if (version.isEmpty() || hasFlashMessages(request))
+            return false;
+        revalidate(request);
+        return request.checkNotModified(projectETag(id, version.get(), scope), lastModified(version.get()));
+    }
+
+    /**
+     * Idem pour une liste, avec l'ETag faible de la version de la boîte d'envoi
+     */
+    public boolean checkListNotModified(WebRequest request, String scope) {
+        if (hasFlashMessages(request))
+            return false;
+        revalidate(request);
+        return request.checkNotModified(listETag(scope));
+    }
+
+    /**
+     * Idem pour une réponse tirée des index en mémoire du nœud (voir indexETag)
+     */
+    public boolean checkIndexNotModified(WebRequest request, String scope) {
+        Optional<String> etag = indexETag(scope);
+        if (etag.isEmpty() || hasFlashMessages(request))
+            return false;
+        revalidate(request);
+        return request.checkNotModified(etag.get());
+    }
+
+    /**
+     * Remplace le « no-store » posé par Spring Security : le navigateur peut garder
+     * la réponse mais doit la revalider à chaque fois
+     */
+    private static void revalidate(WebRequest request) {
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL,
+                    CacheControl.noCache().cachePrivate().getHeaderValue());
+        }
+    }
+
+    private static boolean hasFlashMessages(WebRequest request) {
+        return request.getAttribute(DispatcherServlet.INPUT_FLASH_MAP_ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    private static String daySuffix() {
+        return "." + Long.toString(LocalDate.now().toEpochDay(), 36);
+    }
+
+    private static String scopeSuffix(String scope) {
+        return scope == null ? "" : "-" + Integer.toHexString(scope.hashCode());
+    }
+}
@@ -0,0 +1,399 @@
+package sn.esmt.isi.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Projets proches, pour le panneau « Projets similaires » des pages de détail.
+ *
+ * Chaque projet est un vecteur TF-IDF normalisé dont les termes sont les mots du titre
+ * (comptés double) et de la description, son domaine, son institution, son
+ * propriétaire et ses membres. Un index inversé terme → projets donne les produits
+ * scalaires (cosinus) d'un projet avec tous les autres en ne parcourant que les
+ * projets qui partagent un terme avec lui.
+ *
+ * Les TOP_K voisins de chaque projet sont précalculés : une page de détail ne fait
+ * qu'une lecture. Une écriture recalcule les voisins du projet modifié, le propose
+ * aux listes des autres et recalcule seulement les listes qui le contenaient.
+ * Les IDF sont figés entre deux reconstructions complètes (import, ou corpus qui a
+ * varié de plus de REBUILD_RATIO depuis la dernière). Les écritures de tous les nœuds
+ * arrivent par la boîte d'envoi (OutboxRelay) ; les lots d'import relus ensemble ne
+ * coûtent qu'une reconstruction.
+ */
+@Service
+public class RelatedProjectsService implements OutboxSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelatedProjectsService.class);
+
+    private static final int TOP_K = 10;
+    private static final double MIN_SCORE = 0.05;
+    private static final int MIN_WORD = 3;
+    private static final double REBUILD_RATIO = 0.2;
+
+    /**
+     * Termes trop fréquents (poids IDF presque nul) ignorés dans le parcours de l'index
+     */
+    private static final int MAX_POSTINGS = 5000;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "les", "des", "une", "dans", "pour", "avec", "sur", "par", "aux", "est", "que", "qui", "son", "ses",
+            "leur", "leurs", "cette", "ces", "entre", "plus", "sont", "ont", "mais", "comme", "tout", "tous",
+            "the", "and", "for", "with", "from", "this", "that", "projet", "projets", "etude", "recherche");
+
+    public record Related(Long projectId, String titre, String domaine, String institution, String proprietaireId,
+            double score) {
+    }
+
+    private record Neighbor(Long projectId, double score) {
+    }
+
+    private record Row(String[] fields, Map<String, Integer> counts) {
+    }
+
+    private record Doc(String titre, String domaine, String institution, String proprietaireId,
+            Map<String, Double> vector) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxService outboxService;
+    private volatile long loadedUpTo;
+    // Import relu dans le lot en cours (thread outbox-relay)
+    private boolean importPending;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Doc> docs = new HashMap<>();
+    private final Map<String, Map<Long, Double>> postings = new HashMap<>();
+    private final Map<Long, List<Neighbor>> neighbors = new HashMap<>();
+    // Projet → projets dont la liste de voisins le contient
+    private final Map<Long, Set<Long>> listedBy = new HashMap<>();
+    private int builtSize;
+
+    public RelatedProjectsService(JdbcTemplate jdbcTemplate, OutboxService outboxService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.outboxService = outboxService;
+    }
+
+    @PostConstruct
+    public void load() {
+        long start = System.nanoTime();
+        loadedUpTo = outboxService.loadMark();
+        Map<Long, Map<String, Integer>> terms = new HashMap<>();
+        Map<Long, String[]> fields = new HashMap<>();
+        jdbcTemplate.query(SELECT_PROJECTS, rs -> {
+            long id = rs.getLong(1);
+            fields.put(id, fields(rs));
+            terms.put(id, terms(rs));
+        });
+        jdbcTemplate.query("SELECT project_id, user_id FROM project_members", rs -> {
+            Map<String, Integer> counts = terms.get(rs.getLong(1));
+            if (counts != null)
+                counts.merge("m:" + rs.getString(2), 1, Integer::sum);
+        });
+
+        lock.writeLock().lock();
+        try {
+            docs.clear();
+            postings.clear();
+            neighbors.clear();
+            listedBy.clear();
+            // Fréquences documentaires d'abord : les poids en dépendent
+            for (Map.Entry<Long, Map<String, Integer>> entry : terms.entrySet()) {
+                for (String term : entry.getValue().keySet()) {
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(entry.getKey(), 0.0);
+                }
+            }
+            for (Map.Entry<Long, Map<String, Integer>> entry : terms.entrySet()) {
+                String[] f = fields.get(entry.getKey());
+                index(entry.getKey(), new Doc(f[0], f[1], f[2], f[3], weigh(entry.getValue(), terms.size())));
+            }
+            for (Long id : docs.keySet()) {
+                setNeighbors(id, topNeighbors(id));
+            }
+            builtSize = docs.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Projets similaires : {} projets, {} termes, calculés en {} ms", terms.size(), postings.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Voisins précalculés d'un projet, du plus proche au plus éloigné
+     */
+    public List<Related> getRelated(Long projectId, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Related> result = new ArrayList<>();
+            for (Neighbor neighbor : neighbors.getOrDefault(projectId, List.of())) {
+                if (result.size() == limit)
+                    break;
+                Doc doc = docs.get(neighbor.projectId());
+                result.add(new Related(neighbor.projectId(), doc.titre(), doc.domaine(), doc.institution(),
+                        doc.proprietaireId(), Math.round(neighbor.score() * 100) / 100.0));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public String subscriberName() {
+        return "projets-similaires";
+    }
+
+    @Override
+    public OptionalLong loadedUpTo() {
+        return OptionalLong.of(loadedUpTo);
+    }
+
+    @Override
+    public void onOutboxEvent(OutboxEvent event) {
+        if (!event.isProject() || event.type() == OutboxEvent.Type.OVERDUE)
+            return;
+        if (event.type() == OutboxEvent.Type.IMPORTED) {
+            importPending = true;
+            return;
+        }
+        Long id = event.projectId();
+        Map<String, Integer> counts = null;
+        String[] f = null;
+        if (event.type() != OutboxEvent.Type.DELETED) {
+            List<Row> rows = jdbcTemplate.query(SELECT_PROJECTS + " WHERE p.project_id = ?",
+                    (rs, i) -> new Row(fields(rs), terms(rs)), id);
+            if (!rows.isEmpty()) {
+                f = rows.get(0).fields();
+                counts = rows.get(0).counts();
+                for (String member : jdbcTemplate.queryForList(
+                        "SELECT user_id FROM project_members WHERE project_id = ?", String.class, id)) {
+                    counts.merge("m:" + member, 1, Integer::sum);
+                }
+            }
+        }
+
+        boolean rebuild;
+        lock.writeLock().lock();
+        try {
+            Set<Long> affected = new HashSet<>(listedBy.getOrDefault(id, Set.of()));
+            unindex(id);
+            if (counts != null) {
+                // Le terme compte dans les fréquences avant le calcul des poids
+                for (String term : counts.keySet()) {
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).putIfAbsent(id, 0.0);
+                }
+                index(id, new Doc(f[0], f[1], f[2], f[3], weigh(counts, docs.size() + 1)));
+                setNeighbors(id, topNeighbors(id));
+                // Cosinus symétrique : les scores du projet sont aussi ceux des autres envers lui
+                for (Neighbor candidate : scores(id)) {
+                    if (!affected.contains(candidate.projectId()))
+                        offer(candidate.projectId(), new Neighbor(id, candidate.score()));
+                }
+            }
+            // Listes qui contenaient le projet : son score a pu baisser, un remplaçant est cherché
+            for (Long other : affected) {
+                if (docs.containsKey(other))
+                    setNeighbors(other, topNeighbors(other));
+            }
+            rebuild = Math.abs(docs.size() - builtSize) > Math.max(50, builtSize * REBUILD_RATIO);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (rebuild)
+            load();
+    }
+
+    /**
+     * Lots d'import relus : une seule reconstruction complète
+     */
+    @Override
+    public void afterOutboxBatch() {
+        if (!importPending)
+            return;
+        load();
+        importPending = false;
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Index et voisins (appelé sous le verrou d'écriture)
+    // ──────────────────────────────────────────────────────────────
+
+    private void index(Long id, Doc doc) {
+        docs.put(id, doc);
+        doc.vector().forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, weight));
+    }
+
+    private void unindex(Long id) {
+        Doc doc = docs.remove(id);
+        if (doc != null) {
+            for (String term : doc.vector().keySet()) {
+                Map<Long, Double> list = postings.get(term);
+                if (list != null && list.remove(id) != null && list.isEmpty())
+                    postings.remove(term);
+            }
+        }
+        setNeighbors(id, List.of());
+        neighbors.remove(id);
+        Set<Long> listing = listedBy.remove(id);
+        if (listing != null) {
+            for (Long other : listing) {
+                List<Neighbor> list = neighbors.get(other);
+                if (list != null)
+                    list.removeIf(neighbor -> neighbor.projectId().equals(id));
+            }
+        }
+    }
+
+    /**
+     * Cosinus du projet avec tous les projets qui partagent au moins un terme avec lui
+     */
+    private List<Neighbor> scores(Long id) {
+        Map<Long, Double> dot = new HashMap<>();
+        docs.get(id).vector().forEach((term, weight) -> {
+            Map<Long, Double> list = postings.get(term);
+            if (list == null || list.size() > MAX_POSTINGS)
+                return;
+            list.forEach((other, otherWeight) -> dot.merge(other, weight * otherWeight, Double::sum));
+        });
+        dot.remove(id);
+        List<Neighbor> result = new ArrayList<>(dot.size());
+        dot.forEach((other, score) -> {
+            if (score >= MIN_SCORE)
+                result.add(new Neighbor(other, score));
+        });
+        return result;
+    }
+
+    private List<Neighbor> topNeighbors(Long id) {
+        PriorityQueue<Neighbor> best = new PriorityQueue<>(Comparator.comparingDouble(Neighbor::score));
+        for (Neighbor candidate : scores(id)) {
+            best.offer(candidate);
+            if (best.size() > TOP_K)
+                best.poll();
+        }
+        List<Neighbor> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Neighbor::score).reversed());
+        return result;
+    }
+
+    /**
+     * Insère un voisin dans une liste existante s'il y a sa place
+     */
+    private void offer(Long id, Neighbor candidate) {
+        List<Neighbor> list = neighbors.computeIfAbsent(id, k -> new ArrayList<>());
+        if (list.size() >= TOP_K && list.get(list.size() - 1).score() >= candidate.score())
+            return;
+        int position = 0;
+        while (position < list.size() && list.get(position).score() >= candidate.score()) {
+            position++;
+        }
+        list.add(position, candidate);
+        listedBy.computeIfAbsent(candidate.projectId(), k -> new HashSet<>()).add(id);
+        if (list.size() > TOP_K) {
+            Neighbor evicted = list.remove(list.size() - 1);
+            Set<Long> listing = listedBy.get(evicted.projectId());
+            if (listing != null)
+                listing.remove(id);
+        }
+    }
+
+    private void setNeighbors(Long id, List<Neighbor> next) {
+        List<Neighbor> previous = neighbors.get(id);
+        if (previous != null) {
+            for (Neighbor neighbor : previous) {
+                Set<Long> listing = listedBy.get(neighbor.projectId());
+                if (listing != null && listing.remove(id) && listing.isEmpty())
+                    listedBy.remove(neighbor.projectId());
+            }
+        }
+        for (Neighbor neighbor : next) {
+            listedBy.computeIfAbsent(neighbor.projectId(), k -> new HashSet<>()).add(id);
+        }
+        neighbors.put(id, new ArrayList<>(next));
+    }
+
+    /**
+     * TF-IDF (tf logarithmique, idf lissé) normalisé, avec les fréquences documentaires courantes
+     */
+    private Map<String, Double> weigh(Map<String, Integer> counts, int total) {
+        Map<String, Double> vector = new HashMap<>();
+        double norm = 0;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            Map<Long, Double> list = postings.get(entry.getKey());
+            int df = list != null ? list.size() : 1;
+            double weight = (1 + Math.log(entry.getValue())) * (Math.log((double) (total + 1) / (df + 1)) + 1);
+            vector.put(entry.getKey(), weight);
+            norm += weight * weight;
+        }
+        double length = Math.sqrt(norm);
+        vector.replaceAll((term, weight) -> weight / length);
+        return vector;
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Lecture des projets
+    // ──────────────────────────────────────────────────────────────
+
+    private static final String SELECT_PROJECTS = "SELECT p.project_id, p.titre_projet, p.description, " +
+            "p.domaine_id, d.nom, p.institution, p.proprietaire_id " +
+            "FROM research_projects p LEFT JOIN domaines d ON d.id = p.domaine_id";
+
+    /**
+     * [titre, domaine, institution, propriétaire]
+     */
+    private static String[] fields(ResultSet rs) throws SQLException {
+        return new String[] { rs.getString(2), rs.getString(5), rs.getString(6), rs.getString(7) };
+    }
+
+    /**
+     * Termes du projet et leur nombre d'occurrences (membres ajoutés à part)
+     */
+    private static Map<String, Integer> terms(ResultSet rs) throws SQLException {
+        Map<String, Integer> counts = new HashMap<>();
+        addWords(counts, rs.getString(2), 2);
+        addWords(counts, rs.getString(3), 1);
+        long domaineId = rs.getLong(4);
+        if (!rs.wasNull())
+            counts.put("d:" + domaineId, 1);
+        String institution = normalize(rs.getString(6));
+        if (!institution.isEmpty())
+            counts.put("i:" + institution, 1);
+        if (rs.getString(7) != null)
+            counts.put("m:" + rs.getString(7), 1);
+        return counts;
+    }
+
+    private static void addWords(Map<String, Integer> counts, String text, int weight) {
+        for (String word : normalize(text).split(" ")) {
+            if (word.length() >= MIN_WORD && !STOP_WORDS.contains(word))
+                counts.merge("w:" + word, weight, Integer::sum);
+        }
+    }
+
+    private static String normalize(String text) {
+        if (text == null)
+            return "";
+        return Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase()
+                .replaceAll("[^a-z0-9]+", " ")
+                .trim();
+    }
+}
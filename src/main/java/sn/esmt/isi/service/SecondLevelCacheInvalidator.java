@@ -0,0 +1,58 @@
+package sn.esmt.isi.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.stereotype.Service;
+import sn.esmt.isi.model.Domaine;
+import sn.esmt.isi.model.User;
+
+import java.util.OptionalLong;
+
+/**
+ * Cache de second niveau Hibernate (régions users et domaines), propre à chaque nœud.
+ *
+ * Hibernate ne l'invalide que pour les écritures du nœud lui-même : une écriture faite
+ * ailleurs retire ici l'entité, à la lecture de son événement dans la boîte d'envoi,
+ * ainsi que les résultats de requêtes en cache (utilisateurs par rôle, liste des
+ * domaines). La ligne de configuration est relue par AppConfigService.
+ */
+@Service
+public class SecondLevelCacheInvalidator implements OutboxSubscriber {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final OutboxService outboxService;
+    private volatile long loadedUpTo;
+
+    public SecondLevelCacheInvalidator(EntityManagerFactory entityManagerFactory, OutboxService outboxService) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.outboxService = outboxService;
+    }
+
+    @PostConstruct
+    public void init() {
+        loadedUpTo = outboxService.loadMark();
+    }
+
+    @Override
+    public String subscriberName() {
+        return "cache-second-niveau";
+    }
+
+    @Override
+    public OptionalLong loadedUpTo() {
+        return OptionalLong.of(loadedUpTo);
+    }
+
+    @Override
+    public void onOutboxEvent(OutboxEvent event) {
+        Cache cache = entityManagerFactory.getCache();
+        if (event.isUser())
+            cache.evict(User.class, event.agregatId());
+        else if (event.isDomaine())
+            cache.evict(Domaine.class, Long.valueOf(event.agregatId()));
+        else
+            return;
+        cache.unwrap(org.hibernate.Cache.class).evictDefaultQueryRegion();
+    }
+}
@@ -2,13 +2,19 @@ package sn.esmt.isi.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import sn.esmt.isi.model.ProjectStatus;
 import sn.esmt.isi.repository.ProjectRepository;
 import sn.esmt.isi.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.*;
 
+/**
+ * Agrégats en lecture seule : exécutés sur le réplica lorsqu'il est configuré
+ */
 @Service
+@Transactional(readOnly = true)
 public class StatisticsService {
 
     @Autowired
@@ -17,6 +23,9 @@ public class StatisticsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private DeadlineService deadlineService;
+
     /**
      * Statistiques globales pour les pages statistics et charts
      * Retourne toutes les données nécessaires aux graphiques et tableaux
@@ -29,9 +38,9 @@ public class StatisticsService {
         // ═══════════════════════════════════════════════════════════════
 
         long totalProjets = projectRepository.count();
-        long projetsEnCours = projectRepository.countByStatutProjet("EN_COURS");
-        long projetsSuspendus = projectRepository.countByStatutProjet("SUSPENDU");
-        long projetsTermines = projectRepository.countByStatutProjet("TERMINE");
+        long projetsEnCours = projectRepository.countByStatut(ProjectStatus.EN_COURS);
+        long projetsSuspendus = projectRepository.countByStatut(ProjectStatus.SUSPENDU);
+        long projetsTermines = projectRepository.countByStatut(ProjectStatus.TERMINE);
 
         stats.put("totalProjets", totalProjets);
         stats.put("projetsEnCours", projetsEnCours);
@@ -169,15 +178,32 @@ public class StatisticsService {
         return stats;
     }
 
+    /**
+     * Compteurs affichés sur les cartes des dashboards, calculés en une requête.
+     * Diffusés par le flux temps réel (LiveStatsBroadcaster).
+     */
+    public Map<String, Object> getLiveStats() {
+        Object[] row = projectRepository.summarizeAll().get(0);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalProjets", toLong(row[0]));
+        stats.put("projetsEnCours", toLong(row[1]));
+        stats.put("projetsSuspendus", toLong(row[2]));
+        stats.put("projetsTermines", toLong(row[3]));
+        stats.put("avancementMoyen", row[4] != null ? Math.round(((Number) row[4]).doubleValue()) : 0);
+        stats.put("budgetTotal", row[5] != null ? ((Number) row[5]).doubleValue() : 0.0);
+        stats.put("projetsEnRetard", deadlineService.getOverdueCount());
+        return stats;
+    }
+
     /**
      * Statistiques avancées pour la page Rapports
      */
     public Map<String, Object> getAdvancedStats() {
         Map<String, Object> stats = getGlobalStats();
 
-        // Projets en retard
-        long projetsEnRetard = projectRepository.countOverdueProjects();
-        stats.put("projetsEnRetard", projetsEnRetard);
+        // Projets en retard (échéancier en mémoire)
+        stats.put("projetsEnRetard", deadlineService.getOverdueCount());
 
         // Calculer l'évolution mensuelle des projets (12 derniers mois)
         // Noms des mois en français
@@ -252,57 +278,56 @@ public class StatisticsService {
     public Map<String, Object> getManagerStats(String gestionnaireEmail) {
         Map<String, Object> stats = new HashMap<>();
 
-        // Projets du gestionnaire
-        List<sn.esmt.isi.model.ResearchProject> projetsGestionnaire = projectRepository
-                .findByProprietaireEmail(gestionnaireEmail);
-
         // ═══════════════════════════════════════════════════════════════
-        // 1. STATISTIQUES DE BASE
+        // 1. STATISTIQUES DE BASE (agrégées côté base de données)
         // ═══════════════════════════════════════════════════════════════
 
-        long totalProjets = projetsGestionnaire.size();
-        long projetsEnCours = projetsGestionnaire.stream()
-                .filter(p -> "EN_COURS".equals(p.getStatutProjet()))
-                .count();
-        long projetsTermines = projetsGestionnaire.stream()
-                .filter(p -> "TERMINE".equals(p.getStatutProjet()))
-                .count();
-        long projetsSuspendus = projetsGestionnaire.stream()
-                .filter(p -> "SUSPENDU".equals(p.getStatutProjet()))
-                .count();
+        long totalProjets = 0;
+        double avancementMoyen = 0.0;
+        double budgetTotal = 0.0;
+
+        List<Object[]> summary = projectRepository.summarizeByProprietaireEmail(gestionnaireEmail);
+        if (summary != null && !summary.isEmpty()) {
+            Object[] row = summary.get(0);
+            totalProjets = row[0] != null ? ((Number) row[0]).longValue() : 0;
+            avancementMoyen = row[1] != null ? ((Number) row[1]).doubleValue() : 0.0;
+            budgetTotal = row[2] != null ? ((Number) row[2]).doubleValue() : 0.0;
+        }
+
+        Map<ProjectStatus, Long> parStatut = new EnumMap<>(ProjectStatus.class);
+        for (Object[] row : projectRepository.countByStatutForProprietaire(gestionnaireEmail)) {
+            if (row[0] != null && row[1] != null) {
+                parStatut.put((ProjectStatus) row[0], ((Number) row[1]).longValue());
+            }
+        }
 
         stats.put("totalProjets", totalProjets);
-        stats.put("projetsEnCours", projetsEnCours);
-        stats.put("projetsTermines", projetsTermines);
-        stats.put("projetsSuspendus", projetsSuspendus);
+        stats.put("projetsEnCours", parStatut.getOrDefault(ProjectStatus.EN_COURS, 0L));
+        stats.put("projetsTermines", parStatut.getOrDefault(ProjectStatus.TERMINE, 0L));
+        stats.put("projetsSuspendus", parStatut.getOrDefault(ProjectStatus.SUSPENDU, 0L));
 
         // Avancement moyen des projets du gestionnaire
-        double avancementMoyen = projetsGestionnaire.stream()
-                .filter(p -> p.getNiveauAvancement() != null)
-                .mapToInt(sn.esmt.isi.model.ResearchProject::getNiveauAvancement)
-                .average()
-                .orElse(0.0);
         stats.put("avancementMoyen", Math.round(avancementMoyen));
 
         // Budget total des projets du gestionnaire
-        double budgetTotal = projetsGestionnaire.stream()
-                .filter(p -> p.getBudgetEstime() != null)
-                .mapToDouble(sn.esmt.isi.model.ResearchProject::getBudgetEstime)
-                .sum();
         stats.put("budgetTotal", budgetTotal);
 
         // ═══════════════════════════════════════════════════════════════
-        // 2. RÉPARTITION PAR DOMAINE
+        // 2. RÉPARTITION ET BUDGET PAR DOMAINE (une seule requête groupée)
         // ═══════════════════════════════════════════════════════════════
 
         Map<String, Long> repartitionDomaines = new LinkedHashMap<>();
-        projetsGestionnaire.stream()
-                .filter(p -> p.getDomaineRecherche() != null)
-                .forEach(p -> {
-                    String domaine = p.getDomaineRecherche();
-                    repartitionDomaines.put(domaine,
-                            repartitionDomaines.getOrDefault(domaine, 0L) + 1);
-                });
+        Map<String, Double> budgetByDomaine = new LinkedHashMap<>();
+
+        for (Object[] row : projectRepository.countAndSumBudgetByDomaineForProprietaire(gestionnaireEmail)) {
+            if (row[0] != null && row[1] != null) {
+                String domaine = (String) row[0];
+                repartitionDomaines.put(domaine, ((Number) row[1]).longValue());
+                if (row[2] != null) {
+                    budgetByDomaine.put(domaine, ((Number) row[2]).doubleValue());
+                }
+            }
+        }
         stats.put("repartitionDomaines", repartitionDomaines);
 
         // ═══════════════════════════════════════════════════════════════
@@ -311,26 +336,16 @@ public class StatisticsService {
 
         Map<String, Object> projectsByParticipant = new LinkedHashMap<>();
 
-        // Grouper les projets par propriétaire
-        Map<String, List<sn.esmt.isi.model.ResearchProject>> projetsByOwner = new LinkedHashMap<>();
-        projetsGestionnaire.forEach(p -> {
-            if (p.getProprietaire() != null) {
-                String email = p.getProprietaire().getEmail();
-                projetsByOwner.computeIfAbsent(email, k -> new ArrayList<>()).add(p);
-            }
-        });
-
-        // Créer les statistiques par participant
-        projetsByOwner.forEach((email, projets) -> {
-            if (!projets.isEmpty()) {
-                sn.esmt.isi.model.User user = projets.get(0).getProprietaire();
+        for (Object[] row : projectRepository.countProjectsByParticipantForProprietaire(gestionnaireEmail)) {
+            if (row[2] != null && row[3] != null) {
+                String email = (String) row[2];
                 Map<String, Object> participantInfo = new HashMap<>();
-                participantInfo.put("nom", user.getPrenom() + " " + user.getNom());
+                participantInfo.put("nom", row[0] + " " + row[1]);
                 participantInfo.put("email", email);
-                participantInfo.put("count", (long) projets.size());
+                participantInfo.put("count", ((Number) row[3]).longValue());
                 projectsByParticipant.put(email, participantInfo);
             }
-        });
+        }
 
         stats.put("projectsByParticipant", projectsByParticipant);
 
@@ -338,15 +353,6 @@ public class StatisticsService {
         // 4. BUDGET PAR DOMAINE (pour les projets du gestionnaire)
         // ═══════════════════════════════════════════════════════════════
 
-        Map<String, Double> budgetByDomaine = new LinkedHashMap<>();
-        projetsGestionnaire.stream()
-                .filter(p -> p.getDomaineRecherche() != null && p.getBudgetEstime() != null)
-                .forEach(p -> {
-                    String domaine = p.getDomaineRecherche();
-                    budgetByDomaine.put(domaine,
-                            budgetByDomaine.getOrDefault(domaine, 0.0) + p.getBudgetEstime());
-                });
-
         // Valeurs par défaut si aucune donnée
         if (budgetByDomaine.isEmpty()) {
             budgetByDomaine.put("Intelligence Artificielle", 0.0);
@@ -358,4 +364,8 @@ public class StatisticsService {
 
         return stats;
     }
-}
\ No newline at end of file
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+}
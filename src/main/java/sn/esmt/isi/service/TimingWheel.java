@@ -0,0 +1,129 @@
+package sn.esmt.isi.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Roue temporelle hiérarchique (3 niveaux de 64 cases) à graduation entière.
+ *
+ * - niveau 0 : une case par graduation (64 graduations)
+ * - niveau 1 : une case pour 64 graduations (4 096)
+ * - niveau 2 : une case pour 4 096 graduations (262 144) ; au-delà, l'entrée est
+ *   rangée dans la case la plus lointaine et replacée lorsqu'elle est atteinte
+ * Une entrée ne change de case que lors des cascades : programmer, annuler et
+ * faire expirer coûtent O(1) quel que soit le nombre d'échéances.
+ *
+ * L'annulation est paresseuse : une clé reprogrammée ou annulée laisse son ancienne
+ * entrée en place, ignorée quand sa case est atteinte. Non thread-safe.
+ */
+final class TimingWheel<K> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 3;
+    private static final long SPAN = 1L << (BITS * LEVELS);
+
+    private record Entry<K>(K key, long tick) {
+    }
+
+    @SuppressWarnings("unchecked")
+    private final List<Entry<K>>[][] wheels = new List[LEVELS][SLOTS];
+    private final Map<K, Long> scheduled = new HashMap<>();
+    private long current;
+
+    TimingWheel(long startTick) {
+        this.current = startTick;
+        for (List<Entry<K>>[] level : wheels) {
+            for (int i = 0; i < SLOTS; i++) {
+                level[i] = new ArrayList<>();
+            }
+        }
+    }
+
+    long currentTick() {
+        return current;
+    }
+
+    int size() {
+        return scheduled.size();
+    }
+
+    /**
+     * Programme (ou reprogramme) une clé
+     *
+     * @return false si la graduation est déjà atteinte (rien n'est programmé)
+     */
+    boolean schedule(K key, long tick) {
+        if (tick <= current) {
+            scheduled.remove(key);
+            return false;
+        }
+        scheduled.put(key, tick);
+        place(new Entry<>(key, tick));
+        return true;
+    }
+
+    void cancel(K key) {
+        scheduled.remove(key);
+    }
+
+    /**
+     * Avance jusqu'à la graduation donnée en signalant chaque clé arrivée à échéance
+     */
+    void advanceTo(long tick, Consumer<K> expired) {
+        while (current < tick) {
+            if (scheduled.isEmpty()) {
+                current = tick; // rien à faire échoir : saut direct
+                return;
+            }
+            current++;
+            if ((current & MASK) == 0) {
+                cascade(1);
+                if (((current >>> BITS) & MASK) == 0)
+                    cascade(2);
+            }
+            List<Entry<K>> slot = wheels[0][(int) (current & MASK)];
+            if (slot.isEmpty())
+                continue;
+            List<Entry<K>> due = new ArrayList<>(slot);
+            slot.clear();
+            for (Entry<K> entry : due) {
+                if (entry.tick() == current && scheduled.remove(entry.key(), entry.tick()))
+                    expired.accept(entry.key());
+            }
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    private void cascade(int level) {
+        List<Entry<K>> slot = wheels[level][(int) ((current >>> (BITS * level)) & MASK)];
+        if (slot.isEmpty())
+            return;
+        List<Entry<K>> entries = new ArrayList<>(slot);
+        slot.clear();
+        for (Entry<K> entry : entries) {
+            // Les entrées annulées ou reprogrammées disparaissent ici
+            if (Long.valueOf(entry.tick()).equals(scheduled.get(entry.key())))
+                place(entry);
+        }
+    }
+
+    private void place(Entry<K> entry) {
+        long delta = entry.tick() - current;
+        if (delta < SLOTS) {
+            wheels[0][(int) (entry.tick() & MASK)].add(entry);
+        } else if (delta < SLOTS * SLOTS) {
+            wheels[1][(int) ((entry.tick() >>> BITS) & MASK)].add(entry);
+        } else {
+            long tick = delta < SPAN ? entry.tick() : current + SPAN - 1;
+            wheels[2][(int) ((tick >>> (BITS * 2)) & MASK)].add(entry);
+        }
+    }
+}
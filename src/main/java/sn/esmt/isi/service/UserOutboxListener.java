@@ -0,0 +1,35 @@
+package sn.esmt.isi.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import sn.esmt.isi.model.User;
+
+/**
+ * Écouteur JPA de l'entité User : chaque écriture (inscription, profil, rôle,
+ * activation, suppression) ajoute un événement à la boîte d'envoi, pendant le flush,
+ * donc dans la même transaction. Instancié par Hibernate via le conteneur Spring.
+ */
+public class UserOutboxListener {
+
+    private final OutboxService outboxService;
+
+    public UserOutboxListener(OutboxService outboxService) {
+        this.outboxService = outboxService;
+    }
+
+    @PostPersist
+    public void created(User user) {
+        outboxService.append(OutboxEvent.UTILISATEUR, user.getId(), OutboxEvent.Type.CREATED);
+    }
+
+    @PostUpdate
+    public void updated(User user) {
+        outboxService.append(OutboxEvent.UTILISATEUR, user.getId(), OutboxEvent.Type.UPDATED);
+    }
+
+    @PostRemove
+    public void deleted(User user) {
+        outboxService.append(OutboxEvent.UTILISATEUR, user.getId(), OutboxEvent.Type.DELETED);
+    }
+}
@@ -1,28 +1,79 @@
 package sn.esmt.isi.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import sn.esmt.isi.model.User;
 import sn.esmt.isi.repository.UserRepository;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class UserService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * Filtres de la liste admin (null = pas de filtre ; provider "LOCAL" = compte sans OAuth2)
+     */
+    public record UserFilter(String keyword, String role, String institution, Boolean active, String provider) {
+    }
+
+    /**
+     * Ordres de la liste admin : colonne de tri, départagée par l'id dans le même sens
+     */
+    public enum UserSort {
+        NOM("nom", false), EMAIL("email", false), RECENT("created_at", true);
+
+        private final String column;
+        private final boolean descending;
+
+        UserSort(String column, boolean descending) {
+            this.column = column;
+            this.descending = descending;
+        }
+    }
+
+    /**
+     * Ligne de la liste admin (sans bio ni relations) avec le nombre de projets
+     */
+    public record UserRow(String id, String prenom, String nom, String email, String role, String institution,
+            String specialite, String provider, boolean active, LocalDateTime createdAt, long projets) {
+    }
+
+    /**
+     * Page de la liste : suivante = curseur à repasser, null s'il n'y a plus rien
+     */
+    public record UserPage(List<UserRow> users, long total, String suivante) {
+    }
+
     private final UserRepository userRepository;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, NamedParameterJdbcTemplate namedJdbcTemplate) {
         this.userRepository = userRepository;
+        this.namedJdbcTemplate = namedJdbcTemplate;
     }
 
     /**
      * Récupère tous les utilisateurs
      */
+    @Transactional(readOnly = true)
     public List<User> findAll() {
         return userRepository.findAll();
     }
@@ -38,6 +89,7 @@ public class UserService {
     /**
      * Récupère un utilisateur par son email
      */
+    @Transactional(readOnly = true)
     public Optional<User> findByEmail(String email) {
         return userRepository.findByEmail(email);
     }
@@ -118,6 +170,7 @@ public class UserService {
     /**
      * Compte le nombre total d'utilisateurs
      */
+    @Transactional(readOnly = true)
     public long countAll() {
         return userRepository.count();
     }
@@ -125,6 +178,7 @@ public class UserService {
     /**
      * Compte par rôle
      */
+    @Transactional(readOnly = true)
     public long countByRole(String role) {
         return userRepository.countByRole(role);
     }
@@ -132,6 +186,7 @@ public class UserService {
     /**
      * Liste des utilisateurs par rôle
      */
+    @Transactional(readOnly = true)
     public List<User> findByRole(String role) {
         return userRepository.findByRole(role);
     }
@@ -139,6 +194,7 @@ public class UserService {
     /**
      * Recherche par nom/prénom/email (pour recherche admin)
      */
+    @Transactional(readOnly = true)
     public List<User> search(String keyword) {
         if (keyword == null || keyword.trim().isEmpty()) {
             return findAll();
@@ -146,4 +202,151 @@ public class UserService {
         keyword = "%" + keyword.trim().toLowerCase() + "%";
         return userRepository.findBySearchTerm(keyword);
     }
-}
\ No newline at end of file
+
+    /**
+     * Page de la liste admin, par curseur (keyset) : la page suivante reprend après la
+     * dernière ligne lue au lieu de sauter des lignes avec OFFSET. Un curseur illisible
+     * ou d'un autre ordre de tri renvoie la première page.
+     */
+    @Transactional(readOnly = true)
+    public UserPage findPage(UserFilter filter, UserSort sort, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        StringBuilder where = new StringBuilder(" WHERE 1 = 1");
+        appendFilters(filter, where, params);
+        Long total = namedJdbcTemplate.queryForObject("SELECT COUNT(*) FROM users" + where, params, Long.class);
+
+        String[] after = decodeCursor(sort, cursor);
+        if (after != null)
+            appendAfter(sort, after, where, params);
+        String direction = sort.descending ? " DESC" : "";
+        params.addValue("limit", limit + 1);
+        List<UserRow> rows = namedJdbcTemplate.query("SELECT id, prenom, nom, email, role, institution, specialite, " +
+                "provider, active, created_at FROM users" + where +
+                " ORDER BY " + sort.column + direction + ", id" + direction + " LIMIT :limit",
+                params, (rs, i) -> toRow(rs));
+
+        String next = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            next = encodeCursor(sort, rows.get(limit - 1));
+        }
+        return new UserPage(withProjectCounts(rows), total != null ? total : 0, next);
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Liste paginée : utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    private static void appendFilters(UserFilter filter, StringBuilder where, MapSqlParameterSource params) {
+        if (filter == null)
+            return;
+        if (filter.keyword() != null) {
+            where.append(" AND (LOWER(nom) LIKE :keyword OR LOWER(prenom) LIKE :keyword OR LOWER(email) LIKE :keyword)");
+            params.addValue("keyword", "%" + filter.keyword().toLowerCase() + "%");
+        }
+        if (filter.role() != null) {
+            where.append(" AND role = :role");
+            params.addValue("role", filter.role());
+        }
+        if (filter.institution() != null) {
+            where.append(" AND institution = :institution");
+            params.addValue("institution", filter.institution());
+        }
+        if (filter.active() != null) {
+            // active NULL : comptes antérieurs à la colonne, actifs par défaut (comme l'entité)
+            where.append(filter.active() ? " AND (active = TRUE OR active IS NULL)" : " AND active = FALSE");
+        }
+        if ("LOCAL".equals(filter.provider())) {
+            where.append(" AND provider IS NULL");
+        } else if (filter.provider() != null) {
+            where.append(" AND provider = :provider");
+            params.addValue("provider", filter.provider());
+        }
+    }
+
+    /**
+     * Lignes strictement après (valeur, id) dans l'ordre de tri ; MySQL range les NULL
+     * en tête en ordre croissant et en fin en ordre décroissant
+     */
+    private static void appendAfter(UserSort sort, String[] after, StringBuilder where,
+            MapSqlParameterSource params) {
+        String column = sort.column;
+        Object value = after[0] == null || sort != UserSort.RECENT ? after[0]
+                : Timestamp.valueOf(LocalDateTime.parse(after[0]));
+        params.addValue("afterId", after[1]).addValue("afterValue", value);
+        if (!sort.descending) {
+            where.append(value == null
+                    ? " AND (" + column + " IS NOT NULL OR id > :afterId)"
+                    : " AND (" + column + " > :afterValue OR (" + column + " = :afterValue AND id > :afterId))");
+        } else {
+            where.append(value == null
+                    ? " AND (" + column + " IS NULL AND id < :afterId)"
+                    : " AND (" + column + " < :afterValue OR " + column + " IS NULL OR (" + column
+                            + " = :afterValue AND id < :afterId))");
+        }
+    }
+
+    /**
+     * Nombre de projets (propriétaire ou membre) des utilisateurs de la page, en une requête groupée
+     */
+    private List<UserRow> withProjectCounts(List<UserRow> rows) {
+        if (rows.isEmpty())
+            return rows;
+        List<String> ids = rows.stream().map(UserRow::id).toList();
+        Map<String, Long> counts = new HashMap<>();
+        namedJdbcTemplate.query("SELECT user_id, COUNT(*) FROM (" +
+                "SELECT proprietaire_id AS user_id, project_id FROM research_projects WHERE proprietaire_id IN (:ids) " +
+                "UNION SELECT user_id, project_id FROM project_members WHERE user_id IN (:ids)) t GROUP BY user_id",
+                new MapSqlParameterSource("ids", ids), rs -> {
+                    counts.put(rs.getString(1), rs.getLong(2));
+                });
+        List<UserRow> result = new ArrayList<>(rows.size());
+        for (UserRow row : rows) {
+            result.add(new UserRow(row.id(), row.prenom(), row.nom(), row.email(), row.role(), row.institution(),
+                    row.specialite(), row.provider(), row.active(), row.createdAt(),
+                    counts.getOrDefault(row.id(), 0L)));
+        }
+        return result;
+    }
+
+    private static UserRow toRow(ResultSet rs) throws SQLException {
+        boolean active = rs.getBoolean(9) || rs.wasNull();
+        Timestamp createdAt = rs.getTimestamp(10);
+        return new UserRow(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                rs.getString(6), rs.getString(7), rs.getString(8), active,
+                createdAt != null ? createdAt.toLocalDateTime() : null, 0);
+    }
+
+    /**
+     * Curseur opaque : ordre de tri, valeur de tri (ou absence) et id de la dernière ligne
+     */
+    private static String encodeCursor(UserSort sort, UserRow last) {
+        String value = switch (sort) {
+            case NOM -> last.nom();
+            case EMAIL -> last.email();
+            case RECENT -> last.createdAt() != null ? last.createdAt().toString() : null;
+        };
+        String raw = sort.name() + "\n" + (value != null ? "v" + value : "n") + "\n" + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(UserSort sort, String cursor) {
+        if (cursor == null || cursor.isBlank())
+            return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // La valeur (un nom) peut contenir un saut de ligne, pas l'ordre ni l'id
+            int first = raw.indexOf('\n');
+            int last = raw.lastIndexOf('\n');
+            if (first < 0 || last <= first + 1 || !raw.substring(0, first).equals(sort.name()))
+                return null;
+            String value = raw.charAt(first + 1) == 'v' ? raw.substring(first + 2, last) : null;
+            if (value != null && sort == UserSort.RECENT)
+                LocalDateTime.parse(value);
+            return new String[] { value, raw.substring(last + 1) };
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package sn.esmt.isi.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Index de saisie semi-automatique des utilisateurs (choix des participants).
+ *
+ * Clés : prénom, nom, « prénom nom », « nom prénom », chaque mot de ces noms et
+ * l'email, en minuscules sans accents. Elles sont rangées triées, une liste par rôle
+ * (ConcurrentSkipListMap) : les clés qui commencent par la saisie forment un
+ * intervalle contigu, lu sans verrou et sans parcourir les autres rôles.
+ * L'index suit les événements utilisateur de la boîte d'envoi (UserService et toutes
+ * les autres écritures sur users), avec au plus une période de relève de retard.
+ */
+@Service
+public class UserTypeaheadService implements OutboxSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserTypeaheadService.class);
+
+    /**
+     * Sépare la clé de l'id dans l'index (une même clé peut désigner plusieurs utilisateurs)
+     */
+    private static final char SEPARATOR = '\u0000';
+
+    public record UserSummary(String id, String prenom, String nom, String email, String role, String institution,
+            String specialite, boolean active) {
+    }
+
+    private record Indexed(UserSummary summary, Set<String> keys) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxService outboxService;
+    private volatile long loadedUpTo;
+    private final Map<String, Indexed> users = new ConcurrentHashMap<>();
+    private final Map<String, NavigableMap<String, String>> byRole = new ConcurrentHashMap<>();
+
+    public UserTypeaheadService(JdbcTemplate jdbcTemplate, OutboxService outboxService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.outboxService = outboxService;
+    }
+
+    @PostConstruct
+    public void load() {
+        loadedUpTo = outboxService.loadMark();
+        jdbcTemplate.query(SELECT_USERS, rs -> {
+            put(toSummary(rs));
+        });
+        logger.info("Saisie semi-automatique : {} utilisateurs indexés", users.size());
+    }
+
+    /**
+     * Utilisateurs actifs dont un nom, un mot du nom ou l'email commence par la saisie,
+     * éventuellement limités à un rôle, par ordre alphabétique de la clé trouvée.
+     * Les comptes désactivés sont écartés avant de compter vers la limite.
+     */
+    public List<UserSummary> search(String query, String role, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty())
+            return List.of();
+        List<NavigableMap<String, String>> indexes = role != null
+                ? List.of(byRole.getOrDefault(role, new ConcurrentSkipListMap<>()))
+                : List.copyOf(byRole.values());
+
+        // Meilleure clé de chaque utilisateur, toutes listes confondues
+        Map<String, String> found = new LinkedHashMap<>();
+        for (NavigableMap<String, String> index : indexes) {
+            int taken = 0;
+            for (Map.Entry<String, String> entry : index.subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                    .entrySet()) {
+                if (!isActive(entry.getValue()))
+                    continue; // compte désactivé : ne compte pas vers la limite
+                if (found.putIfAbsent(entry.getValue(), entry.getKey()) == null && ++taken == limit)
+                    break;
+            }
+        }
+        List<UserSummary> result = new ArrayList<>();
+        found.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(Comparator.naturalOrder()))
+                .limit(limit)
+                .forEach(entry -> {
+                    Indexed indexed = users.get(entry.getKey());
+                    if (indexed != null)
+                        result.add(indexed.summary());
+                });
+        return result;
+    }
+
+    @Override
+    public String subscriberName() {
+        return "saisie-utilisateurs";
+    }
+
+    @Override
+    public OptionalLong loadedUpTo() {
+        return OptionalLong.of(loadedUpTo);
+    }
+
+    @Override
+    public void onOutboxEvent(OutboxEvent event) {
+        if (!event.isUser())
+            return;
+        remove(event.agregatId());
+        if (event.type() != OutboxEvent.Type.DELETED) {
+            jdbcTemplate.query(SELECT_USERS + " WHERE id = ?", rs -> {
+                put(toSummary(rs));
+            }, event.agregatId());
+        }
+    }
+
+    private boolean isActive(String id) {
+        Indexed indexed = users.get(id);
+        return indexed != null && indexed.summary().active();
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Index (écrit par le seul thread outbox-relay après le chargement)
+    // ──────────────────────────────────────────────────────────────
+
+    private void put(UserSummary summary) {
+        remove(summary.id());
+        Set<String> keys = keys(summary);
+        NavigableMap<String, String> index = byRole.computeIfAbsent(roleKey(summary.role()),
+                role -> new ConcurrentSkipListMap<>());
+        for (String key : keys) {
+            index.put(key + SEPARATOR + summary.id(), summary.id());
+        }
+        users.put(summary.id(), new Indexed(summary, keys));
+    }
+
+    private void remove(String id) {
+        Indexed previous = users.remove(id);
+        if (previous == null)
+            return;
+        NavigableMap<String, String> index = byRole.get(roleKey(previous.summary().role()));
+        if (index != null) {
+            for (String key : previous.keys()) {
+                index.remove(key + SEPARATOR + id);
+            }
+        }
+    }
+
+    private static Set<String> keys(UserSummary summary) {
+        Set<String> keys = new LinkedHashSet<>();
+        String prenom = normalize(summary.prenom());
+        String nom = normalize(summary.nom());
+        for (String name : List.of(prenom, nom, (prenom + " " + nom).trim(), (nom + " " + prenom).trim())) {
+            if (!name.isEmpty())
+                keys.add(name);
+        }
+        for (String word : (prenom + " " + nom).split(" ")) {
+            if (!word.isEmpty())
+                keys.add(word);
+        }
+        String email = normalize(summary.email());
+        if (!email.isEmpty())
+            keys.add(email);
+        return keys;
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    private static final String SELECT_USERS = "SELECT id, prenom, nom, email, role, institution, specialite, active " +
+            "FROM users";
+
+    private static UserSummary toSummary(ResultSet rs) throws SQLException {
+        return new UserSummary(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                rs.getString(6), rs.getString(7), rs.getBoolean(8) || rs.wasNull());
+    }
+
+    private static String roleKey(String role) {
+        return role != null ? role : "";
+    }
+
+    /**
+     * Minuscules sans accents ; espaces multiples réduites, « @ . - _ » conservés pour les emails
+     */
+    private static String normalize(String text) {
+        if (text == null)
+            return "";
+        return Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase()
+                .replaceAll("[^a-z0-9@._-]+", " ")
+                .trim();
+    }
+}
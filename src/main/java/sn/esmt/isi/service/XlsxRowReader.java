@@ -0,0 +1,278 @@
+package sn.esmt.isi.service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Lecteur XLSX en flux, sans dépendance : le classeur (une archive zip) est copié
+ * dans un fichier temporaire, puis la première feuille est lue avec StAX, ligne par
+ * ligne. Seules les chaînes partagées sont gardées en mémoire.
+ *
+ * Le corps de la requête n'ayant pas de limite de taille, la copie est bornée à
+ * maxBytes et les chaînes partagées à MAX_SHARED_STRINGS entrées / maxSharedChars
+ * caractères : au-delà, l'import est refusé (IllegalArgumentException).
+ */
+final class XlsxRowReader implements ImportRowReader {
+
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final int MAX_SHARED_STRINGS = 1_000_000;
+
+    private final Path file;
+    private final ZipFile zip;
+    private final List<String> sharedStrings;
+    private final InputStream sheetStream;
+    private final XMLStreamReader sheet;
+    private int lineNumber;
+
+    XlsxRowReader(InputStream input, long maxBytes, long maxSharedChars) throws IOException {
+        this.file = Files.createTempFile("import-", ".xlsx");
+        try {
+            copy(input, maxBytes);
+            this.zip = new ZipFile(file.toFile());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            if (e instanceof IllegalArgumentException tooLarge)
+                throw tooLarge;
+            throw new IOException("Classeur XLSX illisible", e);
+        }
+        try {
+            this.sharedStrings = readSharedStrings(maxSharedChars);
+            ZipEntry entry = zip.getEntry(firstSheetPath());
+            if (entry == null)
+                throw new IOException("Classeur XLSX sans feuille");
+            this.sheetStream = zip.getInputStream(entry);
+            this.sheet = factory().createXMLStreamReader(sheetStream);
+        } catch (IOException | XMLStreamException | RuntimeException e) {
+            close();
+            if (e instanceof IllegalArgumentException tooLarge)
+                throw tooLarge;
+            throw e instanceof IOException io ? io : new IOException("Classeur XLSX illisible", e);
+        }
+    }
+
+    @Override
+    public List<String> next() throws IOException {
+        try {
+            while (sheet.hasNext()) {
+                if (sheet.next() == XMLStreamReader.START_ELEMENT && "row".equals(sheet.getLocalName())) {
+                    String r = sheet.getAttributeValue(null, "r");
+                    lineNumber = r != null ? Integer.parseInt(r) : lineNumber + 1;
+                    List<String> cells = readRow();
+                    if (cells.stream().anyMatch(cell -> !cell.isEmpty()))
+                        return cells;
+                }
+            }
+            return null;
+        } catch (XMLStreamException | NumberFormatException e) {
+            throw new IOException("Feuille XLSX illisible près de la ligne " + lineNumber, e);
+        }
+    }
+
+    @Override
+    public int lineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (sheet != null)
+                sheet.close();
+        } catch (XMLStreamException ignored) {
+            // fermeture
+        }
+        try {
+            if (sheetStream != null)
+                sheetStream.close();
+            if (zip != null)
+                zip.close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Copie le classeur dans le fichier temporaire, sans dépasser maxBytes octets
+     */
+    private void copy(InputStream input, long maxBytes) throws IOException {
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(file)) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBytes)
+                    throw new IllegalArgumentException(
+                            "Classeur XLSX trop volumineux : " + maxBytes / (1024 * 1024) + " Mo au maximum");
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Lecture XML
+    // ──────────────────────────────────────────────────────────────
+
+    /**
+     * Cellules de la ligne courante ; les colonnes vides omises par le tableur sont
+     * restituées d'après la référence de cellule (A1, C1…)
+     */
+    private List<String> readRow() throws XMLStreamException, IOException {
+        List<String> cells = new ArrayList<>();
+        while (sheet.hasNext()) {
+            int event = sheet.next();
+            if (event == XMLStreamReader.END_ELEMENT && "row".equals(sheet.getLocalName()))
+                break;
+            if (event != XMLStreamReader.START_ELEMENT || !"c".equals(sheet.getLocalName()))
+                continue;
+            String reference = sheet.getAttributeValue(null, "r");
+            String type = sheet.getAttributeValue(null, "t");
+            int column = reference != null ? columnIndex(reference) : cells.size();
+            String value = readCell(type);
+            while (cells.size() < column) {
+                cells.add("");
+            }
+            cells.add(value.trim());
+        }
+        return cells;
+    }
+
+    private String readCell(String type) throws XMLStreamException, IOException {
+        StringBuilder value = new StringBuilder();
+        int depth = 1;
+        boolean inValue = false;
+        while (depth > 0 && sheet.hasNext()) {
+            int event = sheet.next();
+            if (event == XMLStreamReader.START_ELEMENT) {
+                depth++;
+                // <v> pour les valeurs, <t> pour les chaînes en ligne
+                inValue = "v".equals(sheet.getLocalName()) || "t".equals(sheet.getLocalName());
+            } else if (event == XMLStreamReader.END_ELEMENT) {
+                depth--;
+                inValue = false;
+            } else if (inValue && (event == XMLStreamReader.CHARACTERS || event == XMLStreamReader.CDATA)) {
+                value.append(sheet.getText());
+            }
+        }
+        if ("s".equals(type)) {
+            int index = Integer.parseInt(value.toString().trim());
+            if (index < 0 || index >= sharedStrings.size())
+                throw new IOException("Chaîne partagée inconnue : " + index);
+            return sharedStrings.get(index);
+        }
+        if ("b".equals(type))
+            return "1".equals(value.toString().trim()) ? "VRAI" : "FAUX";
+        return value.toString();
+    }
+
+    private List<String> readSharedStrings(long maxChars) throws IOException, XMLStreamException {
+        List<String> strings = new ArrayList<>();
+        long chars = 0;
+        ZipEntry entry = zip.getEntry("xl/sharedStrings.xml");
+        if (entry == null)
+            return strings;
+        try (InputStream in = zip.getInputStream(entry)) {
+            XMLStreamReader reader = factory().createXMLStreamReader(in);
+            StringBuilder current = null;
+            boolean inText = false;
+            boolean inPhonetic = false;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamReader.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "si" -> current = new StringBuilder();
+                        case "t" -> inText = !inPhonetic;
+                        case "rPh" -> inPhonetic = true;
+                        default -> {
+                        }
+                    }
+                } else if (event == XMLStreamReader.END_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "si" -> {
+                            if (strings.size() == MAX_SHARED_STRINGS)
+                                throw new IllegalArgumentException("Classeur XLSX refusé : plus de "
+                                        + MAX_SHARED_STRINGS + " textes différents");
+                            strings.add(current == null ? "" : current.toString());
+                        }
+                        case "t" -> inText = false;
+                        case "rPh" -> inPhonetic = false;
+                        default -> {
+                        }
+                    }
+                } else if (inText && current != null
+                        && (event == XMLStreamReader.CHARACTERS || event == XMLStreamReader.CDATA)) {
+                    chars += reader.getTextLength();
+                    if (chars > maxChars)
+                        throw new IllegalArgumentException("Classeur XLSX refusé : textes de plus de "
+                                + maxChars + " caractères au total");
+                    current.append(reader.getText());
+                }
+            }
+            reader.close();
+        }
+        return strings;
+    }
+
+    /**
+     * Chemin de la première feuille du classeur (workbook.xml et ses relations),
+     * xl/worksheets/sheet1.xml à défaut
+     */
+    private String firstSheetPath() throws IOException, XMLStreamException {
+        String relationId = null;
+        ZipEntry workbook = zip.getEntry("xl/workbook.xml");
+        if (workbook != null) {
+            try (InputStream in = zip.getInputStream(workbook)) {
+                XMLStreamReader reader = factory().createXMLStreamReader(in);
+                while (relationId == null && reader.hasNext()) {
+                    if (reader.next() == XMLStreamReader.START_ELEMENT && "sheet".equals(reader.getLocalName())
+                            && MAIN_NS.equals(reader.getNamespaceURI()))
+                        relationId = reader.getAttributeValue(REL_NS, "id");
+                }
+                reader.close();
+            }
+        }
+        ZipEntry relations = zip.getEntry("xl/_rels/workbook.xml.rels");
+        if (relationId != null && relations != null) {
+            try (InputStream in = zip.getInputStream(relations)) {
+                XMLStreamReader reader = factory().createXMLStreamReader(in);
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamReader.START_ELEMENT && "Relationship".equals(reader.getLocalName())
+                            && relationId.equals(reader.getAttributeValue(null, "Id"))) {
+                        String target = reader.getAttributeValue(null, "Target");
+                        reader.close();
+                        return target.startsWith("/") ? target.substring(1) : "xl/" + target;
+                    }
+                }
+                reader.close();
+            }
+        }
+        return "xl/worksheets/sheet1.xml";
+    }
+
+    private static int columnIndex(String reference) {
+        int column = 0;
+        for (int i = 0; i < reference.length() && Character.isLetter(reference.charAt(i)); i++) {
+            column = column * 26 + (Character.toUpperCase(reference.charAt(i)) - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    private static XMLInputFactory factory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // Pas de DTD ni d'entités externes (XXE)
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
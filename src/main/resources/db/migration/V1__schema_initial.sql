@@ -0,0 +1,75 @@
+-- ═══════════════════════════════════════════════════════════════
+-- V1 : schéma initial, tel que généré par Hibernate (ddl-auto=update)
+-- Les bases existantes sont reprises à cette version (baseline-on-migrate)
+-- ═══════════════════════════════════════════════════════════════
+
+CREATE TABLE app_config (
+    id BIGINT NOT NULL,
+    site_name VARCHAR(255),
+    contact_email VARCHAR(255),
+    maintenance_mode BIT,
+    registration_open BIT,
+    version VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE domaines (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    nom VARCHAR(255) NOT NULL,
+    description TEXT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_domaines_nom UNIQUE (nom)
+) ENGINE=InnoDB;
+
+CREATE TABLE users (
+    id VARCHAR(255) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    password VARCHAR(255),
+    nom VARCHAR(255),
+    prenom VARCHAR(255),
+    telephone VARCHAR(255),
+    role VARCHAR(255),
+    institution VARCHAR(255),
+    departement VARCHAR(255),
+    specialite VARCHAR(255),
+    niveau_etude VARCHAR(255),
+    bio TEXT,
+    oauth_id VARCHAR(255),
+    provider VARCHAR(255),
+    picture VARCHAR(255),
+    profile_completed BIT,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    active BIT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE=InnoDB;
+
+CREATE TABLE research_projects (
+    project_id BIGINT NOT NULL AUTO_INCREMENT,
+    titre_projet VARCHAR(255) NOT NULL,
+    description VARCHAR(2000),
+    liste_participants TEXT,
+    autres_participants TEXT,
+    domaine_recherche VARCHAR(255),
+    statut_projet VARCHAR(255),
+    niveau_avancement INTEGER,
+    proprietaire_id VARCHAR(255) NOT NULL,
+    responsable_projet VARCHAR(255),
+    institution VARCHAR(255),
+    budget_estime FLOAT(53),
+    date_debut DATE,
+    date_fin DATE,
+    date_creation DATETIME(6),
+    date_modification DATETIME(6),
+    PRIMARY KEY (project_id),
+    CONSTRAINT fk_projects_proprietaire FOREIGN KEY (proprietaire_id) REFERENCES users (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE project_members (
+    project_id BIGINT NOT NULL,
+    user_id VARCHAR(255) NOT NULL,
+    PRIMARY KEY (project_id, user_id),
+    CONSTRAINT fk_members_project FOREIGN KEY (project_id) REFERENCES research_projects (project_id),
+    CONSTRAINT fk_members_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE=InnoDB;
@@ -0,0 +1,17 @@
+-- ═══════════════════════════════════════════════════════════════
+-- V3 : index pour les filtres et agrégats fréquents
+-- (les noms sont vérifiés au démarrage par SchemaIndexVerifier)
+-- ═══════════════════════════════════════════════════════════════
+
+-- Dashboard candidat / gestionnaire : projets d'un propriétaire
+CREATE INDEX idx_projects_proprietaire ON research_projects (proprietaire_id);
+
+-- Projets en retard : statut <> TERMINE AND date_fin < CURRENT_DATE
+CREATE INDEX idx_projects_statut_date_fin ON research_projects (statut, date_fin);
+
+-- Évolution mensuelle (12 derniers mois)
+CREATE INDEX idx_projects_date_creation ON research_projects (date_creation);
+
+-- Listes de candidats et statistiques utilisateurs
+CREATE INDEX idx_users_role ON users (role);
+CREATE INDEX idx_users_institution ON users (institution);
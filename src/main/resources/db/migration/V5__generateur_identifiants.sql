@@ -0,0 +1,21 @@
+-- ═══════════════════════════════════════════════════════════════
+-- V5 : identifiants réservés par blocs (projets et participants externes)
+-- Hibernate ne peut pas grouper les INSERT d'une clé AUTO_INCREMENT ; les
+-- identifiants sont désormais pris dans id_generators, 50 à la fois
+-- (allocationSize des @TableGenerator).
+-- ═══════════════════════════════════════════════════════════════
+
+CREATE TABLE id_generators (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val BIGINT,
+    PRIMARY KEY (sequence_name)
+) ENGINE=InnoDB;
+
+-- Reprise des données existantes : la valeur stockée est la borne haute du bloc
+-- suivant, les identifiants repartent donc juste après le maximum actuel.
+-- À garder égal à allocationSize (50).
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'research_projects', COALESCE(MAX(project_id), 0) + 50 FROM research_projects;
+
+INSERT INTO id_generators (sequence_name, next_val)
+SELECT 'project_external_participants', COALESCE(MAX(id), 0) + 50 FROM project_external_participants;
@@ -0,0 +1,22 @@
+-- ═══════════════════════════════════════════════════════════════
+-- V6 : journal d'audit (ajout seul : l'application n'y fait ni UPDATE ni DELETE)
+-- Écrit en arrière-plan par AuditService, par INSERT groupés.
+-- ═══════════════════════════════════════════════════════════════
+
+CREATE TABLE audit_log (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    date_action DATETIME(6) NOT NULL,
+    acteur_id VARCHAR(255),
+    acteur_email VARCHAR(255),
+    action VARCHAR(40) NOT NULL,
+    cible_type VARCHAR(20) NOT NULL,
+    cible_id VARCHAR(255) NOT NULL,
+    details VARCHAR(2000),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+-- Historique d'un projet ou d'un compte (le plus récent d'abord)
+CREATE INDEX idx_audit_cible ON audit_log (cible_type, cible_id, date_action);
+
+-- Historique des actions d'un utilisateur
+CREATE INDEX idx_audit_acteur ON audit_log (acteur_id, date_action);
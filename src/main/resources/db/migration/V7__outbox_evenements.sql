@@ -0,0 +1,22 @@
+-- ═══════════════════════════════════════════════════════════════
+-- V7 : boîte d'envoi des événements (transactional outbox)
+-- Une ligne par écriture sur un projet ou un utilisateur, insérée dans la même
+-- transaction que l'écriture ; OutboxRelay la relit par id croissant.
+-- ═══════════════════════════════════════════════════════════════
+
+CREATE TABLE outbox_events (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    date_creation DATETIME(6) NOT NULL,
+    agregat_type VARCHAR(20) NOT NULL,
+    agregat_id VARCHAR(255) NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+-- Position de lecture de chaque abonné : dernier événement traité
+CREATE TABLE outbox_consumers (
+    consommateur VARCHAR(100) NOT NULL,
+    dernier_evenement BIGINT NOT NULL,
+    date_maj DATETIME(6) NOT NULL,
+    PRIMARY KEY (consommateur)
+) ENGINE=InnoDB;
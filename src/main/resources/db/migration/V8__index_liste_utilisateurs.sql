@@ -0,0 +1,15 @@
+-- ═══════════════════════════════════════════════════════════════
+-- V8 : index de la liste paginée des utilisateurs (administration)
+-- Pagination par curseur : ORDER BY <colonne>, id ... LIMIT n, reprise après
+-- la dernière ligne lue ; l'email est déjà couvert par uk_users_email.
+-- (les noms sont vérifiés au démarrage par SchemaIndexVerifier)
+-- ═══════════════════════════════════════════════════════════════
+
+-- Tri par nom
+CREATE INDEX idx_users_nom ON users (nom, id);
+
+-- Tri par date d'inscription (plus récents d'abord)
+CREATE INDEX idx_users_created_at ON users (created_at, id);
+
+-- Filtre par fournisseur de connexion (provider NULL = mot de passe)
+CREATE INDEX idx_users_provider ON users (provider);
@@ -0,0 +1,18 @@
+-- ═══════════════════════════════════════════════════════════════
+-- V9 : sessions HTTP partagées entre les nœuds (JdbcSessionRepository)
+-- Dates en millisecondes depuis l'époque ; attributs en un bloc binaire (SessionCodec).
+-- ═══════════════════════════════════════════════════════════════
+
+CREATE TABLE http_sessions (
+    id VARCHAR(64) NOT NULL,
+    date_creation BIGINT NOT NULL,
+    dernier_acces BIGINT NOT NULL,
+    -- Durée d'inactivité maximale, en secondes (négative : sans expiration)
+    duree_max INT NOT NULL,
+    expiration BIGINT NOT NULL,
+    attributs MEDIUMBLOB NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+-- Purge des sessions expirées, par lots
+CREATE INDEX idx_http_sessions_expiration ON http_sessions (expiration);
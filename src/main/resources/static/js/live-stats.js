@@ -0,0 +1,43 @@
+// Flux temps réel des dashboards (Server-Sent Events)
+// - met à jour les éléments [data-live-stat="clé"] à chaque événement « stats »
+// - affiche [data-live-notice] quand un projet a été créé, modifié, supprimé ou importé
+// - affiche [data-live-deadlines] quand des projets approchent de leur échéance
+(function () {
+    const script = document.currentScript;
+    if (!window.EventSource || !script || !script.dataset.liveUrl) {
+        return;
+    }
+
+    const formats = {
+        // Même rendu que #numbers.formatDecimal(v, 1, 'POINT', 0, 'COMMA') + ' F'
+        budget: v => Math.round(v).toString().replace(/\B(?=(\d{3})+(?!\d))/g, '.') + ' F',
+        percent: v => v + '%'
+    };
+
+    function applyStats(stats) {
+        Object.entries(stats).forEach(([key, value]) => {
+            document.querySelectorAll('[data-live-stat="' + key + '"]').forEach(el => {
+                const format = formats[el.dataset.liveFormat];
+                el.textContent = format ? format(value) : value;
+            });
+        });
+    }
+
+    const source = new EventSource(script.dataset.liveUrl);
+    source.addEventListener('stats', e => applyStats(JSON.parse(e.data)));
+    const showNotice = () => {
+        document.querySelectorAll('[data-live-notice]').forEach(el => el.classList.remove('d-none'));
+    };
+    source.addEventListener('project', showNotice);
+    source.addEventListener('import', showNotice);
+    source.addEventListener('deadlines', e => {
+        const data = JSON.parse(e.data);
+        const text = data.count + (data.count > 1 ? ' projets arrivent' : ' projet arrive')
+            + ' à échéance dans ' + data.days + ' jours.';
+        document.querySelectorAll('[data-live-deadlines]').forEach(el => {
+            el.querySelectorAll('[data-live-deadlines-text]').forEach(t => t.textContent = text);
+            el.classList.remove('d-none');
+        });
+    });
+    window.addEventListener('beforeunload', () => source.close());
+})();
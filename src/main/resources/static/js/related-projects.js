@@ -0,0 +1,51 @@
+// Panneau « Projets similaires » des pages de détail
+// - chargé après la page (voisins précalculés côté serveur, réponse 304 tant que rien ne change)
+// - remplit [data-related-list] ; [data-related-empty] s'affiche s'il n'y a aucun voisin
+// - lien vers un voisin seulement s'il est consultable (data-detail-url + id) ; sinon seuls
+//   le domaine et le score sont connus (projet d'un autre candidat)
+(function () {
+    const script = document.currentScript;
+    if (!script || !script.dataset.relatedUrl || !window.fetch) {
+        return;
+    }
+    const list = document.querySelector('[data-related-list]');
+    const empty = document.querySelector('[data-related-empty]');
+    if (!list) {
+        return;
+    }
+
+    function item(project) {
+        const li = document.createElement('li');
+        li.className = 'list-group-item d-flex justify-content-between align-items-start';
+        const body = document.createElement('div');
+        const title = document.createElement(project.consultable ? 'a' : 'span');
+        title.className = 'fw-semibold';
+        title.textContent = project.consultable ? project.titreProjet : 'Projet d\'un autre candidat';
+        if (project.consultable) {
+            title.href = script.dataset.detailUrl + project.id;
+        }
+        const meta = document.createElement('div');
+        meta.className = 'small text-muted';
+        meta.textContent = [project.domaine, project.institution].filter(Boolean).join(' · ');
+        body.append(title, meta);
+        const score = document.createElement('span');
+        score.className = 'badge bg-light text-primary';
+        score.textContent = Math.round(project.score * 100) + ' %';
+        li.append(body, score);
+        return li;
+    }
+
+    fetch(script.dataset.relatedUrl, { headers: { 'Accept': 'application/json' } })
+        .then(response => response.ok ? response.json() : [])
+        .then(projects => {
+            list.replaceChildren(...projects.map(item));
+            if (empty) {
+                empty.classList.toggle('d-none', projects.length > 0);
+            }
+        })
+        .catch(() => {
+            if (empty) {
+                empty.classList.remove('d-none');
+            }
+        });
+})();
@@ -0,0 +1,132 @@
+// Ajout de participants par saisie semi-automatique
+// - interroge data-search-url (?q=…&role=…) 250 ms après la dernière frappe, à partir de 2 caractères
+// - un choix ajoute une ligne cochée dans [data-participants-body] (case name="selectedUserIds")
+// - les utilisateurs déjà présents dans le tableau ne sont pas proposés
+(function () {
+    const script = document.currentScript;
+    if (!script || !script.dataset.searchUrl || !window.fetch) {
+        return;
+    }
+    const input = document.querySelector('[data-typeahead-input]');
+    const menu = document.querySelector('[data-typeahead-menu]');
+    const body = document.querySelector('[data-participants-body]');
+    if (!input || !menu || !body) {
+        return;
+    }
+    const role = script.dataset.role || '';
+    let timer = null;
+    let pending = null;
+
+    function present(id) {
+        return Array.from(body.querySelectorAll('input[name="selectedUserIds"]')).some(box => box.value === id);
+    }
+
+    function cell(text) {
+        const td = document.createElement('td');
+        td.textContent = text || '—';
+        return td;
+    }
+
+    function addRow(user) {
+        const empty = body.querySelector('[data-participants-empty]');
+        if (empty) {
+            empty.remove();
+        }
+        const tr = document.createElement('tr');
+        const check = document.createElement('td');
+        check.className = 'text-center';
+        const box = document.createElement('input');
+        box.type = 'checkbox';
+        box.name = 'selectedUserIds';
+        box.value = user.id;
+        box.checked = true;
+        box.className = 'form-check-input user-checkbox';
+        check.append(box);
+        const name = document.createElement('td');
+        const strong = document.createElement('div');
+        strong.className = 'fw-semibold';
+        strong.textContent = user.nomComplet;
+        name.append(strong);
+        tr.append(check, name, cell(user.email), cell(user.specialite));
+        body.append(tr);
+    }
+
+    function hide() {
+        menu.replaceChildren();
+        menu.classList.remove('show');
+    }
+
+    function show(users) {
+        const choices = users.filter(user => !present(user.id));
+        if (choices.length === 0) {
+            const none = document.createElement('span');
+            none.className = 'dropdown-item-text text-muted small';
+            none.textContent = 'Aucun utilisateur trouvé';
+            menu.replaceChildren(none);
+        } else {
+            menu.replaceChildren(...choices.map(user => {
+                const button = document.createElement('button');
+                button.type = 'button';
+                button.className = 'dropdown-item';
+                const label = document.createElement('div');
+                label.textContent = user.nomComplet;
+                const meta = document.createElement('div');
+                meta.className = 'small text-muted';
+                meta.textContent = [user.email, user.institution].filter(Boolean).join(' · ');
+                button.append(label, meta);
+                button.addEventListener('click', () => {
+                    addRow(user);
+                    input.value = '';
+                    hide();
+                    input.focus();
+                });
+                return button;
+            }));
+        }
+        menu.classList.add('show');
+    }
+
+    function search(query) {
+        if (pending) {
+            pending.abort();
+        }
+        pending = new AbortController();
+        const url = script.dataset.searchUrl + '?limit=10&role=' + encodeURIComponent(role)
+            + '&q=' + encodeURIComponent(query);
+        fetch(url, { headers: { 'Accept': 'application/json' }, signal: pending.signal })
+            .then(response => response.ok ? response.json() : [])
+            .then(users => {
+                if (input.value.trim() === query) {
+                    show(users);
+                }
+            })
+            .catch(() => { });
+    }
+
+    input.addEventListener('input', () => {
+        clearTimeout(timer);
+        const query = input.value.trim();
+        if (query.length < 2) {
+            hide();
+            return;
+        }
+        timer = setTimeout(() => search(query), 250);
+    });
+    input.addEventListener('keydown', event => {
+        if (event.key === 'Escape') {
+            hide();
+        } else if (event.key === 'Enter') {
+            // La touche Entrée choisit la première proposition au lieu d'envoyer le formulaire
+            event.preventDefault();
+            const first = menu.querySelector('button.dropdown-item');
+            if (first) {
+                first.click();
+            }
+        }
+    });
+    document.addEventListener('click', event => {
+        if (!menu.contains(event.target) && event.target !== input) {
+            hide();
+        }
+    });
+})();
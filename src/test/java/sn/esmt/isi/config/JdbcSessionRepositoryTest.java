@@ -0,0 +1,186 @@
+package sn.esmt.isi.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dépôt de sessions sur une base H2 embarquée (mode MySQL) créée par la migration V9.
+ * Les écritures différées ne tournent pas en fond (période d'une heure) : flush() et
+ * sweep() sont appelés par les tests.
+ */
+class JdbcSessionRepositoryTest {
+
+    private static final long HOUR_SECONDS = 3600;
+
+    private SimpleDriverDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private JdbcSessionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:sessions-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V9__sessions_http.sql"))
+                .execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new JdbcSessionRepository(jdbcTemplate, Duration.ofMinutes(30), HOUR_SECONDS, HOUR_SECONDS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.shutdown();
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void savedSessionIsFoundWithItsAttributes() {
+        JdbcSessionRepository.StoredSession session = repository.createSession();
+        session.setAttribute("panier", "projets");
+        repository.save(session);
+
+        JdbcSessionRepository.StoredSession found = repository.findById(session.getId());
+
+        assertThat(found).isNotNull();
+        assertThat((String) found.getAttribute("panier")).isEqualTo("projets");
+        assertThat(found.getMaxInactiveInterval()).isEqualTo(Duration.ofMinutes(30));
+    }
+
+    @Test
+    void changedIdReplacesTheStoredRow() {
+        JdbcSessionRepository.StoredSession session = repository.createSession();
+        session.setAttribute("panier", "projets");
+        repository.save(session);
+        String oldId = session.getId();
+
+        JdbcSessionRepository.StoredSession loaded = repository.findById(oldId);
+        loaded.setLastAccessedTime(Instant.now().plusSeconds(5));
+        repository.save(loaded);
+        String newId = loaded.changeSessionId();
+        loaded.setAttribute("connecte", true);
+        repository.save(loaded);
+
+        assertThat(newId).isNotEqualTo(oldId);
+        assertThat(repository.findById(oldId)).isNull();
+        JdbcSessionRepository.StoredSession rotated = repository.findById(newId);
+        assertThat(rotated).isNotNull();
+        assertThat((String) rotated.getAttribute("panier")).isEqualTo("projets");
+        assertThat((Boolean) rotated.getAttribute("connecte")).isTrue();
+        assertThat(rowCount()).isEqualTo(1);
+    }
+
+    @Test
+    void changedIdWithoutAttributeChangeKeepsTheSession() {
+        JdbcSessionRepository.StoredSession session = repository.createSession();
+        session.setAttribute("panier", "projets");
+        repository.save(session);
+
+        JdbcSessionRepository.StoredSession loaded = repository.findById(session.getId());
+        String newId = loaded.changeSessionId();
+        repository.save(loaded);
+
+        assertThat(repository.findById(session.getId())).isNull();
+        assertThat((String) repository.findById(newId).getAttribute("panier")).isEqualTo("projets");
+    }
+
+    @Test
+    void accessIsWrittenOnlyOnFlush() {
+        JdbcSessionRepository.StoredSession session = repository.createSession();
+        repository.save(session);
+        long created = storedLastAccess(session.getId());
+
+        JdbcSessionRepository.StoredSession loaded = repository.findById(session.getId());
+        Instant later = Instant.ofEpochMilli(created).plusSeconds(60);
+        loaded.setLastAccessedTime(later);
+        repository.save(loaded);
+        assertThat(storedLastAccess(session.getId())).isEqualTo(created);
+        // Ce nœud voit déjà l'accès en attente
+        assertThat(repository.findById(session.getId()).getLastAccessedTime()).isEqualTo(later);
+
+        repository.flush();
+        assertThat(storedLastAccess(session.getId())).isEqualTo(later.toEpochMilli());
+    }
+
+    @Test
+    void pendingAccessKeepsAStaleRowAlive() {
+        JdbcSessionRepository.StoredSession session = repository.createSession();
+        session.setMaxInactiveInterval(Duration.ofMinutes(1));
+        repository.save(session);
+        JdbcSessionRepository.StoredSession loaded = repository.findById(session.getId());
+        loaded.setLastAccessedTime(Instant.now());
+        repository.save(loaded);
+
+        // Ligne telle qu'un autre nœud la voit : dernier accès écrit il y a dix jours
+        ageRow(session.getId());
+
+        assertThat(repository.findById(session.getId())).isNotNull();
+        repository.sweep();
+        assertThat(repository.findById(session.getId())).isNotNull();
+        assertThat(rowCount()).isEqualTo(1);
+    }
+
+    @Test
+    void sweepRemovesExpiredSessions() {
+        JdbcSessionRepository.StoredSession expired = repository.createSession();
+        expired.setMaxInactiveInterval(Duration.ofMinutes(1));
+        repository.save(expired);
+        JdbcSessionRepository.StoredSession active = repository.createSession();
+        repository.save(active);
+        ageRow(expired.getId());
+
+        repository.sweep();
+
+        assertThat(rowCount()).isEqualTo(1);
+        assertThat(repository.findById(active.getId())).isNotNull();
+    }
+
+    @Test
+    void expiredSessionIsNotReturned() {
+        JdbcSessionRepository.StoredSession session = repository.createSession();
+        session.setMaxInactiveInterval(Duration.ofMinutes(1));
+        repository.save(session);
+        ageRow(session.getId());
+
+        assertThat(repository.findById(session.getId())).isNull();
+        assertThat(rowCount()).isZero();
+    }
+
+    @Test
+    void unreadableRowIsDropped() {
+        JdbcSessionRepository.StoredSession session = repository.createSession();
+        repository.save(session);
+        jdbcTemplate.update("UPDATE http_sessions SET attributs = ? WHERE id = ?", new byte[] { 99 },
+                session.getId());
+
+        assertThat(repository.findById(session.getId())).isNull();
+        assertThat(rowCount()).isZero();
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires
+    // ──────────────────────────────────────────────────────────────
+
+    private void ageRow(String id) {
+        long tenDaysAgo = System.currentTimeMillis() - Duration.ofDays(10).toMillis();
+        jdbcTemplate.update("UPDATE http_sessions SET dernier_acces = ?, expiration = ? WHERE id = ?", tenDaysAgo,
+                tenDaysAgo + 60_000, id);
+    }
+
+    private long storedLastAccess(String id) {
+        return jdbcTemplate.queryForObject("SELECT dernier_acces FROM http_sessions WHERE id = ?", Long.class, id);
+    }
+
+    private int rowCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM http_sessions", Integer.class);
+    }
+}
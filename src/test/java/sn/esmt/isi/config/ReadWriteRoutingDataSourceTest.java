@@ -0,0 +1,196 @@
+package sn.esmt.isi.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Aiguillage entre deux bases H2 embarquées : chacune contient une table « origine »
+ * dont l'unique ligne indique la base qui a répondu
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private static final String SERVICE = "sn.esmt.isi.service.StatisticsService.getLiveStats";
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private ReplicaLagMonitor lagMonitor;
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+
+    /**
+     * Accès d'un nœud : sa propre source aiguillée, sur les mêmes bases
+     */
+    private record Node(JdbcTemplate jdbcTemplate, DataSourceTransactionManager transactionManager) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        new JdbcTemplate(replica).execute("CREATE TABLE retard (secondes INT)");
+        new JdbcTemplate(replica).update("INSERT INTO retard VALUES (0)");
+        lagMonitor = new ReplicaLagMonitor(replica, "SELECT secondes FROM retard", 5, 3600);
+
+        Node node = node();
+        jdbcTemplate = node.jdbcTemplate();
+        transactionManager = node.transactionManager();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+        lagMonitor.close();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void readOnlyServiceTransactionGoesToReplica() {
+        assertThat(readOnly(SERVICE)).isEqualTo("replica");
+    }
+
+    @Test
+    void writesAndNonTransactionalAccessStayOnPrimary() {
+        assertThat(readWrite(SERVICE)).isEqualTo("primary");
+        assertThat(jdbcTemplate.queryForObject("SELECT nom FROM origine", String.class)).isEqualTo("primary");
+    }
+
+    @Test
+    void readOnlyTransactionOutsideServicesStaysOnPrimary() {
+        // Transaction ouverte par défaut par un dépôt Spring Data, appelé hors service
+        assertThat(readOnly("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById"))
+                .isEqualTo("primary");
+        assertThat(readOnly(null)).isEqualTo("primary");
+    }
+
+    @Test
+    void userWhoJustWroteReadsFromPrimary() {
+        authenticate("auteur@esmt.sn");
+        assertThat(readOnly(SERVICE)).isEqualTo("replica");
+
+        readWrite(SERVICE);
+        assertThat(readOnly(SERVICE)).isEqualTo("primary");
+
+        // Les autres utilisateurs lisent toujours sur le réplica
+        authenticate("lecteur@esmt.sn");
+        assertThat(readOnly(SERVICE)).isEqualTo("replica");
+    }
+
+    @Test
+    void writeOnAnotherNodeSendsTheSameSessionToPrimary() {
+        Node nodeB = node();
+        MockHttpSession session = new MockHttpSession();
+        authenticate("auteur@esmt.sn");
+
+        request(session);
+        readWrite(SERVICE);
+
+        // Requête suivante du même navigateur, reçue par l'autre nœud (session relue en base)
+        request(session);
+        assertThat(origin(nodeB, SERVICE, true)).isEqualTo("primary");
+
+        // Autre session du même utilisateur : l'autre nœud n'a pas vu l'écriture
+        request(new MockHttpSession());
+        assertThat(origin(nodeB, SERVICE, true)).isEqualTo("replica");
+        // Client sans session (JWT) : aucune session créée
+        MockHttpServletRequest stateless = request(null);
+        assertThat(origin(nodeB, SERVICE, true)).isEqualTo("replica");
+        assertThat(stateless.getSession(false)).isNull();
+    }
+
+    @Test
+    void laggingReplicaSendsReadsBackToPrimary() {
+        new JdbcTemplate(replica).update("UPDATE retard SET secondes = 30");
+        lagMonitor.check();
+        assertThat(lagMonitor.isUsable()).isFalse();
+        assertThat(readOnly(SERVICE)).isEqualTo("primary");
+
+        new JdbcTemplate(replica).update("UPDATE retard SET secondes = 1");
+        lagMonitor.check();
+        assertThat(readOnly(SERVICE)).isEqualTo("replica");
+    }
+
+    @Test
+    void unreachableReplicaSendsReadsBackToPrimary() {
+        new JdbcTemplate(replica).execute("DROP TABLE retard");
+        lagMonitor.check();
+        assertThat(readOnly(SERVICE)).isEqualTo("primary");
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires
+    // ──────────────────────────────────────────────────────────────
+
+    private String readOnly(String name) {
+        return origin(name, true);
+    }
+
+    private String readWrite(String name) {
+        return origin(name, false);
+    }
+
+    private String origin(String name, boolean readOnly) {
+        return origin(new Node(jdbcTemplate, transactionManager), name, readOnly);
+    }
+
+    private static String origin(Node node, String name, boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(node.transactionManager());
+        template.setName(name);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> node.jdbcTemplate().queryForObject("SELECT nom FROM origine",
+                String.class));
+    }
+
+    private Node node() {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, "sn.esmt.isi.service",
+                60_000, lagMonitor::isUsable);
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        return new Node(new JdbcTemplate(dataSource), new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * Nouvelle requête HTTP liée au thread, avec la session donnée (null : sans session)
+     */
+    private static MockHttpServletRequest request(MockHttpSession session) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(session);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        return request;
+    }
+
+    private static void authenticate(String email) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(email, null,
+                AuthorityUtils.createAuthorityList("ROLE_CANDIDAT")));
+    }
+
+    private static EmbeddedDatabase database(String nom) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(nom + "-" + UUID.randomUUID())
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        jdbc.execute("CREATE TABLE origine (nom VARCHAR(20))");
+        jdbc.update("INSERT INTO origine VALUES (?)", nom);
+        return database;
+    }
+}
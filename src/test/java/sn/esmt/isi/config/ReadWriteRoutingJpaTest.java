@@ -0,0 +1,154 @@
+package sn.esmt.isi.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Aiguillage à travers JPA, avec l'EntityManager gardé ouvert d'une transaction à l'autre
+ * comme le fait open-in-view pendant une requête web. Les propriétés Hibernate
+ * (spring.jpa.properties.*) sont celles d'application.properties.
+ */
+class ReadWriteRoutingJpaTest {
+
+    private static final String SERVICE = "sn.esmt.isi.service.ProjectService.";
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private ReplicaLagMonitor lagMonitor;
+    private LocalContainerEntityManagerFactoryBean factoryBean;
+    private EntityManagerFactory entityManagerFactory;
+    private EntityManager entityManager;
+    private JpaTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        primary = database("primary");
+        replica = database("replica");
+        new JdbcTemplate(replica).execute("CREATE TABLE retard (secondes INT)");
+        new JdbcTemplate(replica).update("INSERT INTO retard VALUES (0)");
+        lagMonitor = new ReplicaLagMonitor(replica, "SELECT secondes FROM retard", 5, 3600);
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, "sn.esmt.isi.service",
+                60_000, lagMonitor::isUsable);
+
+        factoryBean = new LocalContainerEntityManagerFactoryBean();
+        factoryBean.setDataSource(new LazyConnectionDataSourceProxy(routing));
+        factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factoryBean.setPackagesToScan(getClass().getPackageName() + ".aucune_entite");
+        factoryBean.setJpaPropertyMap(applicationHibernateProperties());
+        factoryBean.afterPropertiesSet();
+        entityManagerFactory = factoryBean.getObject();
+        transactionManager = new JpaTransactionManager(entityManagerFactory);
+
+        // open-in-view : un EntityManager pour toute la requête
+        entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+        entityManager.close();
+        factoryBean.destroy();
+        lagMonitor.close();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void writeAfterReadOnlyServiceTransactionGoesToPrimary() {
+        assertThat(origin(SERVICE + "getVisibleProjects", true)).isEqualTo("replica");
+
+        TransactionTemplate write = template(SERVICE + "save", false);
+        String origin = write.execute(status -> {
+            entityManager.createNativeQuery("INSERT INTO ecritures VALUES (1)").executeUpdate();
+            return nom();
+        });
+
+        assertThat(origin).isEqualTo("primary");
+        assertThat(new JdbcTemplate(primary).queryForObject("SELECT COUNT(*) FROM ecritures", Integer.class))
+                .isEqualTo(1);
+        assertThat(new JdbcTemplate(replica).queryForObject("SELECT COUNT(*) FROM ecritures", Integer.class))
+                .isZero();
+    }
+
+    @Test
+    void readOnlyServiceTransactionAfterRepositoryTransactionGoesToReplica() {
+        // getCurrentUser() : transaction par défaut d'un dépôt Spring Data, sur la base principale
+        assertThat(origin("org.springframework.data.jpa.repository.support.SimpleJpaRepository.findById", true))
+                .isEqualTo("primary");
+
+        assertThat(origin(SERVICE + "getVisibleProjects", true)).isEqualTo("replica");
+        assertThat(origin(SERVICE + "update", false)).isEqualTo("primary");
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires
+    // ──────────────────────────────────────────────────────────────
+
+    private String origin(String name, boolean readOnly) {
+        return template(name, readOnly).execute(status -> nom());
+    }
+
+    private String nom() {
+        return (String) entityManager.createNativeQuery("SELECT nom FROM origine").getSingleResult();
+    }
+
+    private TransactionTemplate template(String name, boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setName(name);
+        template.setReadOnly(readOnly);
+        return template;
+    }
+
+    /**
+     * Propriétés hibernate.connection.* déclarées dans application.properties
+     */
+    private static Map<String, Object> applicationHibernateProperties() throws IOException {
+        Properties application = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+        Map<String, Object> properties = new HashMap<>();
+        String prefix = "spring.jpa.properties.";
+        for (String key : application.stringPropertyNames()) {
+            if (key.startsWith(prefix + "hibernate.connection."))
+                properties.put(key.substring(prefix.length()), application.getProperty(key));
+        }
+        assertThat(properties).containsKey("hibernate.connection.handling_mode");
+        properties.put("hibernate.hbm2ddl.auto", "none");
+        return properties;
+    }
+
+    private static EmbeddedDatabase database(String nom) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(nom + "-" + UUID.randomUUID())
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        jdbc.execute("CREATE TABLE origine (nom VARCHAR(20))");
+        jdbc.update("INSERT INTO origine VALUES (?)", nom);
+        jdbc.execute("CREATE TABLE ecritures (id INT)");
+        return database;
+    }
+}
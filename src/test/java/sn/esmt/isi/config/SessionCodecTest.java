@@ -0,0 +1,172 @@
+package sn.esmt.isi.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.web.servlet.FlashMap;
+import sn.esmt.isi.model.User;
+import sn.esmt.isi.service.CustomOAuth2User;
+import sn.esmt.isi.service.CustomUserDetails;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SessionCodecTest {
+
+    private static final String CONTEXT = "SPRING_SECURITY_CONTEXT";
+    private static final String PASSWORD_HASH = "$2a$10$hashDuMotDePasseQuiNeDoitPasSortir";
+
+    private final SessionCodec codec = new SessionCodec(getClass().getClassLoader());
+
+    @Test
+    void formLoginRoundTrip() throws IOException {
+        org.springframework.security.core.userdetails.User principal =
+                new org.springframework.security.core.userdetails.User("admin@esmt.sn", PASSWORD_HASH,
+                        AuthorityUtils.createAuthorityList("ROLE_ADMIN"));
+        principal.eraseCredentials();
+        UsernamePasswordAuthenticationToken auth = UsernamePasswordAuthenticationToken.authenticated(principal,
+                null, principal.getAuthorities());
+        auth.setDetails(new WebAuthenticationDetails("10.0.0.1", "ancien-id"));
+
+        Authentication decoded = roundTrip(auth);
+
+        assertThat(decoded).isInstanceOf(UsernamePasswordAuthenticationToken.class);
+        assertThat(decoded.isAuthenticated()).isTrue();
+        assertThat(decoded.getName()).isEqualTo("admin@esmt.sn");
+        assertThat(decoded.getPrincipal()).isEqualTo(principal);
+        assertThat(AuthorityUtils.authorityListToSet(decoded.getAuthorities())).containsExactly("ROLE_ADMIN");
+        assertThat(decoded.getDetails()).isEqualTo(auth.getDetails());
+    }
+
+    @Test
+    void customUserDetailsRoundTripWithoutPassword() throws IOException {
+        User user = user("ROLE_GESTIONNAIRE");
+        CustomUserDetails principal = new CustomUserDetails(user);
+        UsernamePasswordAuthenticationToken auth = UsernamePasswordAuthenticationToken.authenticated(principal,
+                null, principal.getAuthorities());
+
+        Map<String, Object> attributes = Map.of(CONTEXT, new SecurityContextImpl(auth));
+        byte[] blob = codec.encode(attributes);
+        assertThat(new String(blob, StandardCharsets.ISO_8859_1)).doesNotContain(PASSWORD_HASH, user.getBio());
+
+        Authentication decoded = ((SecurityContext) codec.decode(blob).get(CONTEXT)).getAuthentication();
+        CustomUserDetails decodedPrincipal = (CustomUserDetails) decoded.getPrincipal();
+        User decodedUser = decodedPrincipal.getUser();
+        assertThat(decodedUser.getId()).isEqualTo(user.getId());
+        assertThat(decodedUser.getEmail()).isEqualTo(user.getEmail());
+        assertThat(decodedUser.getNom()).isEqualTo("Diop");
+        assertThat(decodedUser.getRole()).isEqualTo("ROLE_GESTIONNAIRE");
+        assertThat(decodedUser.getActive()).isTrue();
+        assertThat(decodedUser.getProfileCompleted()).isFalse();
+        assertThat(decodedUser.getPassword()).isNull();
+        assertThat(decodedUser.getBio()).isNull();
+        assertThat(decoded.getAuthorities()).isEqualTo(principal.getAuthorities());
+    }
+
+    @Test
+    void customOAuth2UserRoundTrip() throws IOException {
+        User user = user("ROLE_CANDIDAT");
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", "1098765");
+        claims.put("email", user.getEmail());
+        claims.put("email_verified", true);
+        claims.put("name", "Awa Diop");
+        DefaultOAuth2User google = new DefaultOAuth2User(AuthorityUtils.createAuthorityList("OAUTH2_USER"), claims,
+                "sub");
+        CustomOAuth2User principal = new CustomOAuth2User(google, user);
+        OAuth2AuthenticationToken auth = new OAuth2AuthenticationToken(principal, principal.getAuthorities(),
+                "google");
+        auth.setDetails(new WebAuthenticationDetails("10.0.0.2", null));
+
+        OAuth2AuthenticationToken decoded = (OAuth2AuthenticationToken) roundTrip(auth);
+
+        assertThat(decoded.getAuthorizedClientRegistrationId()).isEqualTo("google");
+        CustomOAuth2User decodedPrincipal = (CustomOAuth2User) decoded.getPrincipal();
+        assertThat(decodedPrincipal.getName()).isEqualTo("1098765");
+        assertThat(decodedPrincipal.getEmail()).isEqualTo(user.getEmail());
+        assertThat(decodedPrincipal.getAttributes()).isEqualTo(claims);
+        assertThat(decodedPrincipal.getOAuth2User().getAuthorities()).isEqualTo(google.getAuthorities());
+        assertThat(decodedPrincipal.getUser().getId()).isEqualTo(user.getId());
+        assertThat(decodedPrincipal.getUser().getOauthId()).isEqualTo("1098765");
+        assertThat(decodedPrincipal.getUser().getPassword()).isNull();
+        assertThat(decoded.getAuthorities()).isEqualTo(auth.getAuthorities());
+        assertThat(decoded.getDetails()).isEqualTo(auth.getDetails());
+    }
+
+    @Test
+    void flashMapsAndSimpleValuesRoundTrip() throws IOException {
+        FlashMap flash = new FlashMap();
+        flash.put("success", "Projet enregistré");
+        flash.setTargetRequestPath("/candidate/dashboard");
+        List<FlashMap> flashMaps = new CopyOnWriteArrayList<>(List.of(flash));
+
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("org.springframework.web.servlet.support.SessionFlashMapManager.FLASH_MAPS", flashMaps);
+        attributes.put("texte", "é à ü — 𝄞");
+        attributes.put("drapeau", true);
+        attributes.put("entier", 42);
+        attributes.put("long", Long.MAX_VALUE);
+        attributes.put("reel", 0.5);
+        attributes.put("vide", null);
+        attributes.put(CONTEXT, new SecurityContextImpl());
+
+        Map<String, Object> decoded = codec.decode(codec.encode(attributes));
+
+        assertThat(decoded).containsOnlyKeys(attributes.keySet());
+        @SuppressWarnings("unchecked")
+        List<FlashMap> decodedFlash = (List<FlashMap>) decoded
+                .get("org.springframework.web.servlet.support.SessionFlashMapManager.FLASH_MAPS");
+        assertThat(decodedFlash).hasSize(1);
+        assertThat((Map<String, Object>) decodedFlash.get(0)).containsEntry("success", "Projet enregistré");
+        assertThat(decodedFlash.get(0).getTargetRequestPath()).isEqualTo("/candidate/dashboard");
+        assertThat(decoded).containsEntry("texte", "é à ü — 𝄞").containsEntry("drapeau", true)
+                .containsEntry("entier", 42).containsEntry("long", Long.MAX_VALUE).containsEntry("reel", 0.5)
+                .containsEntry("vide", null);
+        assertThat(((SecurityContext) decoded.get(CONTEXT)).getAuthentication()).isNull();
+    }
+
+    @Test
+    void unknownVersionIsRejected() throws IOException {
+        byte[] blob = codec.encode(Map.of("texte", "valeur"));
+        blob[0] = 99;
+        assertThatThrownBy(() -> codec.decode(blob)).isInstanceOf(IOException.class);
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires
+    // ──────────────────────────────────────────────────────────────
+
+    private Authentication roundTrip(Authentication auth) throws IOException {
+        byte[] blob = codec.encode(Map.of(CONTEXT, new SecurityContextImpl(auth)));
+        return ((SecurityContext) codec.decode(blob).get(CONTEXT)).getAuthentication();
+    }
+
+    private static User user(String role) {
+        User user = new User();
+        user.setId("5f0c6a1e-0000-4000-8000-000000000001");
+        user.setEmail("awa.diop@esmt.sn");
+        user.setPassword(PASSWORD_HASH);
+        user.setNom("Diop");
+        user.setPrenom("Awa");
+        user.setRole(role);
+        user.setBio("Biographie longue qui n'a rien à faire dans la session");
+        user.setOauthId("1098765");
+        user.setProvider("GOOGLE");
+        user.setProfileCompleted(false);
+        user.setActive(true);
+        return user;
+    }
+}
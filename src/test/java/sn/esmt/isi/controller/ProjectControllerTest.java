@@ -0,0 +1,85 @@
+package sn.esmt.isi.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import sn.esmt.isi.model.User;
+import sn.esmt.isi.service.ProjectService;
+import sn.esmt.isi.service.ProjectVersionService;
+import sn.esmt.isi.service.RelatedProjectsService;
+import sn.esmt.isi.service.RelatedProjectsService.Related;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProjectControllerTest {
+
+    private ProjectService projectService;
+    private RelatedProjectsService relatedProjectsService;
+    private ProjectController controller;
+    private WebRequest request;
+
+    @BeforeEach
+    void setUp() {
+        projectService = mock(ProjectService.class);
+        relatedProjectsService = mock(RelatedProjectsService.class);
+        ProjectVersionService versionService = mock(ProjectVersionService.class);
+        when(versionService.checkListNotModified(any(), any())).thenReturn(false);
+        controller = new ProjectController(projectService, null, null, versionService, null, null, null, null,
+                relatedProjectsService);
+        request = mock(WebRequest.class);
+        when(relatedProjectsService.getRelated(eq(1L), anyInt())).thenReturn(List.of(
+                new Related(2L, "Projet du candidat", "Santé", "ESMT", "u-candidat", 0.8),
+                new Related(3L, "Projet d'un autre", "Santé", "UCAD", "u-autre", 0.6)));
+    }
+
+    private static User user(String id, String role) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(id + "@esmt.sn");
+        user.setRole(role);
+        return user;
+    }
+
+    @Test
+    void candidatNeRecoitQueDomaineEtScoreDesProjetsDesAutres() {
+        User candidat = user("u-candidat", "ROLE_CANDIDAT");
+        when(projectService.getRequiredCurrentUser()).thenReturn(candidat);
+
+        ResponseEntity<List<Map<String, Object>>> response = controller.getRelated(1L, 5, request);
+
+        verify(projectService).getProjectIfOwner(1L, candidat.getEmail());
+        List<Map<String, Object>> related = response.getBody();
+        assertThat(related).hasSize(2);
+        assertThat(related.get(0))
+                .containsEntry("id", 2L)
+                .containsEntry("titreProjet", "Projet du candidat")
+                .containsEntry("institution", "ESMT")
+                .containsEntry("consultable", true);
+        assertThat(related.get(1))
+                .containsOnlyKeys("domaine", "score", "consultable")
+                .containsEntry("domaine", "Santé")
+                .containsEntry("score", 0.6)
+                .containsEntry("consultable", false);
+    }
+
+    @Test
+    void gestionnaireRecoitTousLesChamps() {
+        when(projectService.getRequiredCurrentUser()).thenReturn(user("u-gestionnaire", "ROLE_GESTIONNAIRE"));
+
+        List<Map<String, Object>> related = controller.getRelated(1L, 5, request).getBody();
+
+        assertThat(related).allSatisfy(item -> assertThat(item)
+                .containsKeys("id", "titreProjet", "institution")
+                .containsEntry("consultable", true));
+    }
+}
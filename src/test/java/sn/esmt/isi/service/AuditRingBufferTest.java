@@ -0,0 +1,143 @@
+package sn.esmt.isi.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditRingBufferTest {
+
+    private static final int PRODUCERS = 4;
+
+    /**
+     * Élément : producteur + numéro d'ordre chez ce producteur
+     */
+    private record Item(int producer, int sequence) {
+    }
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        assertThat(new AuditRingBuffer<Item>(1000).capacity()).isEqualTo(1024);
+        assertThat(new AuditRingBuffer<Item>(8192).capacity()).isEqualTo(8192);
+    }
+
+    @Test
+    void offerFailsAtCapacityAndSucceedsAgainAfterDrain() {
+        AuditRingBuffer<Item> buffer = new AuditRingBuffer<>(16);
+        for (int i = 0; i < 16; i++) {
+            assertThat(buffer.offer(new Item(0, i))).isTrue();
+        }
+        assertThat(buffer.offer(new Item(0, 16))).isFalse();
+        assertThat(buffer.size()).isEqualTo(16);
+
+        List<Item> drained = new ArrayList<>();
+        assertThat(buffer.drain(drained::add, 5)).isEqualTo(5);
+        assertThat(drained).extracting(Item::sequence).containsExactly(0, 1, 2, 3, 4);
+
+        for (int i = 16; i < 21; i++) {
+            assertThat(buffer.offer(new Item(0, i))).isTrue();
+        }
+        assertThat(buffer.offer(new Item(0, 21))).isFalse();
+
+        drained.clear();
+        assertThat(buffer.drain(drained::add, Integer.MAX_VALUE)).isEqualTo(16);
+        assertThat(drained).extracting(Item::sequence).containsExactlyElementsOf(range(5, 21));
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    @Timeout(30)
+    void multipleProducersLoseNothingBelowCapacity() throws Exception {
+        int perProducer = 10_000;
+        AuditRingBuffer<Item> buffer = new AuditRingBuffer<>(PRODUCERS * perProducer);
+        Run run = produce(buffer, perProducer);
+
+        assertThat(run.rejected()).isZero();
+        assertThat(run.received()).hasSize(PRODUCERS * perProducer);
+        assertInProducerOrder(run.received(), perProducer);
+    }
+
+    @Test
+    @Timeout(30)
+    void multipleProducersAtCapacityAccountForEveryOffer() throws Exception {
+        int perProducer = 50_000;
+        AuditRingBuffer<Item> buffer = new AuditRingBuffer<>(64);
+        Run run = produce(buffer, perProducer);
+
+        assertThat(run.rejected()).isPositive();
+        assertThat(run.received().size() + run.rejected()).isEqualTo((long) PRODUCERS * perProducer);
+        assertInProducerOrder(run.received(), perProducer);
+        assertThat(buffer.size()).isZero();
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    private record Run(List<Item> received, long rejected) {
+    }
+
+    /**
+     * Producteurs concurrents, vidés en même temps par le thread du test (consommateur unique)
+     */
+    private static Run produce(AuditRingBuffer<Item> buffer, int perProducer) throws Exception {
+        ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong rejected = new AtomicLong();
+        List<Future<?>> done = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            done.add(producers.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    if (!buffer.offer(new Item(producer, i)))
+                        rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        List<Item> received = new ArrayList<>();
+        start.countDown();
+        while (!done.stream().allMatch(Future::isDone)) {
+            buffer.drain(received::add, 100);
+        }
+        for (Future<?> future : done) {
+            future.get();
+        }
+        buffer.drain(received::add, Integer.MAX_VALUE);
+        producers.shutdown();
+        assertThat(producers.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        return new Run(received, rejected.get());
+    }
+
+    /**
+     * Chaque producteur est relu dans son ordre de dépôt, sans doublon
+     */
+    private static void assertInProducerOrder(List<Item> received, int perProducer) {
+        int[] last = new int[PRODUCERS];
+        Arrays.fill(last, -1);
+        for (Item item : received) {
+            assertThat(item.sequence()).isGreaterThan(last[item.producer()]).isLessThan(perProducer);
+            last[item.producer()] = item.sequence();
+        }
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            values.add(i);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,158 @@
+package sn.esmt.isi.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Deux nœuds (deux relais) sur la même base H2 (mode MySQL), créée par la migration V7 :
+ * chaque nœud reçoit les écritures de l'autre dans ses abonnés en mémoire
+ */
+class OutboxRelayTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private OutboxService outboxService;
+    private final List<OutboxRelay> relays = new ArrayList<>();
+
+    /**
+     * Index en mémoire factice : projets vus, rechargements après import
+     */
+    private static final class Index implements OutboxSubscriber {
+        final List<Long> projects = new ArrayList<>();
+        final AtomicInteger reloads = new AtomicInteger();
+        final AtomicInteger failuresLeft = new AtomicInteger();
+        final long loadedUpTo;
+        boolean importPending;
+
+        Index(long loadedUpTo) {
+            this.loadedUpTo = loadedUpTo;
+        }
+
+        @Override
+        public String subscriberName() {
+            return "index";
+        }
+
+        @Override
+        public OptionalLong loadedUpTo() {
+            return OptionalLong.of(loadedUpTo);
+        }
+
+        @Override
+        public synchronized void onOutboxEvent(OutboxEvent event) {
+            if (event.type() == OutboxEvent.Type.IMPORTED)
+                importPending = true;
+            else if (!projects.contains(event.projectId()))
+                projects.add(event.projectId());
+        }
+
+        @Override
+        public synchronized void afterOutboxBatch() {
+            if (!importPending)
+                return;
+            if (failuresLeft.getAndDecrement() > 0)
+                throw new IllegalStateException("rechargement impossible");
+            reloads.incrementAndGet();
+            importPending = false;
+        }
+
+        synchronized List<Long> projects() {
+            return List.copyOf(projects);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:relay-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V7__outbox_evenements.sql"))
+                .execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        outboxService = new OutboxService(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        relays.forEach(OutboxRelay::shutdown);
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    @Timeout(10)
+    void everyNodeAppliesWritesMadeOnTheOther() throws InterruptedException {
+        outboxService.append(OutboxEvent.PROJET, 1L, OutboxEvent.Type.CREATED);
+        Index indexA = new Index(1);
+        Index indexB = new Index(1);
+        OutboxRelay relayA = relay(indexA);
+        OutboxRelay relayB = relay(indexB);
+
+        // Écriture reçue par le nœud A seulement
+        outboxService.append(OutboxEvent.PROJET, 2L, OutboxEvent.Type.UPDATED);
+        outboxService.append(OutboxEvent.PROJET, 3L, OutboxEvent.Type.CREATED);
+
+        awaitApplied(relayA, 3);
+        awaitApplied(relayB, 3);
+        assertThat(indexA.projects()).containsExactly(2L, 3L);
+        assertThat(indexB.projects()).containsExactly(2L, 3L);
+    }
+
+    @Test
+    @Timeout(10)
+    void importBatchesReadTogetherReloadOnce() throws InterruptedException {
+        for (int lot = 0; lot < 5; lot++) {
+            outboxService.append(OutboxEvent.PROJET, 500, OutboxEvent.Type.IMPORTED);
+        }
+        Index index = new Index(0);
+        OutboxRelay relay = relay(index);
+
+        awaitApplied(relay, 5);
+        assertThat(index.reloads).hasValue(1);
+        assertThat(index.projects()).isEmpty();
+    }
+
+    @Test
+    @Timeout(10)
+    void failedBatchEndIsReplayedBeforeThePositionMoves() throws InterruptedException {
+        Index index = new Index(0);
+        index.failuresLeft.set(2);
+        outboxService.append(OutboxEvent.PROJET, 500, OutboxEvent.Type.IMPORTED);
+        outboxService.append(OutboxEvent.PROJET, 7L, OutboxEvent.Type.UPDATED);
+        OutboxRelay relay = relay(index);
+
+        awaitApplied(relay, 2);
+        assertThat(index.reloads).hasValue(1);
+        assertThat(index.projects()).containsExactly(7L);
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    private OutboxRelay relay(OutboxSubscriber subscriber) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("index", subscriber));
+        OutboxRelay relay = new OutboxRelay(jdbcTemplate, beans.getBeanProvider(OutboxSubscriber.class), 20, 7);
+        relays.add(relay);
+        return relay;
+    }
+
+    private static void awaitApplied(OutboxRelay relay, long id) throws InterruptedException {
+        while (relay.appliedUpTo() < id) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package sn.esmt.isi.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import sn.esmt.isi.repository.ProjectRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * ETag des listes calculé par deux nœuds sur la même base H2 (mode MySQL), créée par la
+ * migration V7 : seul nodeA « écrit », nodeB doit voir le même ETag
+ */
+class ProjectVersionServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private ProjectVersionService nodeA;
+    private ProjectVersionService nodeB;
+    private OutboxRelay relayA;
+    private OutboxRelay relayB;
+
+    @BeforeEach
+    void setUp() {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:outbox-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V7__outbox_evenements.sql"))
+                .execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        relayA = mock(OutboxRelay.class);
+        relayB = mock(OutboxRelay.class);
+        nodeA = new ProjectVersionService(mock(ProjectRepository.class), jdbcTemplate, relayA);
+        nodeB = new ProjectVersionService(mock(ProjectRepository.class), jdbcTemplate, relayB);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void everyNodeComputesTheSameListETag() {
+        assertThat(nodeB.listETag(null)).isEqualTo(nodeA.listETag(null));
+
+        String before = nodeB.listETag("gestionnaire@esmt.sn");
+        new OutboxService(jdbcTemplate).append(OutboxEvent.PROJET, 1L, OutboxEvent.Type.UPDATED);
+
+        assertThat(nodeB.listETag("gestionnaire@esmt.sn")).isNotEqualTo(before)
+                .isEqualTo(nodeA.listETag("gestionnaire@esmt.sn"));
+        assertThat(nodeA.listETag("candidat@esmt.sn")).isNotEqualTo(nodeA.listETag("gestionnaire@esmt.sn"));
+    }
+
+    @Test
+    void lateCommitBelowTheLatestIdChangesTheVersion() {
+        insert(10);
+        long seen = nodeB.getTableVersion();
+
+        // Transaction plus lente : son id, inférieur, n'est visible qu'après celui de la suivante
+        insert(7);
+
+        assertThat(nodeB.getTableVersion()).isNotEqualTo(seen);
+    }
+
+    @Test
+    void observedChangeRestartsTheRecentChangeWindow() {
+        nodeB.getTableVersion();
+        assertThat(nodeB.nanosSinceLastChange()).isGreaterThan(60_000_000_000L);
+
+        insert(1);
+        nodeB.getTableVersion();
+
+        assertThat(nodeB.nanosSinceLastChange()).isLessThan(60_000_000_000L);
+    }
+
+    @Test
+    void indexETagFollowsThePositionAppliedByEachNode() {
+        when(relayA.appliedUpTo()).thenReturn(-1L);
+        assertThat(nodeA.indexETag(null)).isEmpty();
+
+        when(relayA.appliedUpTo()).thenReturn(41L);
+        when(relayB.appliedUpTo()).thenReturn(40L);
+        assertThat(nodeB.indexETag(null)).isNotEqualTo(nodeA.indexETag(null));
+
+        when(relayB.appliedUpTo()).thenReturn(41L);
+        assertThat(nodeB.indexETag(null)).isEqualTo(nodeA.indexETag(null));
+        assertThat(nodeA.indexETag("candidat@esmt.sn")).isNotEqualTo(nodeA.indexETag(null));
+    }
+
+    private void insert(long id) {
+        jdbcTemplate.update("INSERT INTO outbox_events (id, date_creation, agregat_type, agregat_id, type) " +
+                "VALUES (?, ?, ?, ?, ?)", id, Timestamp.valueOf(LocalDateTime.now()), OutboxEvent.PROJET, "1",
+                OutboxEvent.Type.UPDATED.name());
+    }
+}
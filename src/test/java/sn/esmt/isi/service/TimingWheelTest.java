@@ -0,0 +1,147 @@
+package sn.esmt.isi.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private static final long LEVEL_1 = 64;
+    private static final long LEVEL_2 = 64 * 64;
+    private static final long SPAN = 64 * 64 * 64;
+
+    @Test
+    void expiresOnTimeAcrossLevelOneBoundaries() {
+        TimingWheel<String> wheel = new TimingWheel<>(60);
+        Map<String, Long> deadlines = Map.of(
+                "a", 63L, "b", LEVEL_1, "c", LEVEL_1 + 1, "d", 2 * LEVEL_1 + 2,
+                "e", LEVEL_2 - 1, "f", 60 + LEVEL_2 - 1);
+        deadlines.forEach(wheel::schedule);
+
+        Map<String, Long> fired = advance(wheel, 2 * LEVEL_2);
+
+        assertThat(fired).isEqualTo(deadlines);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void expiresOnTimeAcrossLevelTwoBoundaries() {
+        TimingWheel<String> wheel = new TimingWheel<>(LEVEL_2 - 3);
+        Map<String, Long> deadlines = Map.of(
+                "a", LEVEL_2, "b", LEVEL_2 + LEVEL_1, "c", 2 * LEVEL_2 - 1, "d", 2 * LEVEL_2,
+                "e", 2 * LEVEL_2 + 1, "f", SPAN, "g", SPAN + LEVEL_2 - 4);
+        deadlines.forEach(wheel::schedule);
+
+        Map<String, Long> fired = advance(wheel, SPAN + 2 * LEVEL_2);
+
+        assertThat(fired).isEqualTo(deadlines);
+    }
+
+    @Test
+    void rescheduleAndCancelBeforeCascade() {
+        TimingWheel<String> wheel = new TimingWheel<>(0);
+        wheel.schedule("earlier", 5000);
+        wheel.schedule("later", 5000);
+        wheel.schedule("sameSlot", 5000);
+        wheel.schedule("cancelled", 5000);
+        wheel.schedule("farLevel2", 100_000);
+
+        wheel.schedule("earlier", 200);
+        wheel.schedule("later", 6000);
+        wheel.schedule("sameSlot", 5010);
+        wheel.cancel("cancelled");
+        wheel.schedule("farLevel2", 4200);
+
+        Map<String, Long> fired = advance(wheel, 200_000);
+
+        assertThat(fired).containsExactly(Map.entry("earlier", 200L), Map.entry("farLevel2", 4200L),
+                Map.entry("sameSlot", 5010L), Map.entry("later", 6000L));
+    }
+
+    @Test
+    void deadlinesBeyondSpanAreReplacedUntilDue() {
+        TimingWheel<String> wheel = new TimingWheel<>(7);
+        wheel.schedule("span", 7 + SPAN);
+        wheel.schedule("farther", 3 * SPAN + 17);
+
+        Map<String, Long> early = advance(wheel, 3 * SPAN + 16);
+        assertThat(early).containsExactly(Map.entry("span", 7 + SPAN));
+        assertThat(wheel.size()).isEqualTo(1);
+
+        assertThat(advance(wheel, 3 * SPAN + 17)).containsExactly(Map.entry("farther", 3 * SPAN + 17));
+    }
+
+    @Test
+    void emptyWheelJumpsAndIgnoresStaleEntries() {
+        TimingWheel<String> wheel = new TimingWheel<>(0);
+        wheel.schedule("k", 5000);
+        wheel.cancel("k");
+
+        assertThat(advance(wheel, 4100)).isEmpty();
+        assertThat(wheel.currentTick()).isEqualTo(4100);
+
+        // L'ancienne entrée de « k » est toujours dans sa case : une seule expiration
+        wheel.schedule("k", 5000);
+        wheel.schedule("m", 4100 + LEVEL_2 + 5);
+        assertThat(advance(wheel, 10 * LEVEL_2)).containsExactly(Map.entry("k", 5000L),
+                Map.entry("m", 4100 + LEVEL_2 + 5));
+    }
+
+    @Test
+    void pastDeadlineIsNotScheduled() {
+        TimingWheel<String> wheel = new TimingWheel<>(100);
+        wheel.schedule("k", 500);
+
+        assertThat(wheel.schedule("k", 100)).isFalse();
+        assertThat(wheel.size()).isZero();
+        assertThat(advance(wheel, 1000)).isEmpty();
+    }
+
+    @Test
+    void matchesNaiveScheduleWithRandomDeadlines() {
+        Random random = new Random(42);
+        long start = 12_345;
+        TimingWheel<Integer> wheel = new TimingWheel<>(start);
+        Map<Integer, Long> expected = new HashMap<>();
+        for (int key = 0; key < 2000; key++) {
+            long tick = start + 1 + (long) (random.nextDouble() * random.nextDouble() * 2 * SPAN);
+            wheel.schedule(key, tick);
+            expected.put(key, tick);
+        }
+        // Reprogrammations et annulations en cours de route
+        Map<Integer, Long> fired = new HashMap<>();
+        long now = start;
+        while (now < start + 2 * SPAN + 1) {
+            now += 1 + random.nextInt(3000);
+            fired.putAll(advance(wheel, now));
+            int key = random.nextInt(2000);
+            if (expected.get(key) != null && expected.get(key) > now) {
+                if (random.nextBoolean()) {
+                    wheel.cancel(key);
+                    expected.remove(key);
+                } else {
+                    long tick = now + 1 + random.nextInt((int) LEVEL_2 * 3);
+                    wheel.schedule(key, tick);
+                    expected.put(key, tick);
+                }
+            }
+        }
+
+        assertThat(fired).isEqualTo(expected);
+        assertThat(wheel.size()).isZero();
+    }
+
+    /**
+     * Avance la roue et renvoie clé → graduation d'expiration, dans l'ordre d'expiration
+     */
+    private static <K> Map<K, Long> advance(TimingWheel<K> wheel, long tick) {
+        Map<K, Long> fired = new LinkedHashMap<>();
+        wheel.advanceTo(tick, key -> assertThat(fired.put(key, wheel.currentTick())).isNull());
+        return fired;
+    }
+}
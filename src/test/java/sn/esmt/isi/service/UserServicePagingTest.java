@@ -0,0 +1,141 @@
+package sn.esmt.isi.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import sn.esmt.isi.repository.UserRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Liste paginée par curseur sur une base H2 embarquée (mode MySQL : NULL en tête en
+ * ordre croissant, en fin en ordre décroissant) créée par les migrations V1 et V8.
+ */
+class UserServicePagingTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 1, 9, 30);
+
+    private JdbcTemplate jdbcTemplate;
+    private UserService userService;
+    private final List<UserService.UserRow> seeded = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:users-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__schema_initial.sql"),
+                new ClassPathResource("db/migration/V8__index_liste_utilisateurs.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        userService = new UserService(mock(UserRepository.class), new NamedParameterJdbcTemplate(dataSource));
+
+        // Noms et dates en double, absents (NULL) en tête, au milieu et en fin d'ids
+        String[] noms = { null, "diallo", "ndiaye", "diallo", null, "sarr", "ba", "ndiaye", null, "diop",
+                "ba", "sarr", "fall", null, "diallo", "ka", "ba", null, "mbaye", "ndiaye", "gueye", null };
+        for (int i = 0; i < noms.length; i++) {
+            LocalDateTime createdAt = i % 4 == 1 ? null : BASE.plusDays(i % 5).plusNanos(i % 3 * 1000);
+            insert(String.format("u%02d", (i * 7) % noms.length), noms[i], createdAt);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void nameOrderPagesThroughNullsWithoutDuplicatesOrGaps() {
+        Comparator<UserService.UserRow> byNom = Comparator.comparing(UserService.UserRow::nom,
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+        assertPagesMatch(UserService.UserSort.NOM, byNom.thenComparing(UserService.UserRow::id));
+    }
+
+    @Test
+    void recentOrderPagesThroughNullsWithoutDuplicatesOrGaps() {
+        Comparator<UserService.UserRow> byDate = Comparator.comparing(UserService.UserRow::createdAt,
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+        assertPagesMatch(UserService.UserSort.RECENT, byDate.thenComparing(UserService.UserRow::id).reversed());
+    }
+
+    @Test
+    void emailOrderPagesThroughEveryRow() {
+        assertPagesMatch(UserService.UserSort.EMAIL, Comparator.comparing(UserService.UserRow::email)
+                .thenComparing(UserService.UserRow::id));
+    }
+
+    @Test
+    void tamperedOrForeignCursorRestartsAtFirstPage() {
+        UserService.UserPage first = userService.findPage(null, UserService.UserSort.RECENT, null, 5);
+        String nomCursor = userService.findPage(null, UserService.UserSort.NOM, null, 5).suivante();
+
+        List<String> cursors = List.of(
+                "pas du base64 !",
+                "%%%",
+                nomCursor,
+                encode("RECENT\nvpas-une-date\nu03"),
+                encode("RECENT"),
+                encode("RECENT\n\n"));
+        for (String cursor : cursors) {
+            assertThat(ids(userService.findPage(null, UserService.UserSort.RECENT, cursor, 5)))
+                    .as("curseur %s", cursor)
+                    .isEqualTo(ids(first));
+        }
+    }
+
+    // ──────────────────────────────────────────────────────────────
+    // Utilitaires privés
+    // ──────────────────────────────────────────────────────────────
+
+    /**
+     * Parcourt toutes les pages, pour plusieurs tailles, et compare à l'ordre attendu
+     */
+    private void assertPagesMatch(UserService.UserSort sort, Comparator<UserService.UserRow> order) {
+        List<String> expected = seeded.stream().sorted(order).map(UserService.UserRow::id).toList();
+        for (int size : new int[] { 1, 3, 4, 7, 50 }) {
+            List<String> read = new ArrayList<>();
+            String cursor = null;
+            int pages = 0;
+            do {
+                UserService.UserPage page = userService.findPage(null, sort, cursor, size);
+                assertThat(page.total()).isEqualTo(seeded.size());
+                assertThat(page.users()).hasSizeLessThanOrEqualTo(size);
+                read.addAll(ids(page));
+                cursor = page.suivante();
+                assertThat(++pages).as("pages").isLessThanOrEqualTo(seeded.size() + 1);
+            } while (cursor != null);
+
+            assertThat(read).as("%s par pages de %d", sort, size).containsExactlyElementsOf(expected);
+        }
+    }
+
+    private void insert(String id, String nom, LocalDateTime createdAt) {
+        String email = id + "@esmt.sn";
+        jdbcTemplate.update("INSERT INTO users (id, email, nom, prenom, role, created_at, active) " +
+                "VALUES (?, ?, ?, ?, 'ROLE_CANDIDAT', ?, TRUE)", id, email, nom, "Prenom " + id,
+                createdAt != null ? Timestamp.valueOf(createdAt) : null);
+        seeded.add(new UserService.UserRow(id, "Prenom " + id, nom, email, "ROLE_CANDIDAT", null, null, null, true,
+                createdAt, 0));
+    }
+
+    private static List<String> ids(UserService.UserPage page) {
+        return page.users().stream().map(UserService.UserRow::id).toList();
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}